@@ -0,0 +1,105 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.serialization;
+
+import com.yahoo.document.DataType;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.document.TensorDataType;
+import com.yahoo.document.datatypes.Array;
+import com.yahoo.document.datatypes.IntegerFieldValue;
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.document.datatypes.TensorFieldValue;
+import com.yahoo.io.GrowableByteBuffer;
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of serializing and deserializing documents in the 6.x format,
+ * with string, integer, array and tensor fields.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DocumentSerializationBenchmarks {
+
+    /** The number of words in the body field */
+    @Param({"100", "2000"})
+    public int bodyWords;
+
+    private DocumentTypeManager manager;
+    private Document document;
+    private byte[] serialized;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(bodyWords);
+        TensorType embeddingType = TensorType.fromSpec("tensor<float>(x[128])");
+        DocumentType type = new DocumentType("benchmark");
+        type.addField("title", DataType.STRING);
+        type.addField("body", DataType.STRING);
+        type.addField("year", DataType.INT);
+        type.addField("tags", DataType.getArray(DataType.STRING));
+        type.addField("embedding", new TensorDataType(embeddingType));
+        manager = new DocumentTypeManager();
+        manager.registerDocumentType(type);
+
+        document = new Document(type, "id:namespace:benchmark::1");
+        document.setFieldValue("title", new StringFieldValue(words(8, random)));
+        document.setFieldValue("body", new StringFieldValue(words(bodyWords, random)));
+        document.setFieldValue("year", new IntegerFieldValue(1900 + random.nextInt(120)));
+        Array<StringFieldValue> tags = new Array<>(DataType.getArray(DataType.STRING));
+        for (int i = 0; i < 10; i++)
+            tags.add(new StringFieldValue("tag" + random.nextInt(100)));
+        document.setFieldValue("tags", tags);
+        IndexedTensor.BoundBuilder embedding = (IndexedTensor.BoundBuilder)Tensor.Builder.of(embeddingType);
+        for (int i = 0; i < 128; i++)
+            embedding.cellByDirectIndex(i, random.nextFloat());
+        document.setFieldValue("embedding", new TensorFieldValue(embedding.build()));
+
+        serialized = serialize();
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        GrowableByteBuffer buffer = new GrowableByteBuffer();
+        DocumentSerializerFactory.create6(buffer).write(document);
+        buffer.flip();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    @Benchmark
+    public Document deserialize() {
+        return new Document(DocumentDeserializerFactory.create6(manager, GrowableByteBuffer.wrap(serialized)));
+    }
+
+    private static String words(int count, Random random) {
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < count; i++)
+            b.append("word").append(random.nextInt(10000)).append(' ');
+        return b.toString();
+    }
+
+}
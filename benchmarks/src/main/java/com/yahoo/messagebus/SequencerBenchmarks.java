@@ -0,0 +1,87 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.messagebus;
+
+import com.yahoo.messagebus.test.SimpleMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of many threads sending sequenced messages through one sequencer, as done by a feeding client.
+ * Messages are replied to by the thread which passed them on, right after, so this measures contention
+ * in the sequencer only.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class SequencerBenchmarks {
+
+    /** The number of distinct sequence ids to send messages with */
+    @Param({"16", "1000000"})
+    public int ids;
+
+    private Sequencer sequencer;
+
+    /** The messages passed on by the sequencer in each thread, which are not yet replied to */
+    private static final ThreadLocal<Deque<Message>> sent = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private static final ReplyHandler ignore = reply -> { };
+
+    @Setup
+    public void setup() {
+        sequencer = new Sequencer(msg -> sent.get().add(msg));
+    }
+
+    @Benchmark
+    public void sendSequenced() {
+        Message msg = new SequencedMessage(ThreadLocalRandom.current().nextInt(ids));
+        msg.pushHandler(ignore);
+        sequencer.handleMessage(msg);
+
+        // Replying may cause queued messages to be sent, which we then reply to here as well
+        Deque<Message> pending = sent.get();
+        for (Message next; (next = pending.poll()) != null; ) {
+            Reply reply = new EmptyReply();
+            reply.swapState(next);
+            reply.popHandler().handleReply(reply);
+        }
+    }
+
+    private static class SequencedMessage extends SimpleMessage {
+
+        private final long seqId;
+
+        SequencedMessage(long seqId) {
+            super("");
+            this.seqId = seqId;
+        }
+
+        @Override
+        public boolean hasSequenceId() { return true; }
+
+        @Override
+        public long getSequenceId() { return seqId; }
+
+    }
+
+}
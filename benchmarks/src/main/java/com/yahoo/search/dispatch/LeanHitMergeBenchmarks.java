@@ -0,0 +1,80 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.google.protobuf.ByteString;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of merging the sorted hit lists returned from content nodes,
+ * both as lists of {@link LeanHit} objects and as {@link LeanHitBuffer}s.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LeanHitMergeBenchmarks {
+
+    @Param({"10", "50", "200"})
+    public int nodes;
+
+    @Param({"10", "400"})
+    public int hitsPerNode;
+
+    private List<List<LeanHit>> hitLists;
+    private List<List<LeanHit>> hitBuffers;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(nodes * 1000L + hitsPerNode);
+        hitLists = new ArrayList<>(nodes);
+        hitBuffers = new ArrayList<>(nodes);
+        for (int node = 0; node < nodes; node++) {
+            double[] relevances = new double[hitsPerNode];
+            for (int i = 0; i < hitsPerNode; i++)
+                relevances[i] = random.nextDouble();
+            Arrays.sort(relevances);
+
+            List<LeanHit> hits = new ArrayList<>(hitsPerNode);
+            LeanHitBuffer buffer = new LeanHitBuffer(node, node, hitsPerNode);
+            for (int i = hitsPerNode - 1; i >= 0; i--) { // descending relevance
+                byte[] gid = new byte[12];
+                random.nextBytes(gid);
+                hits.add(new LeanHit(gid, node, node, relevances[i]));
+                buffer.add(ByteString.copyFrom(gid), relevances[i], ByteString.EMPTY);
+            }
+            hitLists.add(hits);
+            hitBuffers.add(buffer);
+        }
+    }
+
+    @Benchmark
+    public List<LeanHit> mergeHits() {
+        return LeanHitMerger.merge(hitLists, hitsPerNode);
+    }
+
+    @Benchmark
+    public List<LeanHit> mergeHitBuffers() {
+        return LeanHitMerger.merge(hitBuffers, hitsPerNode);
+    }
+
+}
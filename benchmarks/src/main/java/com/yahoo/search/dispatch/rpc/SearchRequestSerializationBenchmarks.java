@@ -0,0 +1,51 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch.rpc;
+
+import com.yahoo.search.Query;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of serializing a query to the protobuf search request sent to content nodes.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SearchRequestSerializationBenchmarks {
+
+    /** The number of terms in the query */
+    @Param({"2", "50"})
+    public int terms;
+
+    private Query query;
+
+    @Setup
+    public void setup() {
+        StringBuilder b = new StringBuilder();
+        for (int i = 0; i < terms; i++)
+            b.append(i == 0 ? "" : "+").append("term").append(i);
+        query = new Query("?query=" + b + "&type=any&hits=100&ranking.features.query(weight)=2.5");
+    }
+
+    @Benchmark
+    public byte[] serializeSearchRequest() {
+        return ProtobufSerialization.serializeSearchRequest(query, query.getHits(), "benchmark");
+    }
+
+}
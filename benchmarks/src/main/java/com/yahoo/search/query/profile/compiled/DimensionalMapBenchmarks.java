@@ -0,0 +1,72 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.query.profile.compiled;
+
+import com.yahoo.processing.request.CompoundName;
+import com.yahoo.search.query.profile.DimensionBinding;
+import com.yahoo.search.query.profile.DimensionValues;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of looking up a value among the variants of a compiled query profile,
+ * bound to varying subsets of its dimensions.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DimensionalMapBenchmarks {
+
+    private static final List<String> dimensions = List.of("x", "y", "z");
+    private static final CompoundName key = new CompoundName("a");
+
+    @Param({"10", "300"})
+    public int variants;
+
+    private DimensionalMap<String> map;
+    private Map<String, String> matchingContext;
+    private Map<String, String> nonMatchingContext;
+
+    @Setup
+    public void setup() {
+        DimensionalMap.Builder<String> builder = new DimensionalMap.Builder<>();
+        builder.put(key, DimensionBinding.createFrom(dimensions, DimensionValues.createFrom(new String[0])), "default");
+        for (int i = 0; i < variants; i++) {
+            String[] variant = { i % 2 == 0 ? null : "x" + i % 5, i % 3 == 0 ? null : "y" + i % 7, "z" + i };
+            builder.put(key, DimensionBinding.createFrom(dimensions, DimensionValues.createFrom(variant)), "value" + i);
+        }
+        map = builder.build();
+
+        int matching = variants - 1;
+        matchingContext = Map.of("x", "x" + matching % 5, "y", "y" + matching % 7, "z", "z" + matching);
+        nonMatchingContext = Map.of("x", "x1", "y", "y2", "z", "unknown");
+    }
+
+    @Benchmark
+    public String getMatchingVariant() {
+        return map.get(key, matchingContext);
+    }
+
+    @Benchmark
+    public String getDefaultVariant() {
+        return map.get(key, nonMatchingContext);
+    }
+
+}
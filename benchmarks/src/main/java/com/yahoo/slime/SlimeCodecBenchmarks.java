@@ -0,0 +1,82 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.slime;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of encoding and decoding Slime to and from JSON and the binary format,
+ * using an array of objects shaped like document summaries.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SlimeCodecBenchmarks {
+
+    @Param({"10", "400"})
+    public int objects;
+
+    private Slime slime;
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup
+    public void setup() throws IOException {
+        Random random = new Random(objects);
+        slime = new Slime();
+        Cursor array = slime.setArray();
+        for (int i = 0; i < objects; i++) {
+            Cursor object = array.addObject();
+            object.setString("id", "id:namespace:music::" + random.nextLong());
+            object.setString("title", "A title containing some words " + random.nextInt());
+            object.setString("body", "Some longer body text, which is not ASCII only: \u00e6\u00f8\u00e5 " + random.nextLong());
+            object.setLong("year", 1900 + random.nextInt(120));
+            object.setDouble("relevance", random.nextDouble());
+            object.setBool("available", random.nextBoolean());
+            Cursor tags = object.setArray("tags");
+            for (int t = 0; t < 8; t++)
+                tags.addString("tag" + random.nextInt(100));
+        }
+        json = SlimeUtils.toJsonBytes(slime);
+        binary = BinaryFormat.encode(slime);
+    }
+
+    @Benchmark
+    public byte[] encodeJson() throws IOException {
+        return SlimeUtils.toJsonBytes(slime);
+    }
+
+    @Benchmark
+    public Slime decodeJson() {
+        return new JsonDecoder().decode(new Slime(), json);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return BinaryFormat.encode(slime);
+    }
+
+    @Benchmark
+    public Slime decodeBinary() {
+        return BinaryFormat.decode(binary);
+    }
+
+}
@@ -0,0 +1,127 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+import com.yahoo.tensor.evaluation.Name;
+import com.yahoo.tensor.functions.ConstantTensor;
+import com.yahoo.tensor.functions.Join;
+import com.yahoo.tensor.functions.Reduce;
+import com.yahoo.tensor.functions.ReduceJoin;
+import com.yahoo.tensor.functions.ScalarFunctions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the tensor functions used in ranking: Dense and sparse dot products, matrix products,
+ * l2 normalization and reduce.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TensorFunctionBenchmarks {
+
+    @Param({"128", "768"})
+    public int size;
+
+    @Param({"double", "float"})
+    public String valueType;
+
+    private Tensor vector1, vector2;
+    private Tensor matrix;
+    private Tensor sparse1, sparse2;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(size);
+        vector1 = dense("tensor<" + valueType + ">(x[" + size + "])", size, random);
+        vector2 = dense("tensor<" + valueType + ">(x[" + size + "])", size, random);
+        matrix = dense("tensor<" + valueType + ">(y[16],x[" + size + "])", 16 * size, random);
+        sparse1 = sparse(size, random);
+        sparse2 = sparse(size, random);
+    }
+
+    @Benchmark
+    public Tensor denseDotProduct() {
+        return reduceJoin(vector1, vector2, "x");
+    }
+
+    @Benchmark
+    public Tensor denseVectorMatrixProduct() {
+        return reduceJoin(vector1, matrix, "x");
+    }
+
+    @Benchmark
+    public Tensor denseMatmul() {
+        return vector1.matmul(matrix, "x");
+    }
+
+    @Benchmark
+    public Tensor denseJoin() {
+        return vector1.join(vector2, ScalarFunctions.multiply());
+    }
+
+    @Benchmark
+    public Tensor denseSum() {
+        return vector1.sum();
+    }
+
+    @Benchmark
+    public Tensor denseL2Normalize() {
+        return vector1.l2Normalize("x");
+    }
+
+    @Benchmark
+    public Tensor sparseDotProduct() {
+        return reduceJoin(sparse1, sparse2, "t");
+    }
+
+    @Benchmark
+    public Tensor sparseJoinThenReduce() {
+        return new Reduce<>(new Join<>(new ConstantTensor<>(sparse1), new ConstantTensor<>(sparse2), ScalarFunctions.multiply()),
+                            Reduce.Aggregator.sum, "t").evaluate();
+    }
+
+    private static Tensor reduceJoin(Tensor a, Tensor b, String dimension) {
+        return new ReduceJoin<Name>(new ConstantTensor<>(a), new ConstantTensor<>(b),
+                                    ScalarFunctions.multiply(), Reduce.Aggregator.sum, List.of(dimension)).evaluate();
+    }
+
+    private static Tensor dense(String type, int cells, Random random) {
+        IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)Tensor.Builder.of(TensorType.fromSpec(type));
+        for (int i = 0; i < cells; i++)
+            builder.cellByDirectIndex(i, random.nextDouble());
+        return builder.build();
+    }
+
+    /** Returns a sparse tensor with the given number of cells, having distinct labels drawn from twice as many values */
+    private static Tensor sparse(int cells, Random random) {
+        List<Integer> labels = new ArrayList<>();
+        for (int i = 0; i < 2 * cells; i++)
+            labels.add(i);
+        Collections.shuffle(labels, random);
+        Tensor.Builder builder = Tensor.Builder.of(TensorType.fromSpec("tensor(t{})"));
+        for (int i = 0; i < cells; i++)
+            builder.cell(TensorAddress.ofLabels("label" + labels.get(i)), random.nextDouble());
+        return builder.build();
+    }
+
+}
@@ -0,0 +1,83 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.text;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of encoding, decoding and validating UTF-8 text with {@link Utf8},
+ * for pure ASCII text and for text which is mostly, but not only, ASCII.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class Utf8Benchmarks {
+
+    @Param({"ascii", "mixed"})
+    public String text;
+
+    @Param({"16", "1000"})
+    public int length;
+
+    private String string;
+    private byte[] utf8;
+    private byte[] destination;
+
+    @Setup
+    public void setup() {
+        String unit = text.equals("ascii") ? "Some plain text. " : "Some text, bl\u00e5b\u00e6r. ";
+        StringBuilder b = new StringBuilder();
+        while (b.length() < length)
+            b.append(unit);
+        string = b.substring(0, length);
+        utf8 = Utf8.toBytes(string);
+        destination = new byte[utf8.length];
+    }
+
+    @Benchmark
+    public String decode() {
+        return Utf8.toString(utf8, 0, utf8.length);
+    }
+
+    @Benchmark
+    public String decodeValidating() {
+        return Utf8.toStringOrThrow(utf8, 0, utf8.length);
+    }
+
+    @Benchmark
+    public byte[] encodeSubstring() {
+        return Utf8.toBytes(string, 0, string.length());
+    }
+
+    @Benchmark
+    public int encodeIntoArray() {
+        return Utf8.toBytes(string, 0, string.length(), destination, 0);
+    }
+
+    @Benchmark
+    public int unitCount() {
+        return Utf8.unitCount(utf8);
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return Utf8.isValid(utf8);
+    }
+
+}
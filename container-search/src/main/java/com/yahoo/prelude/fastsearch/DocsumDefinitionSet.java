@@ -4,7 +4,6 @@ package com.yahoo.prelude.fastsearch;
 import com.google.common.collect.ImmutableMap;
 import com.yahoo.slime.BinaryFormat;
 import com.yahoo.data.access.Inspector;
-import com.yahoo.slime.Slime;
 import com.yahoo.data.access.slime.SlimeAdapter;
 import com.yahoo.prelude.ConfigurationException;
 
@@ -74,8 +73,7 @@ public final class DocsumDefinitionSet {
             throw new IllegalArgumentException("Only expecting SchemaLess docsums - summary class:" + summaryClass + " hit:" + hit);
         }
         DocsumDefinition docsumDefinition = getDocsum(summaryClass);
-        Slime value = BinaryFormat.decode(buffer.array(), buffer.arrayOffset()+buffer.position(), buffer.remaining());
-        Inspector docsum = new SlimeAdapter(value.get());
+        Inspector docsum = new SlimeAdapter(BinaryFormat.inspect(buffer.array(), buffer.arrayOffset()+buffer.position(), buffer.remaining()));
         if (docsum.type() != OBJECT) {
             return "Hit " + hit + " failed: " + docsum.asString();
         }
@@ -103,7 +103,7 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
     @Override
     protected InvokerResult getSearchResult(Execution execution) throws IOException {
         InvokerResult result = new InvokerResult(query, query.getHits());
-        List<LeanHit> merged = Collections.emptyList();
+        List<List<LeanHit>> partialHits = new ArrayList<>(invokers.size());
         long nextTimeout = query.getTimeLeft();
         try {
             while (!invokers.isEmpty() && nextTimeout >= 0) {
@@ -112,7 +112,7 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
                     log.fine(() -> "Search timed out with " + askedNodes + " requests made, " + answeredNodes + " responses received");
                     break;
                 } else {
-                    merged = mergeResult(result.getResult(), invoker.getSearchResult(execution), merged);
+                    mergeResult(result.getResult(), invoker.getSearchResult(execution), partialHits);
                     ejectInvoker(invoker);
                 }
                 nextTimeout = nextTimeout();
@@ -124,6 +124,7 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
         insertNetworkErrors(result.getResult());
         result.getResult().setCoverage(createCoverage());
         int needed = query.getOffset() + query.getHits();
+        List<LeanHit> merged = LeanHitMerger.merge(partialHits, needed);
         for (int index = query.getOffset(); (index < merged.size()) && (index < needed); index++) {
             result.getLeanHits().add(merged.get(index));
         }
@@ -197,7 +198,8 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
         return nextAdaptive;
     }
 
-    private List<LeanHit> mergeResult(Result result, InvokerResult partialResult, List<LeanHit> current) {
+    /** Merges everything but the lean hits into the result, and collects the lean hits for merging when all responses are in */
+    private void mergeResult(Result result, InvokerResult partialResult, List<List<LeanHit>> partialHits) {
         collectCoverage(partialResult.getResult().getCoverage(true));
 
         result.mergeWith(partialResult.getResult());
@@ -207,42 +209,9 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
                 result.hits().add(hit);
             }
         }
-        if (current.isEmpty() ) {
-            return partialResult.getLeanHits();
+        if ( ! partialResult.getLeanHits().isEmpty()) {
+            partialHits.add(partialResult.getLeanHits());
         }
-        List<LeanHit> partial = partialResult.getLeanHits();
-        if (partial.isEmpty()) {
-            return current;
-        }
-
-        int needed = query.getOffset() + query.getHits();
-        List<LeanHit> merged = new ArrayList<>(needed);
-        int indexCurrent = 0;
-        int indexPartial = 0;
-        while (indexCurrent < current.size() && indexPartial < partial.size() && merged.size() < needed) {
-            LeanHit incommingHit = partial.get(indexPartial);
-            LeanHit currentHit = current.get(indexCurrent);
-
-            int cmpRes = currentHit.compareTo(incommingHit);
-            if (cmpRes < 0) {
-                merged.add(currentHit);
-                indexCurrent++;
-            } else if (cmpRes > 0) {
-                merged.add(incommingHit);
-                indexPartial++;
-            } else { // Duplicates
-                merged.add(currentHit);
-                indexCurrent++;
-                indexPartial++;
-            }
-        }
-        while ((indexCurrent < current.size()) && (merged.size() < needed)) {
-            merged.add(current.get(indexCurrent++));
-        }
-        while ((indexPartial < partial.size()) && (merged.size() < needed)) {
-            merged.add(partial.get(indexPartial++));
-        }
-        return merged;
     }
 
     private void collectCoverage(Coverage source) {
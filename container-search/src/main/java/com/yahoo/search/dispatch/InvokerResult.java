@@ -24,6 +24,10 @@ public class InvokerResult {
         result = new Result(query);
         leanHits = new ArrayList<>(expectedHits);
     }
+    public InvokerResult(Query query, List<LeanHit> leanHits) {
+        this.result = new Result(query);
+        this.leanHits = leanHits;
+    }
 
     public Result getResult() {
         return result;
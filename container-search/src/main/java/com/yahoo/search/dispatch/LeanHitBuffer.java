@@ -0,0 +1,96 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.google.protobuf.ByteString;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+
+/**
+ * The lean hits returned from a single content node, stored column-wise in primitive arrays:
+ * Relevance in a double array, and global id and sort data of each hit in a single byte arena.
+ * {@link LeanHit} instances are only created for the hits which are accessed through {@link #get},
+ * which during merging is the final top-k. Hits are compared without materializing them
+ * using {@link #compare}.
+ *
+ * @author agent
+ */
+public class LeanHitBuffer extends AbstractList<LeanHit> {
+
+    private final int partId;
+    private final int distributionKey;
+
+    private double[] relevances;
+    /** Global id of hit i is at [offsets[2i], offsets[2i+1]> in the arena, sort data at [offsets[2i+1], offsets[2i+2]> */
+    private int[] offsets;
+    private byte[] arena;
+    private int size = 0;
+
+    public LeanHitBuffer(int partId, int distributionKey, int expectedHits) {
+        this.partId = partId;
+        this.distributionKey = distributionKey;
+        this.relevances = new double[Math.max(expectedHits, 1)];
+        this.offsets = new int[2 * relevances.length + 1];
+        this.arena = new byte[relevances.length * 12];
+    }
+
+    /** Adds a hit, copying the bytes of the given global id and sort data (which may be empty) to the arena */
+    public void add(ByteString gid, double relevance, ByteString sortData) {
+        ensureCapacity(gid.size() + sortData.size());
+        int start = offsets[2 * size];
+        gid.copyTo(arena, start);
+        offsets[2 * size + 1] = start + gid.size();
+        sortData.copyTo(arena, start + gid.size());
+        offsets[2 * size + 2] = start + gid.size() + sortData.size();
+        relevances[size] = Double.isNaN(relevance) ? Double.NEGATIVE_INFINITY : relevance;
+        size++;
+    }
+
+    private void ensureCapacity(int bytesNeeded) {
+        if (size == relevances.length) {
+            relevances = Arrays.copyOf(relevances, relevances.length * 2);
+            offsets = Arrays.copyOf(offsets, 2 * relevances.length + 1);
+        }
+        int bytesUsed = offsets[2 * size];
+        if (bytesUsed + bytesNeeded > arena.length)
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, bytesUsed + bytesNeeded));
+    }
+
+    /** Creates a lean hit from the hit at the given index */
+    @Override
+    public LeanHit get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index " + index + " of " + size + " hits");
+        byte[] gid = Arrays.copyOfRange(arena, gidStart(index), sortDataStart(index));
+        return hasSortData(index)
+               ? new LeanHit(gid, partId, distributionKey, relevances[index], Arrays.copyOfRange(arena, sortDataStart(index), end(index)))
+               : new LeanHit(gid, partId, distributionKey, relevances[index]);
+    }
+
+    public double getRelevance(int index) { return relevances[index]; }
+
+    public boolean hasSortData(int index) { return end(index) > sortDataStart(index); }
+
+    @Override
+    public int size() { return size; }
+
+    @Override
+    public void clear() { size = 0; }
+
+    private int gidStart(int index) { return offsets[2 * index]; }
+    private int sortDataStart(int index) { return offsets[2 * index + 1]; }
+    private int end(int index) { return offsets[2 * index + 2]; }
+
+    /**
+     * Compares hit i in buffer a to hit j in buffer b, with the same result as comparing the
+     * corresponding {@link LeanHit} instances.
+     */
+    public static int compare(LeanHitBuffer a, int i, LeanHitBuffer b, int j) {
+        int result = a.hasSortData(i)
+                     ? Arrays.compareUnsigned(a.arena, a.sortDataStart(i), a.end(i), b.arena, b.sortDataStart(j), b.end(j))
+                     : Double.compare(b.relevances[j], a.relevances[i]);
+        return (result != 0)
+               ? result
+               : Arrays.compareUnsigned(a.arena, a.gidStart(i), a.sortDataStart(i), b.arena, b.gidStart(j), b.sortDataStart(j));
+    }
+
+}
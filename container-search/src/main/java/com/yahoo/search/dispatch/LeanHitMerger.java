@@ -0,0 +1,98 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Merges the sorted lean hit lists returned from multiple content nodes into a single sorted list
+ * of the best hits. This is a k-way merge using a binary heap over the head of each list, so each
+ * hit is copied at most once regardless of the number of nodes. Duplicate hits are only kept once.
+ * Sources which are {@link LeanHitBuffer}s are compared without materializing their hits.
+ *
+ * @author agent
+ */
+class LeanHitMerger {
+
+    private final List<List<LeanHit>> sources;
+    private final int[] heap;
+    private final int[] positions;
+    private int heapSize = 0;
+
+    private LeanHitMerger(List<List<LeanHit>> sources) {
+        this.sources = sources;
+        this.heap = new int[sources.size()];
+        this.positions = new int[sources.size()];
+    }
+
+    /**
+     * Returns the first <code>needed</code> hits of the given sorted lists, in sorted order.
+     * The returned list may be one of the argument lists, and should not be modified.
+     */
+    static List<LeanHit> merge(List<List<LeanHit>> sources, int needed) {
+        if (sources.isEmpty()) return Collections.emptyList();
+        if (sources.size() == 1) return sources.get(0);
+        return new LeanHitMerger(sources).merge(needed);
+    }
+
+    private List<LeanHit> merge(int needed) {
+        int available = 0;
+        for (int i = 0; i < sources.size(); i++) {
+            int size = sources.get(i).size();
+            if (size > 0) {
+                heap[heapSize++] = i;
+                available += size;
+            }
+        }
+        for (int i = heapSize / 2 - 1; i >= 0; i--)
+            siftDown(i);
+
+        List<LeanHit> merged = new ArrayList<>(Math.max(0, Math.min(needed, available)));
+        LeanHit last = null;
+        while (heapSize > 0 && merged.size() < needed) {
+            int source = heap[0];
+            LeanHit hit = sources.get(source).get(positions[source]++);
+            if (last == null || last.compareTo(hit) != 0) { // Skip duplicates
+                merged.add(hit);
+                last = hit;
+            }
+            if (positions[source] == sources.get(source).size())
+                heap[0] = heap[--heapSize];
+            siftDown(0);
+        }
+        return merged;
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < heapSize && compare(heap[left], heap[smallest]) < 0)
+                smallest = left;
+            if (right < heapSize && compare(heap[right], heap[smallest]) < 0)
+                smallest = right;
+            if (smallest == index) return;
+
+            int swap = heap[index];
+            heap[index] = heap[smallest];
+            heap[smallest] = swap;
+            index = smallest;
+        }
+    }
+
+    private int compare(int sourceA, int sourceB) {
+        List<LeanHit> a = sources.get(sourceA);
+        List<LeanHit> b = sources.get(sourceB);
+        int result = (a instanceof LeanHitBuffer && b instanceof LeanHitBuffer)
+                     ? LeanHitBuffer.compare((LeanHitBuffer) a, positions[sourceA], (LeanHitBuffer) b, positions[sourceB])
+                     : head(sourceA).compareTo(head(sourceB));
+        return (result != 0) ? result : Integer.compare(sourceA, sourceB);
+    }
+
+    private LeanHit head(int source) {
+        return sources.get(source).get(positions[source]);
+    }
+
+}
@@ -17,7 +17,7 @@ import com.yahoo.prelude.fastsearch.VespaBackEndSearcher;
 import com.yahoo.search.Query;
 import com.yahoo.search.Result;
 import com.yahoo.search.dispatch.InvokerResult;
-import com.yahoo.search.dispatch.LeanHit;
+import com.yahoo.search.dispatch.LeanHitBuffer;
 import com.yahoo.search.grouping.vespa.GroupingExecutor;
 import com.yahoo.search.query.Model;
 import com.yahoo.search.query.QueryTree;
@@ -191,7 +191,8 @@ public class ProtobufSerialization {
     static InvokerResult convertToResult(Query query, SearchProtocol.SearchReply protobuf,
                                                  DocumentDatabase documentDatabase, int partId, int distKey)
     {
-        InvokerResult result = new InvokerResult(query, protobuf.getHitsCount());
+        LeanHitBuffer leanHits = new LeanHitBuffer(partId, distKey, protobuf.getHitsCount());
+        InvokerResult result = new InvokerResult(query, leanHits);
 
         result.getResult().setTotalHitCount(protobuf.getTotalHitCount());
         result.getResult().setCoverage(convertToCoverage(protobuf));
@@ -212,10 +213,7 @@ public class ProtobufSerialization {
         }
 
         for (var replyHit : protobuf.getHitsList()) {
-            LeanHit hit = (replyHit.getSortData().isEmpty())
-                    ? new LeanHit(replyHit.getGlobalId().toByteArray(), partId, distKey, replyHit.getRelevance())
-                    : new LeanHit(replyHit.getGlobalId().toByteArray(), partId, distKey, replyHit.getRelevance(), replyHit.getSortData().toByteArray());
-            result.getLeanHits().add(hit);
+            leanHits.add(replyHit.getGlobalId(), replyHit.getRelevance(), replyHit.getSortData());
         }
 
         var slimeTrace = protobuf.getSlimeTrace();
@@ -232,7 +232,7 @@ public class RpcFillInvoker extends FillInvoker {
         }
 
         private int fill(List<FastHit> hits, String summaryClass, DocumentDatabase documentDb, byte[] slimeBytes) {
-            com.yahoo.slime.Inspector root = BinaryFormat.decode(slimeBytes).get();
+            com.yahoo.slime.Inspector root = BinaryFormat.inspect(slimeBytes);
             com.yahoo.slime.Inspector errors = root.field("errors");
             boolean hasErrors = errors.valid() && (errors.entries() > 0);
             if (hasErrors) {
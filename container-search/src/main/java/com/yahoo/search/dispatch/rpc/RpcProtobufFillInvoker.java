@@ -187,7 +187,7 @@ public class RpcProtobufFillInvoker extends FillInvoker {
     private int fill(Result result, List<FastHit> hits, String summaryClass, byte[] payload) {
         try {
             var protobuf = SearchProtocol.DocsumReply.parseFrom(payload);
-            var root = BinaryFormat.decode(protobuf.getSlimeSummaries().toByteArray()).get();
+            var root = BinaryFormat.inspect(protobuf.getSlimeSummaries().toByteArray());
             var errors = root.field("errors");
             boolean hasErrors = errors.valid() && (errors.entries() > 0);
             if (hasErrors) {
@@ -73,18 +73,6 @@ public class Binding implements Comparable<Binding> {
         this.hashCode = Arrays.hashCode(dimensions) + 11 * Arrays.hashCode(dimensionValues);
     }
 
-    Binding(DimensionalValue.BindingSpec spec, Map<String, String> bindings) {
-        this.generality = 0; // Not used here
-
-        // Map -> arrays to limit memory consumption and speed up evaluation
-        dimensions = spec.dimensions();
-        dimensionValues = new String[spec.dimensions().length];
-        for (int i = 0; i < dimensions.length; i++) {
-            dimensionValues[i] = bindings.get(dimensions[i]);
-        }
-        this.hashCode = Arrays.hashCode(dimensions) + 11 * Arrays.hashCode(dimensionValues);
-    }
-
     /**
      * Returns whether this binding is a proper generalization of the given binding:
      * Meaning it contains a proper subset of the given bindings.
@@ -115,6 +103,12 @@ public class Binding implements Comparable<Binding> {
 
     String[] dimensionValues() { return dimensionValues; }
 
+    /** Returns the value of the given dimension in this, or null if this does not bind it */
+    String valueOf(String dimension) {
+        int index = indexOf(dimension, dimensions);
+        return index < 0 ? null : dimensionValues[index];
+    }
+
     @Override
     public String toString() {
         StringBuilder b = new StringBuilder("Binding[");
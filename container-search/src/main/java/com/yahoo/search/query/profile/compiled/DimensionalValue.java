@@ -9,7 +9,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -22,35 +23,78 @@ import java.util.Set;
  */
 public class DimensionalValue<VALUE> {
 
+    /** The distinct variants of this, in the order they are matched */
     private final Map<Binding, VALUE> indexedVariants;
-    private final List<BindingSpec> bindingSpecs;
+
+    /** The values of the variants of this, in the order they are matched */
+    private final Object[] values;
+
+    /** The dimensions bound by any variant of this */
+    private final String[] dimensions;
+
+    /** A bitset per dimension of the variants not binding that dimension, indexed by variant order */
+    private final long[][] unboundVariants;
+
+    /** Per dimension, a bitset for each value of the variants binding the dimension to that value */
+    private final List<Map<String, long[]>> boundVariants;
 
     private DimensionalValue(List<Value<VALUE>> variants) {
         Collections.sort(variants);
 
-        // If there are inconsistent definitions of the same property, we should pick the first in the sort order
-        this.indexedVariants = new HashMap<>();
+        // Variants are matched one binding spec at a time, in the order each spec first occurs in the sorted variants
+        Map<BindingSpec, List<Value<VALUE>>> variantsBySpec = new LinkedHashMap<>();
         for (Value<VALUE> variant : variants)
-            indexedVariants.putIfAbsent(variant.binding(), variant.value());
+            variantsBySpec.computeIfAbsent(new BindingSpec(variant.binding()), (k) -> new ArrayList<>()).add(variant);
 
-        this.bindingSpecs = new ArrayList<>();
-        for (Value<VALUE> variant : variants) {
-            BindingSpec spec = new BindingSpec(variant.binding());
-            if ( ! bindingSpecs.contains(spec))
-                bindingSpecs.add(spec);
+        // If there are inconsistent definitions of the same property, we should pick the first in the sort order
+        this.indexedVariants = new LinkedHashMap<>();
+        for (List<Value<VALUE>> specVariants : variantsBySpec.values())
+            for (Value<VALUE> variant : specVariants)
+                indexedVariants.putIfAbsent(variant.binding(), variant.value());
+
+        Set<String> dimensions = new LinkedHashSet<>();
+        for (Binding binding : indexedVariants.keySet())
+            dimensions.addAll(Arrays.asList(binding.dimensions()));
+        this.dimensions = dimensions.toArray(new String[0]);
+
+        int words = (indexedVariants.size() + 63) / 64;
+        this.values = new Object[indexedVariants.size()];
+        this.unboundVariants = new long[this.dimensions.length][words];
+        this.boundVariants = new ArrayList<>(this.dimensions.length);
+        for (int d = 0; d < this.dimensions.length; d++)
+            boundVariants.add(new HashMap<>());
+
+        int i = 0;
+        for (Map.Entry<Binding, VALUE> variant : indexedVariants.entrySet()) {
+            values[i] = variant.getValue();
+            for (int d = 0; d < this.dimensions.length; d++) {
+                String value = variant.getKey().valueOf(this.dimensions[d]);
+                long[] variantsMatchingDimension = value == null ? unboundVariants[d]
+                                                                 : boundVariants.get(d).computeIfAbsent(value, (k) -> new long[words]);
+                variantsMatchingDimension[i / 64] |= 1L << (i % 64);
+            }
+            i++;
         }
     }
 
     /** Returns the value matching this context, or null if none */
+    @SuppressWarnings("unchecked")
     public VALUE get(Map<String, String> context) {
+        if (dimensions.length == 0) // there is at most one variant, bound to no dimensions
+            return values.length == 0 ? null : (VALUE)values[0];
         if (context == null)
             context = Collections.emptyMap();
 
-        for (BindingSpec spec : bindingSpecs) {
-            if ( ! spec.matches(context)) continue;
-            VALUE value = indexedVariants.get(new Binding(spec, context));
-            if (value != null)
-                return value;
+        long[][] boundInContext = new long[dimensions.length][];
+        for (int d = 0; d < dimensions.length; d++)
+            boundInContext[d] = boundVariants.get(d).get(context.get(dimensions[d]));
+
+        for (int word = 0; word < unboundVariants[0].length; word++) {
+            long matching = -1;
+            for (int d = 0; d < dimensions.length && matching != 0; d++)
+                matching &= unboundVariants[d][word] | (boundInContext[d] == null ? 0 : boundInContext[d][word]);
+            if (matching != 0)
+                return (VALUE)values[word * 64 + Long.numberOfTrailingZeros(matching)];
         }
         return null;
     }
@@ -273,16 +317,6 @@ public class DimensionalValue<VALUE> {
             this.dimensions = binding.dimensions();
         }
 
-        /** Do not change the returned array */
-        String[] dimensions() { return dimensions; }
-
-        /** Returns whether this context contains all the keys of this */
-        public boolean matches(Map<String, String> context) {
-            for (int i = 0; i < dimensions.length; i++)
-                if ( ! context.containsKey(dimensions[i])) return false;
-            return true;
-        }
-
         @Override
         public int hashCode() {
             return Arrays.hashCode(dimensions);
@@ -9,8 +9,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Preconditions;
 import com.yahoo.container.logging.TraceRenderer;
 import com.yahoo.data.JsonProducer;
+import com.yahoo.data.access.ArrayTraverser;
 import com.yahoo.data.access.Inspectable;
 import com.yahoo.data.access.Inspector;
+import com.yahoo.data.access.ObjectTraverser;
 import com.yahoo.data.access.Type;
 import com.yahoo.data.access.simple.JsonRender;
 import com.yahoo.data.access.simple.Value;
@@ -529,12 +531,14 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
 
         private final JsonGenerator generator;
         private final boolean debugRendering;
+        private final InspectorEncoder inspectorEncoder;
 
         private MutableBoolean hasFieldsField;
 
         public FieldConsumer(JsonGenerator generator, boolean debugRendering) {
             this.generator = generator;
             this.debugRendering = debugRendering;
+            this.inspectorEncoder = new InspectorEncoder(generator);
         }
 
         /**
@@ -623,19 +627,17 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
 
         private void renderInspector(Inspector data) throws IOException {
             Inspector asMap = wrapAsMap(data);
-            if (asMap != null) {
-                StringBuilder intermediate = new StringBuilder();
-                JsonRender.render(asMap, intermediate, true);
-                generator.writeRawValue(intermediate.toString());
-            } else {
-                renderInspectorDirect(data);
-            }
+            renderInspectorDirect(asMap != null ? asMap : data);
         }
 
+        /** Renders the data straight to the generator, with strings passed through as UTF-8 */
         private void renderInspectorDirect(Inspector data) throws IOException {
-            StringBuilder intermediate = new StringBuilder();
-            JsonRender.render(data, intermediate, true);
-            generator.writeRawValue(intermediate.toString());
+            try {
+                inspectorEncoder.encode(data);
+            }
+            catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
         }
 
         protected void renderFieldContents(Object field) throws IOException {
@@ -729,4 +731,85 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
 
     }
 
+    /**
+     * Writes inspectable data to a generator in the same form as {@link JsonRender} in compact mode,
+     * but without going through an intermediate string, and passing strings through as UTF-8.
+     * I/O errors are thrown as {@link UncheckedIOException} since this is invoked from traversers.
+     */
+    private static class InspectorEncoder implements ArrayTraverser, ObjectTraverser {
+
+        private static final char[] hex = "0123456789ABCDEF".toCharArray();
+
+        private final JsonGenerator generator;
+
+        InspectorEncoder(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        void encode(Inspector value) {
+            try {
+                switch (value.type()) {
+                    case EMPTY: generator.writeNull(); break;
+                    case BOOL: generator.writeBoolean(value.asBool()); break;
+                    case LONG: generator.writeNumber(value.asLong()); break;
+                    case DOUBLE: encodeDouble(value.asDouble()); break;
+                    case STRING: encodeString(value.asUtf8()); break;
+                    case DATA: encodeData(value.asData()); break;
+                    case ARRAY:
+                        generator.writeStartArray();
+                        value.traverse((ArrayTraverser)this);
+                        generator.writeEndArray();
+                        break;
+                    case OBJECT:
+                        generator.writeStartObject();
+                        value.traverse((ObjectTraverser)this);
+                        generator.writeEndObject();
+                        break;
+                }
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void entry(int idx, Inspector value) {
+            encode(value);
+        }
+
+        @Override
+        public void field(String name, Inspector value) {
+            try {
+                generator.writeFieldName(name);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            encode(value);
+        }
+
+        private void encodeDouble(double value) throws IOException {
+            if (Double.isFinite(value))
+                generator.writeNumber(value);
+            else
+                generator.writeNull();
+        }
+
+        private void encodeString(byte[] utf8) throws IOException {
+            generator.writeUTF8String(utf8, 0, utf8.length);
+        }
+
+        private void encodeData(byte[] data) throws IOException {
+            char[] chars = new char[2 + data.length * 2];
+            chars[0] = '0';
+            chars[1] = 'x';
+            for (int i = 0; i < data.length; i++) {
+                chars[2 + i * 2] = hex[(data[i] >> 4) & 0xf];
+                chars[3 + i * 2] = hex[data[i] & 0xf];
+            }
+            generator.writeString(chars, 0, chars.length);
+        }
+
+    }
+
 }
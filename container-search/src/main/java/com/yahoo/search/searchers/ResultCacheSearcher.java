@@ -0,0 +1,282 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.searchers;
+
+import com.google.inject.Inject;
+import com.yahoo.jdisc.Metric;
+import com.yahoo.prelude.query.Highlight;
+import com.yahoo.prelude.query.NullItem;
+import com.yahoo.processing.request.CompoundName;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.Searcher;
+import com.yahoo.search.config.ResultCacheConfig;
+import com.yahoo.search.query.Model;
+import com.yahoo.search.query.Presentation;
+import com.yahoo.search.query.QueryTree;
+import com.yahoo.search.query.Ranking;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.result.Hit;
+import com.yahoo.search.searchchain.Execution;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches filled results in memory, such that repeated queries are answered without going to the content nodes.
+ * <p>
+ * Results are keyed on the query tree as encoded for the content nodes, all ranking settings as prepared for the
+ * content nodes, the summary settings, grouping, the result window and the values of any query properties listed
+ * in the config.
+ * A cached result is served until its time to live expires. The total estimated size of the cached results is
+ * bounded, and the least recently used results are evicted when it is exceeded. The cache is held by this component
+ * instance, so it is dropped whenever the container is reconfigured, e.g. because the search cluster changed.
+ * <p>
+ * Queries with <code>noCache</code> or <code>resultcache.skip</code> set bypass the cache, and results with errors
+ * or incomplete coverage are never cached.
+ * <p>
+ * Metrics: This emits the count metrics query_result_cache.hits, query_result_cache.misses and
+ * query_result_cache.evictions, and the gauge query_result_cache.size_bytes.
+ *
+ * @author agent
+ */
+public class ResultCacheSearcher extends Searcher {
+
+    public static final CompoundName skipKey = new CompoundName("resultcache.skip");
+
+    private static final String hitsMetricName = "query_result_cache.hits";
+    private static final String missesMetricName = "query_result_cache.misses";
+    private static final String evictionsMetricName = "query_result_cache.evictions";
+    private static final String sizeMetricName = "query_result_cache.size_bytes";
+
+    private final long maxSizeBytes;
+    private final Duration timeToLive;
+    private final List<CompoundName> keyProperties;
+    private final Metric metric;
+    private final Clock clock;
+
+    /** The cached results in least recently used order. All access must be synchronized on this */
+    private final Map<CacheKey, CacheEntry> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long sizeBytes = 0;
+
+    @Inject
+    public ResultCacheSearcher(ResultCacheConfig config, Metric metric) {
+        this(config, metric, Clock.systemUTC());
+    }
+
+    /** For testing - allows injection of a clock to avoid depending on the system clock */
+    public ResultCacheSearcher(ResultCacheConfig config, Metric metric, Clock clock) {
+        this.maxSizeBytes = config.maxSizeBytes();
+        this.timeToLive = Duration.ofMillis((long)(config.timeToLive() * 1000));
+        this.keyProperties = new ArrayList<>();
+        for (String property : config.keyProperties())
+            keyProperties.add(new CompoundName(property));
+        this.metric = metric;
+        this.clock = clock;
+    }
+
+    @Override
+    public Result search(Query query, Execution execution) {
+        if (query.getNoCache() || query.properties().getBoolean(skipKey, false))
+            return execution.search(query);
+
+        CacheKey key = new CacheKey(query, keyProperties);
+        Result cached = lookup(key);
+        if (cached != null) {
+            metric.add(hitsMetricName, 1, null);
+            query.trace("Result served from the result cache", false, 3);
+            return cached;
+        }
+        metric.add(missesMetricName, 1, null);
+
+        Result result = execution.search(query);
+        if (isCacheable(result)) {
+            execution.fill(result, query.getPresentation().getSummary());
+            if (isCacheable(result))
+                store(key, result.clone());
+        }
+        return result;
+    }
+
+    private synchronized Result lookup(CacheKey key) {
+        CacheEntry entry = cache.get(key);
+        if (entry == null) return null;
+        if (clock.instant().isAfter(entry.expiry)) {
+            remove(key);
+            return null;
+        }
+        Result result = entry.result.clone();
+        result.setQuery(key.query);
+        for (Iterator<Hit> i = result.hits().unorderedDeepIterator(); i.hasNext(); )
+            i.next().setCached(true);
+        result.analyzeHits();
+        return result;
+    }
+
+    private synchronized void store(CacheKey key, Result result) {
+        CacheEntry entry = new CacheEntry(result, estimateSize(result), clock.instant().plus(timeToLive));
+        if (entry.sizeBytes > maxSizeBytes) return;
+
+        CacheEntry previous = cache.put(key, entry);
+        if (previous != null)
+            sizeBytes -= previous.sizeBytes;
+        sizeBytes += entry.sizeBytes;
+
+        int evictions = 0;
+        for (Iterator<CacheEntry> i = cache.values().iterator(); sizeBytes > maxSizeBytes && i.hasNext(); ) {
+            sizeBytes -= i.next().sizeBytes;
+            i.remove();
+            evictions++;
+        }
+        if (evictions > 0)
+            metric.add(evictionsMetricName, evictions, null);
+        metric.set(sizeMetricName, sizeBytes, null);
+    }
+
+    private void remove(CacheKey key) {
+        CacheEntry removed = cache.remove(key);
+        if (removed != null)
+            sizeBytes -= removed.sizeBytes;
+        metric.set(sizeMetricName, sizeBytes, null);
+    }
+
+    /** Returns the total estimated size of the results currently cached */
+    public synchronized long sizeBytes() { return sizeBytes; }
+
+    private static boolean isCacheable(Result result) {
+        if (result.hits().getError() != null) return false;
+        Coverage coverage = result.getCoverage(false);
+        return coverage == null || coverage.getFull();
+    }
+
+    /** Returns a rough estimate of the heap size of the given result */
+    private static long estimateSize(Result result) {
+        long size = 256;
+        for (Iterator<Hit> i = result.hits().unorderedDeepIterator(); i.hasNext(); ) {
+            Hit hit = i.next();
+            size += 128;
+            for (Map.Entry<String, Object> field : hit.fields().entrySet()) {
+                size += 32 + 2L * field.getKey().length();
+                Object value = field.getValue();
+                if (value != null)
+                    size += 2L * value.toString().length();
+            }
+        }
+        return size;
+    }
+
+    private static class CacheEntry {
+
+        final Result result;
+        final long sizeBytes;
+        final Instant expiry;
+
+        CacheEntry(Result result, long sizeBytes, Instant expiry) {
+            this.result = result;
+            this.sizeBytes = sizeBytes;
+            this.expiry = expiry;
+        }
+
+    }
+
+    /**
+     * The state of a query which determines its result: The query tree as encoded for the content nodes, the ranking
+     * settings as prepared for them, the summary settings, grouping, the result window and the values of the
+     * configured key properties. This also holds the query it was created from, which is not compared.
+     */
+    private static class CacheKey {
+
+        final Query query;
+        private final List<Object> state;
+        private final int hashCode;
+
+        CacheKey(Query query, List<CompoundName> keyProperties) {
+            this.query = query;
+            this.state = stateOf(query, keyProperties);
+            this.hashCode = state.hashCode();
+        }
+
+        private static List<Object> stateOf(Query query, List<CompoundName> keyProperties) {
+            List<Object> state = new ArrayList<>();
+            state.add(query.getOffset());
+            state.add(query.getHits());
+            state.add(query.properties().getBoolean(Model.ESTIMATE));
+            state.add(query.getGroupingSessionCache());
+
+            Model model = query.getModel();
+            state.add(encode(model.getQueryTree()));
+            state.add(model.getDocumentDb());
+            state.add(new HashSet<>(model.getSources()));
+            state.add(new HashSet<>(model.getRestrict()));
+            state.add(model.getSearchPath());
+
+            // Preparing adds the match phase, matching, soft timeout, rerank count and freshness settings,
+            // and the query features, to the rank properties sent to the content nodes
+            Ranking ranking = (Ranking) query.getRanking().clone();
+            ranking.prepare();
+            state.add(ranking.getProfile());
+            state.add(String.valueOf(ranking.getSorting()));
+            state.add(ranking.getLocation() == null ? null : ranking.getLocation().backendString());
+            state.add(ranking.getQueryCache());
+            state.add(ranking.getListFeatures());
+            state.add(ranking.getFeatures().asMap());
+            state.add(ranking.getProperties().asMap());
+
+            Presentation presentation = query.getPresentation();
+            state.add(presentation.getSummary());
+            state.add(new HashSet<>(presentation.getSummaryFields()));
+            state.add(presentation.getBolding());
+            state.add(highlightTermsOf(presentation));
+
+            state.add(query.getSelect().getGrouping().toString());
+            for (CompoundName property : keyProperties)
+                state.add(query.properties().get(property));
+            return state;
+        }
+
+        /** Returns the query tree as encoded for the content nodes, which covers everything about it affecting matching */
+        private static ByteBuffer encode(QueryTree queryTree) {
+            if (queryTree.getRoot() == null || queryTree.getRoot() instanceof NullItem) return ByteBuffer.allocate(0);
+            int size = 1024;
+            while (true) {
+                try {
+                    ByteBuffer buffer = ByteBuffer.allocate(size);
+                    queryTree.encode(buffer);
+                    buffer.flip();
+                    return buffer;
+                }
+                catch (BufferOverflowException e) {
+                    size *= 2;
+                }
+            }
+        }
+
+        private static Map<String, List<String>> highlightTermsOf(Presentation presentation) {
+            if (presentation.getHighlight() == null) return Map.of();
+            Highlight highlight = presentation.getHighlight().clone();
+            highlight.prepare();
+            return highlight.getHighlightTerms();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if ( ! (o instanceof CacheKey)) return false;
+            CacheKey other = (CacheKey) o;
+            return hashCode == other.hashCode && state.equals(other.state);
+        }
+
+        @Override
+        public int hashCode() { return hashCode; }
+
+    }
+
+}
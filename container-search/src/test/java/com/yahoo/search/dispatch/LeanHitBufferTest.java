@@ -0,0 +1,79 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.google.protobuf.ByteString;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent
+ */
+public class LeanHitBufferTest {
+
+    private static final double DELTA = 0.0;
+
+    @Test
+    public void requireThatHitsAreStoredAndMaterialized() {
+        LeanHitBuffer buffer = new LeanHitBuffer(3, 7, 1);
+        buffer.add(bytes("gid-a"), 2.0, ByteString.EMPTY);
+        buffer.add(bytes("gid-b"), Double.NaN, bytes("sort"));
+        buffer.add(bytes("gid-c"), 1.0, ByteString.EMPTY);
+        assertEquals(3, buffer.size());
+
+        LeanHit first = buffer.get(0);
+        assertArrayEquals("gid-a".getBytes(), first.getGid());
+        assertEquals(2.0, first.getRelevance(), DELTA);
+        assertEquals(3, first.getPartId());
+        assertEquals(7, first.getDistributionKey());
+        assertFalse(first.hasSortData());
+        assertNull(first.getSortData());
+
+        LeanHit second = buffer.get(1);
+        assertEquals(Double.NEGATIVE_INFINITY, second.getRelevance(), DELTA);
+        assertArrayEquals("sort".getBytes(), second.getSortData());
+
+        buffer.clear();
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void requireThatColumnarComparisonMatchesLeanHitOrdering() {
+        LeanHitBuffer a = new LeanHitBuffer(0, 0, 4);
+        a.add(bytes("a"), 1.0, ByteString.EMPTY);
+        a.add(bytes("b"), 1.0, ByteString.EMPTY);
+        a.add(bytes("a"), 0.5, ByteString.EMPTY);
+        a.add(bytes("ab"), 1.0, ByteString.EMPTY);
+        verifyConsistentOrdering(a, a);
+
+        LeanHitBuffer sorted = new LeanHitBuffer(0, 0, 4);
+        sorted.add(bytes("a"), 0.0, ByteString.copyFrom(new byte[] { 1 }));
+        sorted.add(bytes("a"), 0.0, ByteString.copyFrom(new byte[] { (byte)0xff }));
+        sorted.add(bytes("b"), 0.0, ByteString.copyFrom(new byte[] { 1 }));
+        sorted.add(bytes("a"), 0.0, ByteString.copyFrom(new byte[] { 1, 0 }));
+        verifyConsistentOrdering(sorted, sorted);
+    }
+
+    private static void verifyConsistentOrdering(LeanHitBuffer a, LeanHitBuffer b) {
+        List<LeanHit> left = a;
+        List<LeanHit> right = b;
+        for (int i = 0; i < a.size(); i++) {
+            for (int j = 0; j < b.size(); j++) {
+                assertEquals("Comparing " + i + " and " + j,
+                             Integer.signum(left.get(i).compareTo(right.get(j))),
+                             Integer.signum(LeanHitBuffer.compare(a, i, b, j)));
+            }
+        }
+    }
+
+    private static ByteString bytes(String s) {
+        return ByteString.copyFromUtf8(s);
+    }
+
+}
@@ -0,0 +1,61 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent
+ */
+public class LeanHitMergerTest {
+
+    @Test
+    public void requireThatMergedHitsAreSortedAndLimited() {
+        List<List<LeanHit>> sources = List.of(hits(0, 9.0, 5.0, 1.0),
+                                              hits(1, 8.0, 7.0, 6.0),
+                                              hits(2, 10.0, 2.0));
+        List<LeanHit> merged = LeanHitMerger.merge(sources, 5);
+        assertEquals(5, merged.size());
+        assertRelevances(merged, 10.0, 9.0, 8.0, 7.0, 6.0);
+
+        assertRelevances(LeanHitMerger.merge(sources, 100), 10.0, 9.0, 8.0, 7.0, 6.0, 5.0, 2.0, 1.0);
+        assertTrue(LeanHitMerger.merge(sources, 0).isEmpty());
+    }
+
+    @Test
+    public void requireThatDuplicatesAreRemoved() {
+        List<List<LeanHit>> sources = List.of(hits(0, 9.0, 5.0), hits(0, 9.0, 6.0), hits(0, 5.0));
+        assertRelevances(LeanHitMerger.merge(sources, 10), 9.0, 6.0, 5.0);
+    }
+
+    @Test
+    public void requireThatSingleAndEmptySourcesAreHandled() {
+        List<LeanHit> only = hits(0, 3.0, 2.0);
+        assertSame(only, LeanHitMerger.merge(List.of(only), 10));
+        assertTrue(LeanHitMerger.merge(Collections.emptyList(), 10).isEmpty());
+        assertRelevances(LeanHitMerger.merge(List.of(Collections.emptyList(), only, Collections.emptyList()), 10), 3.0, 2.0);
+    }
+
+    private static List<LeanHit> hits(int distributionKey, double ... relevances) {
+        List<LeanHit> hits = new ArrayList<>();
+        for (double relevance : relevances)
+            hits.add(new LeanHit(new byte[] { (byte)relevance }, 0, distributionKey, relevance));
+        return hits;
+    }
+
+    private static void assertRelevances(List<LeanHit> hits, Double ... expected) {
+        List<Double> relevances = new ArrayList<>();
+        for (LeanHit hit : hits)
+            relevances.add(hit.getRelevance());
+        assertEquals(Arrays.asList(expected), relevances);
+    }
+
+}
@@ -0,0 +1,66 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.query.profile.compiled;
+
+import com.yahoo.processing.request.CompoundName;
+import com.yahoo.search.query.profile.DimensionBinding;
+import com.yahoo.search.query.profile.DimensionValues;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * @author agent
+ */
+public class DimensionalValueTestCase {
+
+    private static final List<String> dimensions = List.of("x", "y", "z");
+    private static final CompoundName key = new CompoundName("key");
+
+    @Test
+    public void testMostSpecificMatchingVariantIsChosen() {
+        DimensionalMap.Builder<String> builder = new DimensionalMap.Builder<>();
+        put(builder, "default");
+        put(builder, "x1", "x1");
+        put(builder, "x1,y1", "x1", "y1");
+        put(builder, "y1", null, "y1");
+        put(builder, "x1,z1", "x1", null, "z1");
+        DimensionalMap<String> map = builder.build();
+
+        assertEquals("default", map.get(key, null));
+        assertEquals("default", map.get(key, Map.of()));
+        assertEquals("default", map.get(key, Map.of("x", "x2", "y", "y2")));
+        assertEquals("x1", map.get(key, Map.of("x", "x1")));
+        assertEquals("x1", map.get(key, Map.of("x", "x1", "y", "y2", "z", "z2")));
+        assertEquals("x1,y1", map.get(key, Map.of("x", "x1", "y", "y1")));
+        assertEquals("x1,y1", map.get(key, Map.of("x", "x1", "y", "y1", "z", "z1")));
+        assertEquals("x1,z1", map.get(key, Map.of("x", "x1", "z", "z1")));
+        assertEquals("y1", map.get(key, Map.of("x", "x2", "y", "y1")));
+        assertEquals("y1", map.get(key, Map.of("y", "y1", "unknown", "x1")));
+        assertNull(map.get(new CompoundName("other"), Map.of("x", "x1")));
+    }
+
+    @Test
+    public void testManyVariants() {
+        DimensionalMap.Builder<String> builder = new DimensionalMap.Builder<>();
+        for (int i = 0; i < 200; i++)
+            put(builder, "x" + i + ",y" + i % 3, "x" + i, "y" + i % 3);
+        for (int i = 0; i < 100; i++)
+            put(builder, "z" + i, null, null, "z" + i);
+        DimensionalMap<String> map = builder.build();
+
+        assertEquals("x150,y0", map.get(key, Map.of("x", "x150", "y", "y0", "z", "z3")));
+        assertEquals("x199,y1", map.get(key, Map.of("x", "x199", "y", "y1")));
+        assertEquals("z99", map.get(key, Map.of("x", "x199", "y", "y0", "z", "z99")));
+        assertNull(map.get(key, Map.of("x", "x199", "y", "y0")));
+        assertNull(map.get(key, Map.of("z", "z100")));
+    }
+
+    private void put(DimensionalMap.Builder<String> builder, String value, String ... dimensionValues) {
+        builder.put(key, DimensionBinding.createFrom(dimensions, DimensionValues.createFrom(dimensionValues)), value);
+    }
+
+}
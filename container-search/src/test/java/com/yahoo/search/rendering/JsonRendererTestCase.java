@@ -49,6 +49,7 @@ import com.yahoo.search.statistics.ElapsedTimeTestCase;
 import com.yahoo.search.statistics.ElapsedTimeTestCase.CreativeTimeSource;
 import com.yahoo.search.statistics.ElapsedTimeTestCase.UselessSearcher;
 import com.yahoo.search.statistics.TimeTracker;
+import com.yahoo.slime.BinaryFormat;
 import com.yahoo.slime.Cursor;
 import com.yahoo.slime.Slime;
 import com.yahoo.tensor.Tensor;
@@ -1021,6 +1022,70 @@ public class JsonRendererTestCase {
         assertEqualJson(expected, summary);
     }
 
+    @Test
+    public void testStructuredDataOfAllTypes() throws IOException, InterruptedException, ExecutionException {
+        String expected = "{"
+                + "    \"root\": {"
+                + "        \"children\": ["
+                + "            {"
+                + "                \"fields\": {"
+                + "                    \"struct\": {"
+                + "                        \"nix\": null,"
+                + "                        \"bool\": true,"
+                + "                        \"long\": -7,"
+                + "                        \"double\": 2.5,"
+                + "                        \"nan\": null,"
+                + "                        \"string\": \"bl\u00e5 \\\"quoted\\\"\","
+                + "                        \"data\": \"0x0AFF\","
+                + "                        \"array\": [ 1, [], {} ]"
+                + "                    },"
+                + "                    \"map\": {"
+                + "                        \"k1\": \"v1\","
+                + "                        \"k2\": { \"inner\": \"v2\" }"
+                + "                    }"
+                + "                },"
+                + "                \"id\": \"structured\","
+                + "                \"relevance\": 1.0"
+                + "            }"
+                + "        ],"
+                + "        \"fields\": {"
+                + "            \"totalCount\": 0"
+                + "        },"
+                + "        \"id\": \"toplevel\","
+                + "        \"relevance\": 1.0"
+                + "    }"
+                + "}";
+        Slime slime = new Slime();
+        Cursor struct = slime.setObject();
+        struct.setNix("nix");
+        struct.setBool("bool", true);
+        struct.setLong("long", -7);
+        struct.setDouble("double", 2.5);
+        struct.setDouble("nan", Double.NaN);
+        struct.setString("string", "bl\u00e5 \"quoted\"");
+        struct.setData("data", new byte[] { 10, -1 });
+        Cursor array = struct.setArray("array");
+        array.addLong(1);
+        array.addArray();
+        array.addObject();
+
+        Slime mapSlime = new Slime();
+        Cursor map = mapSlime.setArray();
+        Cursor entry1 = map.addObject();
+        entry1.setString("key", "k1");
+        entry1.setString("value", "v1");
+        Cursor entry2 = map.addObject();
+        entry2.setString("key", "k2");
+        entry2.setObject("value").setString("inner", "v2");
+
+        Result r = newEmptyResult();
+        Hit h = new Hit("structured");
+        h.setField("struct", new StructuredData(new SlimeAdapter(slime.get())));
+        h.setField("map", new StructuredData(new SlimeAdapter(BinaryFormat.inspect(BinaryFormat.encode(mapSlime)))));
+        r.hits().add(h);
+        assertEqualJson(expected, render(r));
+    }
+
     @Test
     public void testFieldValueInHit() throws IOException, InterruptedException, ExecutionException {
         String expected = "{"
@@ -0,0 +1,177 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.searchers.test;
+
+import com.yahoo.component.chain.Chain;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.Searcher;
+import com.yahoo.search.config.ResultCacheConfig;
+import com.yahoo.search.result.ErrorMessage;
+import com.yahoo.search.result.Hit;
+import com.yahoo.search.searchchain.Execution;
+import com.yahoo.search.searchers.ResultCacheSearcher;
+import com.yahoo.test.ManualClock;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for ResultCacheSearcher
+ *
+ * @author agent
+ */
+public class ResultCacheSearcherTestCase {
+
+    private final ManualClock clock = new ManualClock();
+    private final MockMetric metric = new MockMetric();
+    private final CountingBackend backend = new CountingBackend();
+
+    @Test
+    public void testRepeatedQueriesAreServedFromCache() {
+        Chain<Searcher> chain = chain(new ResultCacheConfig.Builder());
+
+        Result first = search(chain, "?query=foo");
+        Result second = search(chain, "?query=foo");
+        assertEquals(1, backend.searches);
+        assertEquals(first.hits().size(), second.hits().size());
+        assertEquals("foo-0", second.hits().get(0).getId().toString());
+        assertTrue(second.hits().get(0).isCached());
+        assertFalse(first.hits().get(0).isCached());
+
+        search(chain, "?query=bar");
+        search(chain, "?query=foo&hits=5");
+        search(chain, "?query=foo&ranking=other");
+        assertEquals(4, backend.searches);
+
+        assertEquals(1.0, metric.values(null).get("query_result_cache.hits").doubleValue(), 0.0);
+        assertEquals(4.0, metric.values(null).get("query_result_cache.misses").doubleValue(), 0.0);
+    }
+
+    @Test
+    public void testQueriesDifferingOnlyInMatchPhaseAreNotServedEachOthersResults() {
+        Chain<Searcher> chain = chain(new ResultCacheConfig.Builder());
+        search(chain, "?query=foo");
+        search(chain, "?query=foo&ranking.matchPhase.attribute=popularity&ranking.matchPhase.maxHits=100");
+        search(chain, "?query=foo&ranking.matchPhase.attribute=popularity&ranking.matchPhase.maxHits=1000");
+        assertEquals(3, backend.searches);
+        search(chain, "?query=foo&ranking.matchPhase.attribute=popularity&ranking.matchPhase.maxHits=100");
+        assertEquals(3, backend.searches);
+    }
+
+    @Test
+    public void testQueriesDifferingOnlyInSummaryFieldsAreNotServedEachOthersResults() {
+        Chain<Searcher> chain = chain(new ResultCacheConfig.Builder());
+        search(chain, "?query=foo");
+        search(chain, "?query=foo&presentation.summaryFields=title");
+        search(chain, "?query=foo&presentation.summaryFields=title,body");
+        assertEquals(3, backend.searches);
+        search(chain, "?query=foo&presentation.summaryFields=title");
+        assertEquals(3, backend.searches);
+    }
+
+    @Test
+    public void testQueriesDifferingOnlyInOtherRankSettingsAreNotServedEachOthersResults() {
+        Chain<Searcher> chain = chain(new ResultCacheConfig.Builder());
+        search(chain, "?query=foo");
+        search(chain, "?query=foo&ranking.listFeatures=true");
+        search(chain, "?query=foo&ranking.rerankCount=50");
+        search(chain, "?query=foo&ranking.softtimeout.enable=false");
+        search(chain, "?query=foo&ranking.matching.termwiselimit=0.5");
+        search(chain, "?query=foo&ranking.features.query(weight)=2");
+        assertEquals(6, backend.searches);
+    }
+
+    @Test
+    public void testExpiry() {
+        Chain<Searcher> chain = chain(new ResultCacheConfig.Builder().timeToLive(10));
+        search(chain, "?query=foo");
+        clock.advance(Duration.ofSeconds(5));
+        search(chain, "?query=foo");
+        assertEquals(1, backend.searches);
+        clock.advance(Duration.ofSeconds(6));
+        search(chain, "?query=foo");
+        assertEquals(2, backend.searches);
+    }
+
+    @Test
+    public void testSizeBoundEvictsLeastRecentlyUsed() {
+        ResultCacheSearcher cacheSearcher = new ResultCacheSearcher(new ResultCacheConfig(new ResultCacheConfig.Builder()), metric, clock);
+        Chain<Searcher> chain = new Chain<>(cacheSearcher, backend);
+        search(chain, "?query=foo");
+        long sizeOfOne = cacheSearcher.sizeBytes();
+        assertTrue(sizeOfOne > 0);
+
+        cacheSearcher = new ResultCacheSearcher(new ResultCacheConfig(new ResultCacheConfig.Builder().maxSizeBytes(2 * sizeOfOne + 1)), metric, clock);
+        chain = new Chain<>(cacheSearcher, backend);
+        backend.searches = 0;
+        search(chain, "?query=aaa");
+        search(chain, "?query=bbb");
+        search(chain, "?query=aaa"); // bbb is now least recently used
+        search(chain, "?query=ccc");
+        assertEquals(3, backend.searches);
+        assertEquals(1.0, metric.values(null).get("query_result_cache.evictions").doubleValue(), 0.0);
+
+        search(chain, "?query=aaa");
+        assertEquals(3, backend.searches);
+        search(chain, "?query=bbb");
+        assertEquals(4, backend.searches);
+    }
+
+    @Test
+    public void testNoCachingOfErrorsOrWhenDisabled() {
+        Chain<Searcher> chain = chain(new ResultCacheConfig.Builder());
+        search(chain, "?query=error");
+        search(chain, "?query=error");
+        assertEquals(2, backend.searches);
+
+        search(chain, "?query=foo&noCache=true");
+        search(chain, "?query=foo&noCache=true");
+        search(chain, "?query=foo&resultcache.skip=true");
+        assertEquals(5, backend.searches);
+    }
+
+    @Test
+    public void testKeyProperties() {
+        Chain<Searcher> chain = chain(new ResultCacheConfig.Builder().keyProperties("myproperty"));
+        search(chain, "?query=foo&myproperty=1");
+        search(chain, "?query=foo&myproperty=1&other=1");
+        search(chain, "?query=foo&myproperty=2");
+        assertEquals(2, backend.searches);
+    }
+
+    private Chain<Searcher> chain(ResultCacheConfig.Builder config) {
+        return new Chain<>(new ResultCacheSearcher(new ResultCacheConfig(config), metric, clock), backend);
+    }
+
+    private Result search(Chain<Searcher> chain, String request) {
+        return new Execution(chain, Execution.Context.createContextStub()).search(new Query(request));
+    }
+
+    private static class CountingBackend extends Searcher {
+
+        int searches = 0;
+
+        @Override
+        public Result search(Query query, Execution execution) {
+            searches++;
+            String queryString = query.getModel().getQueryString();
+            if (queryString.equals("error"))
+                return new Result(query, ErrorMessage.createBackendCommunicationError("error"));
+
+            Result result = new Result(query);
+            for (int i = 0; i < 3; i++) {
+                Hit hit = new Hit(queryString + "-" + i, 1.0 / (i + 1));
+                hit.setField("title", "Title of " + queryString + " " + i);
+                result.hits().add(hit);
+            }
+            result.setTotalHitCount(3);
+            return result;
+        }
+
+    }
+
+}
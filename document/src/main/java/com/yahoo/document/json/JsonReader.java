@@ -16,6 +16,7 @@ import com.yahoo.document.json.readers.VespaJsonDocumentReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static com.yahoo.document.json.JsonReader.ReaderState.END_OF_FEED;
 import static com.yahoo.document.json.readers.JsonParserHelpers.expectArrayStart;
@@ -62,20 +63,17 @@ public class JsonReader {
      */
     public DocumentOperation readSingleDocument(DocumentOperationType operationType, String docIdString) {
         DocumentId docId = new DocumentId(docIdString);
+        FieldsReader fieldsReader = new FieldsReader(operationType);
         DocumentParseInfo documentParseInfo;
         try {
-            DocumentParser documentParser = new DocumentParser(parser);
+            DocumentParser documentParser = new DocumentParser(parser, fieldsReader);
             documentParseInfo = documentParser.parse(Optional.of(docId)).get();
         } catch (IOException e) {
             state = END_OF_FEED;
             throw new IllegalArgumentException(e);
         }
         documentParseInfo.operationType = operationType;
-        VespaJsonDocumentReader vespaJsonDocumentReader = new VespaJsonDocumentReader();
-        DocumentOperation operation = vespaJsonDocumentReader.createDocumentOperation(
-                getDocumentTypeFromString(documentParseInfo.documentId.getDocType(), typeManager), documentParseInfo);
-        operation.setCondition(TestAndSetCondition.fromConditionString(documentParseInfo.condition));
-        return operation;
+        return createDocumentOperation(documentParseInfo, fieldsReader);
     }
 
     /** Returns the next document operation, or null if we have reached the end */
@@ -91,9 +89,10 @@ public class JsonReader {
             case READING:
                 break;
         }
+        FieldsReader fieldsReader = new FieldsReader(null);
         Optional<DocumentParseInfo> documentParseInfo;
         try {
-            documentParseInfo = parseDocument();
+            documentParseInfo = new DocumentParser(parser, fieldsReader).parse(Optional.empty());
         } catch (IOException r) {
             // Jackson is not able to recover from structural parse errors
             state = END_OF_FEED;
@@ -103,15 +102,22 @@ public class JsonReader {
             state = END_OF_FEED;
             return null;
         }
+        return createDocumentOperation(documentParseInfo.get(), fieldsReader);
+    }
+
+    private DocumentOperation createDocumentOperation(DocumentParseInfo documentParseInfo, FieldsReader fieldsReader) {
         VespaJsonDocumentReader vespaJsonDocumentReader = new VespaJsonDocumentReader();
-        DocumentOperation operation = vespaJsonDocumentReader.createDocumentOperation(
-                getDocumentTypeFromString(documentParseInfo.get().documentId.getDocType(), typeManager),
-                documentParseInfo.get());
-        operation.setCondition(TestAndSetCondition.fromConditionString(documentParseInfo.get().condition));
+        DocumentOperation operation = fieldsReader.operation();
+        if (operation != null) // created while parsing, but the create flag may come after the fields
+            vespaJsonDocumentReader.applyCreateFlag(operation, documentParseInfo);
+        else
+            operation = vespaJsonDocumentReader.createDocumentOperation(
+                    getDocumentTypeFromString(documentParseInfo.documentId.getDocType(), typeManager),
+                    documentParseInfo);
+        operation.setCondition(TestAndSetCondition.fromConditionString(documentParseInfo.condition));
         return operation;
     }
 
-
     public DocumentType readDocumentType(DocumentId docId) {
         return getDocumentTypeFromString(docId.getDocType(), typeManager);
     }
@@ -123,6 +129,48 @@ public class JsonReader {
         return docType;
     }
 
+    /**
+     * Creates the document operation when the "fields" of it are reached during parsing, if the document id
+     * is known by then. This reads the fields directly from the parser instead of buffering them first.
+     */
+    private class FieldsReader implements Consumer<DocumentParseInfo> {
+
+        /** The operation type, if set externally, or null if it is given in the operation */
+        private final DocumentOperationType operationType;
+
+        private DocumentOperation operation = null;
+        private RuntimeException failure = null;
+
+        FieldsReader(DocumentOperationType operationType) {
+            this.operationType = operationType;
+        }
+
+        @Override
+        public void accept(DocumentParseInfo documentParseInfo) {
+            if (operationType != null)
+                documentParseInfo.operationType = operationType;
+            try {
+                if (operation != null || failure != null)
+                    throw new IllegalArgumentException("Multiple 'fields' objects in operation on " +
+                                                       documentParseInfo.documentId);
+                operation = new VespaJsonDocumentReader().createDocumentOperation(
+                        readDocumentType(documentParseInfo.documentId), documentParseInfo);
+            }
+            catch (RuntimeException e) {
+                // Thrown when parsing of the operation is complete, so the parser is positioned at the next one
+                operation = null;
+                failure = e;
+            }
+        }
+
+        /** Returns the operation created during parsing, or null if none */
+        DocumentOperation operation() {
+            if (failure != null) throw failure;
+            return operation;
+        }
+
+    }
+
     public JsonToken nextToken(JsonParser parser) {
         try {
             return parser.nextValue();
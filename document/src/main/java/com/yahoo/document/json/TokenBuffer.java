@@ -5,6 +5,7 @@ import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.Iterator;
+import java.util.function.DoubleConsumer;
 
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
@@ -12,6 +13,8 @@ import com.google.common.base.Preconditions;
 
 /**
  * Helper class to enable lookahead in the token stream.
+ * This either holds all the tokens of a JSON struct, or reads them lazily from a parser,
+ * holding only the tokens needed for lookahead.
  *
  * @author Steinar Knutsen
  */
@@ -32,10 +35,32 @@ public class TokenBuffer {
     private Deque<Token> buffer;
     private int nesting = 0;
 
+    /** The parser to read more tokens from, or null if all tokens are in the buffer */
+    private JsonParser source = null;
+
+    /** The nesting of the last token read from the source, relative to the struct read */
+    private int sourceNesting = 0;
+
     public TokenBuffer() {
         this(new ArrayDeque<>());
     }
 
+    /**
+     * Creates a buffer which reads the object or array which is the current token of the given parser
+     * lazily, as this is advanced. When this has been advanced past the end of the struct, the current token
+     * of the parser is the end of it.
+     */
+    public TokenBuffer(JsonParser source) {
+        this(new ArrayDeque<>());
+        JsonToken first = source.currentToken();
+        Preconditions.checkArgument(first == JsonToken.START_OBJECT || first == JsonToken.START_ARRAY,
+                                    "Expected start of a JSON struct, got %s.", first);
+        addFromParser(first, source);
+        updateNesting(first);
+        this.source = source;
+        this.sourceNesting = 1;
+    }
+
     private TokenBuffer(Deque<Token> buffer) {
         this.buffer = buffer;
         if (buffer.size() > 0) {
@@ -48,6 +73,8 @@ public class TokenBuffer {
 
     public JsonToken next() {
         buffer.removeFirst();
+        if (buffer.isEmpty() && source != null)
+            readFromSource();
         Token t = buffer.peekFirst();
         if (t == null) {
             return null;
@@ -77,10 +104,69 @@ public class TokenBuffer {
         return token.text;
     }
 
+    /** Returns the number of tokens currently held by this, which includes the current one */
     public int size() {
         return buffer.size();
     }
 
+    /** Discards the remaining tokens of this, reading any which are not yet read from the parser without buffering them */
+    public void skipToEnd() {
+        buffer.clear();
+        while (source != null) {
+            readFromSource();
+            buffer.clear();
+        }
+    }
+
+    /**
+     * Reads the values of the array which is the current token as doubles, and makes the end of the array
+     * the current token. Values which are read lazily are passed to the consumer directly from the parser,
+     * without being buffered as text first.
+     *
+     * @throws IllegalArgumentException if any array element is not a number
+     */
+    public void readDoubles(DoubleConsumer consumer) {
+        Preconditions.checkArgument(currentToken() == JsonToken.START_ARRAY,
+                                    "Expected start of array, got %s.", currentToken());
+        if (source != null && buffer.size() == 1) { // all the values are still in the parser
+            try {
+                for (JsonToken t = nextValue(source); t != JsonToken.END_ARRAY; t = nextValue(source)) {
+                    if (t == JsonToken.VALUE_NUMBER_INT || t == JsonToken.VALUE_NUMBER_FLOAT) {
+                        consumer.accept(source.getDoubleValue());
+                    }
+                    else if (t.isStructStart()) {
+                        source.skipChildren(); // keep the source positioned within the array, so the rest can be skipped
+                        throw new IllegalArgumentException("Expected a number but got " +
+                                                           (t == JsonToken.START_ARRAY ? "an array" : "an object"));
+                    }
+                    else {
+                        consumer.accept(parseDouble(source.getText()));
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalArgumentException(e);
+            }
+            buffer.removeFirst();
+            addFromParser(JsonToken.END_ARRAY, source);
+            updateNesting(JsonToken.END_ARRAY);
+            if (--sourceNesting == 0)
+                source = null;
+        }
+        else {
+            for (next(); currentToken() != JsonToken.END_ARRAY; next())
+                consumer.accept(parseDouble(currentText()));
+        }
+    }
+
+    private static double parseDouble(String text) {
+        try {
+            return Double.parseDouble(text);
+        }
+        catch (NullPointerException | NumberFormatException e) {
+            throw new IllegalArgumentException("Expected a number but got '" + text + "'");
+        }
+    }
+
     private void add(JsonToken token, String name, String text) {
         buffer.addLast(new Token(token, name, text));
     }
@@ -133,6 +219,34 @@ public class TokenBuffer {
         }
     }
 
+    private void readFromSource() {
+        JsonToken t = nextValue(source);
+        if (t == null)
+            throw new IllegalArgumentException("Unexpected end of input");
+        addFromParser(t, source);
+        sourceNesting += nestingOffset(t);
+        if (sourceNesting == 0)
+            source = null;
+    }
+
+    /** Reads tokens from the source, if any, until the rest of the struct containing the current token is buffered */
+    private void bufferRestOfStruct() {
+        if (source == null) return;
+        int barrier = nesting() - Math.max(0, nestingOffset(currentToken()));
+        int localNesting = nesting();
+        Iterator<Token> i = buffer.iterator();
+        i.next(); // the nesting effect of the current token is already included
+        while (i.hasNext()) {
+            localNesting += nestingOffset(i.next().token);
+            if (localNesting < barrier) return;
+        }
+        while (source != null) {
+            readFromSource();
+            localNesting += nestingOffset(buffer.peekLast().token);
+            if (localNesting < barrier) return;
+        }
+    }
+
     private JsonToken nextValue(JsonParser tokens) {
         try {
             return tokens.nextValue();
@@ -168,6 +282,7 @@ public class TokenBuffer {
     }
 
     public TokenBuffer prefetchCurrentElement() {
+        bufferRestOfStruct();
         Deque<Token> copy = new ArrayDeque<>();
 
         if (currentToken().isScalarValue()) {
@@ -192,6 +307,7 @@ public class TokenBuffer {
         Token toReturn = null;
         Iterator<Token> i;
 
+        bufferRestOfStruct();
         if (name.equals(currentName()) && currentToken().isScalarValue()) {
             toReturn = buffer.peekFirst();
         } else {
@@ -5,10 +5,12 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.yahoo.document.DocumentId;
 import com.yahoo.document.json.DocumentOperationType;
+import com.yahoo.document.json.TokenBuffer;
 import com.yahoo.document.json.readers.DocumentParseInfo;
 
 import java.io.IOException;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Parses a document operation.
@@ -25,10 +27,22 @@ public class DocumentParser {
     public static final String FIELDS = "fields";
     public static final String REMOVE = "remove";
     private final JsonParser parser;
+    private final Consumer<DocumentParseInfo> fieldsReader;
     private  long indentLevel;
 
     public DocumentParser(JsonParser parser) {
+        this(parser, null);
+    }
+
+    /**
+     * Creates a parser which passes operations to the given fields reader when their "fields" object is reached,
+     * if the document id is known at that point. The fields buffer of the operation then reads the fields lazily
+     * from the parser, so they are not held in memory in the meantime. Any fields not read when the fields reader
+     * returns are skipped.
+     */
+    public DocumentParser(JsonParser parser, Consumer<DocumentParseInfo> fieldsReader) {
         this.parser = parser;
+        this.fieldsReader = fieldsReader;
     }
 
     /**
@@ -124,7 +138,14 @@ public class DocumentParser {
             JsonToken currentToken = parser.getCurrentToken();
             // "fields" opens a dictionary and is therefore on level two which might be surprising.
             if (currentToken == JsonToken.START_OBJECT && FIELDS.equals(parser.getCurrentName())) {
-                documentParseInfo.fieldsBuffer.bufferObject(currentToken, parser);
+                if (fieldsReader != null && documentParseInfo.documentId != null) {
+                    documentParseInfo.fieldsBuffer = new TokenBuffer(parser);
+                    fieldsReader.accept(documentParseInfo);
+                    documentParseInfo.fieldsBuffer.skipToEnd();
+                }
+                else {
+                    documentParseInfo.fieldsBuffer.bufferObject(currentToken, parser);
+                }
                 processIndent();
             }
         } catch (IOException e) {
@@ -91,10 +91,9 @@ public class TensorReader {
             throw new IllegalArgumentException("The 'values' field can only be used with dense tensors. " +
                                                "Use 'cells' or 'blocks' instead");
         IndexedTensor.BoundBuilder indexedBuilder = (IndexedTensor.BoundBuilder)builder;
-        int index = 0;
-        int initNesting = buffer.nesting();
-        for (buffer.next(); buffer.nesting() >= initNesting; buffer.next())
-            indexedBuilder.cellByDirectIndex(index++, readDouble(buffer));
+        expectArrayStart(buffer.currentToken());
+        int[] index = new int[1];
+        buffer.readDoubles(value -> indexedBuilder.cellByDirectIndex(index[0]++, value));
         expectCompositeEnd(buffer.currentToken());
     }
 
@@ -169,14 +168,16 @@ public class TensorReader {
     private static double[] readValues(TokenBuffer buffer, int size, TensorAddress address, TensorType type) {
         expectArrayStart(buffer.currentToken());
 
-        int index = 0;
-        int initNesting = buffer.nesting();
+        int[] index = new int[1];
         double[] values = new double[size];
-        for (buffer.next(); buffer.nesting() >= initNesting; buffer.next())
-            values[index++] = readDouble(buffer);
-        if (index != size)
+        buffer.readDoubles(value -> {
+            if (index[0] < size)
+                values[index[0]] = value;
+            index[0]++;
+        });
+        if (index[0] != size)
             throw new IllegalArgumentException((address != null ? "At " + address.toString(type) + ": " : "") +
-                                               "Expected " + size + " values, but got " + index);
+                                               "Expected " + size + " values, but got " + index[0]);
         expectCompositeEnd(buffer.currentToken());
         return values;
     }
@@ -67,6 +67,15 @@ public class VespaJsonDocumentReader {
         } catch (JsonReaderException e) {
             throw JsonReaderException.addDocId(e, documentParseInfo.documentId);
         }
+        applyCreateFlag(documentOperation, documentParseInfo);
+        return documentOperation;
+    }
+
+    /**
+     * Sets the create flag of the given parse info, if present, on the given operation.
+     * This is needed when the operation was created before the whole operation was parsed.
+     */
+    public void applyCreateFlag(DocumentOperation documentOperation, DocumentParseInfo documentParseInfo) {
         if (documentParseInfo.create.isPresent()) {
             if (! ( documentOperation instanceof DocumentUpdate)) {
                 throw new IllegalArgumentException("Could not set create flag on non update operation.");
@@ -74,7 +83,6 @@ public class VespaJsonDocumentReader {
             DocumentUpdate update = (DocumentUpdate) documentOperation;
             update.setCreateIfNonExistent(documentParseInfo.create.get());
         }
-        return documentOperation;
     }
 
     // Exposed for unit testing...
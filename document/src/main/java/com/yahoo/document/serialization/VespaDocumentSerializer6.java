@@ -53,6 +53,7 @@ import com.yahoo.document.update.TensorModifyUpdate;
 import com.yahoo.document.update.TensorRemoveUpdate;
 import com.yahoo.document.update.ValueUpdate;
 import com.yahoo.io.GrowableByteBuffer;
+import com.yahoo.io.GrowableByteBufferPool;
 import com.yahoo.tensor.serialization.TypedBinaryFormat;
 import com.yahoo.vespa.objects.BufferSerializer;
 import com.yahoo.vespa.objects.FieldBase;
@@ -74,6 +75,9 @@ import static com.yahoo.text.Utf8.calculateBytePositions;
  **/
 public class VespaDocumentSerializer6 extends BufferSerializer implements DocumentSerializer {
 
+    /** Buffers to serialize struct fields into before they are (possibly) compressed and written */
+    private static final GrowableByteBufferPool structBuffers = new GrowableByteBufferPool("struct serialization", 4096, 1 << 16);
+
     private int spanNodeCounter = -1;
     private int[] bytePositions;
 
@@ -324,9 +328,19 @@ public class VespaDocumentSerializer6 extends BufferSerializer implements Docume
         //keep the buffer we're serializing everything into:
         GrowableByteBuffer bigBuffer = buf;
 
-        //create a new buffer and serialize into that for a while:
-        GrowableByteBuffer buffer = new GrowableByteBuffer(4096, 2.0f);
-        buf = buffer;
+        //serialize into a pooled buffer for a while:
+        GrowableByteBuffer buffer = structBuffers.acquire();
+        try {
+            buf = buffer;
+            writeStructFields(s, buffer, bigBuffer);
+        }
+        finally {
+            buf = bigBuffer;
+            structBuffers.release(buffer);
+        }
+    }
+
+    private void writeStructFields(Struct s, GrowableByteBuffer buffer, GrowableByteBuffer bigBuffer) {
 
         List<Integer> fieldIds = new LinkedList<>();
         List<java.lang.Integer> fieldLengths = new LinkedList<>();
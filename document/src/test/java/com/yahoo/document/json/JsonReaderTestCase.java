@@ -964,6 +964,64 @@ public class JsonReaderTestCase {
         while (r.next() != null);
     }
 
+    @Test
+    public void feedContinuesAfterOperationWithInvalidFields() {
+        JsonReader r = createReader(inputJson("[",
+                "  { 'put': 'id:unittest:smoke::0', 'fields': { 'smething': 'foo' }, 'condition': 'true' },",
+                "  { 'remove': 'id:unittest:smoke::1', 'fields': { 'something': 'foo' } },",
+                "  { 'put': 'id:unittest:smoke::2', 'fields': { 'something': 'foo' } }",
+                "]"));
+        try {
+            r.next();
+            fail("Expected an exception");
+        }
+        catch (IllegalArgumentException e) {
+            assertTrue(Exceptions.toMessageString(e).contains("No field 'smething' in the structure of type 'smoke'"));
+        }
+        assertEquals("id:unittest:smoke::1", ((DocumentRemove) r.next()).getId().toString());
+        assertEquals("id:unittest:smoke::2", ((DocumentPut) r.next()).getId().toString());
+        assertNull(r.next());
+    }
+
+    @Test
+    public void feedContinuesAfterOperationWithNestedArrayInTensorValues() {
+        JsonReader r = createReader(inputJson("[",
+                "  { 'put': 'id:unittest:testtensor::0', 'fields': { 'dense_tensor': { 'values': [[1, 2], [3]] } } },",
+                "  { 'put': 'id:unittest:testtensor::1', 'fields': { 'dense_tensor': { 'values': [1, 2, 3, 4, 5, 6] } } }",
+                "]"));
+        try {
+            r.next();
+            fail("Expected an exception");
+        }
+        catch (IllegalArgumentException e) {
+            assertTrue(Exceptions.toMessageString(e).contains("Expected a number but got an array"));
+        }
+        DocumentPut put = (DocumentPut) r.next();
+        assertEquals("id:unittest:testtensor::1", put.getId().toString());
+        assertEquals(Tensor.from("tensor(x[2],y[3]):[[1, 2, 3], [4, 5, 6]]"),
+                     ((TensorFieldValue) put.getDocument().getFieldValue("dense_tensor")).getTensor().get());
+        assertNull(r.next());
+    }
+
+    @Test
+    public void testUpdateMatchInFeed() {
+        JsonReader r = createReader(inputJson("[",
+                "  { 'update': 'id:unittest:testset::whee',",
+                "    'fields': {",
+                "      'actualset': {",
+                "        'match': {",
+                "          'element': 'person',",
+                "          'increment': 13 }}}},",
+                "  { 'remove': 'id:unittest:smoke::whee' }",
+                "]"));
+        DocumentUpdate update = (DocumentUpdate) r.next();
+        MapValueUpdate match = (MapValueUpdate) update.getFieldUpdate("actualset").getValueUpdate(0);
+        assertEquals("person", ((StringFieldValue) match.getValue()).getString());
+        assertEquals(13, ((ArithmeticValueUpdate) match.getUpdate()).getOperand().intValue());
+        assertTrue(r.next() instanceof DocumentRemove);
+        assertNull(r.next());
+    }
+
     @Test
     public void idAsAliasForPutTest()  throws IOException{
         JsonReader r = createReader(inputJson("{ 'id': 'id:unittest:smoke::doc1',",
@@ -1,6 +1,7 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.documentapi.messagebus.protocol;
 
+import com.yahoo.document.DocumentId;
 import com.yahoo.document.DocumentPut;
 import com.yahoo.document.TestAndSetCondition;
 import com.yahoo.document.serialization.DocumentDeserializer;
@@ -17,6 +18,7 @@ public class PutDocumentMessage extends TestAndSetMessage {
     private DocumentPut put = null;
     private long time = 0;
     private LazyDecoder decoder = null;
+    private DocumentId documentId = null;
 
     /**
      * Constructs a new message for deserialization.
@@ -57,9 +59,26 @@ public class PutDocumentMessage extends TestAndSetMessage {
             decoder.decode(this, buffer);
             decoder = null;
             buffer = null;
+            documentId = null;
         }
     }
 
+    /**
+     * Returns the id of the document to put. If this message is not yet deserialized, only the id is read
+     * from the serialized buffer, so that routing and sequencing does not require the document to be deserialized.
+     */
+    public DocumentId getDocumentId() {
+        if (buffer == null) return put.getId();
+        if (documentId == null) {
+            int position = buffer.getBuf().position();
+            buffer.getShort(null); // serialization version
+            buffer.getInt(null); // document length
+            documentId = buffer.readDocumentId();
+            buffer.getBuf().position(position);
+        }
+        return documentId;
+    }
+
     /** Returns the document put operation */
     public DocumentPut getDocumentPut() {
         deserialize();
@@ -116,8 +135,7 @@ public class PutDocumentMessage extends TestAndSetMessage {
 
     @Override
     public long getSequenceId() {
-        deserialize();
-        return Arrays.hashCode(put.getId().getGlobalId());
+        return Arrays.hashCode(getDocumentId().getGlobalId());
     }
 
     @Override
@@ -11,6 +11,7 @@ import com.yahoo.document.serialization.DocumentSerializer;
 import com.yahoo.document.serialization.DocumentSerializerFactory;
 import com.yahoo.documentapi.messagebus.loadtypes.LoadTypeSet;
 import com.yahoo.io.GrowableByteBuffer;
+import com.yahoo.io.GrowableByteBufferPool;
 import java.util.logging.Level;
 import com.yahoo.messagebus.Routable;
 
@@ -31,6 +32,10 @@ import java.util.logging.Logger;
 final class RoutableRepository {
 
     private static final Logger log = Logger.getLogger(RoutableRepository.class.getName());
+
+    /** Buffers to encode into, reused to avoid allocating and growing a new one for each routable */
+    private static final GrowableByteBufferPool encodeBuffers = new GrowableByteBufferPool("routable encoding", 8192, 1 << 16);
+
     private final CopyOnWriteHashMap<Integer, VersionMap> factoryTypes = new CopyOnWriteHashMap<>();
     private final CopyOnWriteHashMap<CacheKey, RoutableFactory> cache = new CopyOnWriteHashMap<>();
     private LoadTypeSet loadTypes;
@@ -97,18 +102,24 @@ final class RoutableRepository {
             log.log(Level.SEVERE,"Can not encode routable type " + type + " (version " + version + "). Only major version 5 and up supported.");
             return new byte[0];
         }
-        DocumentSerializer out= DocumentSerializerFactory.createHead(new GrowableByteBuffer(8192));
+        GrowableByteBuffer buffer = encodeBuffers.acquire();
+        try {
+            DocumentSerializer out = DocumentSerializerFactory.createHead(buffer);
 
-        out.putInt(null, type);
-        if (!factory.encode(obj, out)) {
-            log.log(Level.SEVERE, "Routable factory " + factory.getClass().getName() + " failed to serialize " +
-                                    "routable of type " + type + " (version " + version + ").");
-            return new byte[0];
+            out.putInt(null, type);
+            if (!factory.encode(obj, out)) {
+                log.log(Level.SEVERE, "Routable factory " + factory.getClass().getName() + " failed to serialize " +
+                                      "routable of type " + type + " (version " + version + ").");
+                return new byte[0];
+            }
+            byte[] ret = new byte[out.getBuf().position()];
+            out.getBuf().rewind();
+            out.getBuf().get(ret);
+            return ret;
+        }
+        finally {
+            encodeBuffers.release(buffer);
         }
-        byte[] ret = new byte[out.getBuf().position()];
-        out.getBuf().rewind();
-        out.getBuf().get(ret);
-        return ret;
     }
 
     /**
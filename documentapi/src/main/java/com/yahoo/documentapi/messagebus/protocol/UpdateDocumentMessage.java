@@ -1,6 +1,7 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.documentapi.messagebus.protocol;
 
+import com.yahoo.document.DocumentId;
 import com.yahoo.document.DocumentUpdate;
 import com.yahoo.document.TestAndSetCondition;
 import com.yahoo.document.serialization.DocumentDeserializer;
@@ -18,6 +19,7 @@ public class UpdateDocumentMessage extends TestAndSetMessage {
     private long oldTime = 0;
     private long newTime = 0;
     private LazyDecoder decoder = null;
+    private DocumentId documentId = null;
 
     /**
      * Constructs a new message for deserialization.
@@ -62,9 +64,24 @@ public class UpdateDocumentMessage extends TestAndSetMessage {
             decoder.decode(this, buffer);
             decoder = null;
             buffer = null;
+            documentId = null;
         }
     }
 
+    /**
+     * Returns the id of the document to update. If this message is not yet deserialized, only the id is read
+     * from the serialized buffer, so that routing and sequencing does not require the update to be deserialized.
+     */
+    public DocumentId getDocumentId() {
+        if (buffer == null) return update.getId();
+        if (documentId == null) {
+            int position = buffer.getBuf().position();
+            documentId = buffer.readDocumentId();
+            buffer.getBuf().position(position);
+        }
+        return documentId;
+    }
+
     /**
      * Returns the document update to perform.
      *
@@ -153,8 +170,7 @@ public class UpdateDocumentMessage extends TestAndSetMessage {
 
     @Override
     public long getSequenceId() {
-        deserialize();
-        return Arrays.hashCode(update.getId().getGlobalId());
+        return Arrays.hashCode(getDocumentId().getGlobalId());
     }
 
     @Override
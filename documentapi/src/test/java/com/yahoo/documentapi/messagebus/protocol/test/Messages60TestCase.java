@@ -616,6 +616,8 @@ public class Messages60TestCase extends MessagesTestBase {
 
             for (Language lang : LANGUAGES) {
                 final PutDocumentMessage deserializedMsg = (PutDocumentMessage)deserialize("PutDocumentMessage", DocumentProtocol.MESSAGE_PUTDOCUMENT, lang);
+                assertEquals(msg.getDocumentPut().getId(), deserializedMsg.getDocumentId());
+                assertEquals(msg.getSequenceId(), deserializedMsg.getSequenceId());
                 assertEquals(msg.getDocumentPut().getDocument().getDataType().getName(), deserializedMsg.getDocumentPut().getDocument().getDataType().getName());
                 assertEquals(msg.getDocumentPut().getDocument().getId().toString(), deserializedMsg.getDocumentPut().getDocument().getId().toString());
                 assertEquals(msg.getTimestamp(), deserializedMsg.getTimestamp());
@@ -658,6 +660,8 @@ public class Messages60TestCase extends MessagesTestBase {
 
             for (Language lang : LANGUAGES) {
                 final UpdateDocumentMessage deserializedMsg = (UpdateDocumentMessage) deserialize("UpdateDocumentMessage", DocumentProtocol.MESSAGE_UPDATEDOCUMENT, lang);
+                assertEquals(msg.getDocumentUpdate().getId(), deserializedMsg.getDocumentId());
+                assertEquals(msg.getSequenceId(), deserializedMsg.getSequenceId());
                 assertEquals(msg.getDocumentUpdate(), deserializedMsg.getDocumentUpdate());
                 assertEquals(msg.getNewTimestamp(), deserializedMsg.getNewTimestamp());
                 assertEquals(msg.getOldTimestamp(), deserializedMsg.getOldTimestamp());
@@ -1,10 +1,9 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.messagebus;
 
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.Map;
+import java.util.ArrayDeque;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -13,13 +12,20 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * id, and messages are only sent when they are at the front of their list. When a reply arrives, the current front of
  * the list is removed and the next message, if any, is sent.
  *
+ * The state of each sequence id is updated atomically, without locking the state of other ids, so that many
+ * threads can send sequenced messages concurrently.
+ *
  * @author Simon Thoresen Hult
  */
 public class Sequencer implements MessageHandler, ReplyHandler {
 
     private final AtomicBoolean destroyed = new AtomicBoolean(false);
     private final MessageHandler sender;
-    private final Map<Long, Queue<Message>> seqMap = new HashMap<>();
+    /** The messages waiting for each sequence id with a message in flight, or noneWaiting */
+    private final ConcurrentHashMap<Long, Queue<Message>> seqMap = new ConcurrentHashMap<>();
+
+    /** Marks a sequence id which has a message in flight and none waiting. This is never modified. */
+    private static final Queue<Message> noneWaiting = new ArrayDeque<>(0);
 
     /**
      * Constructs a new sequencer on top of the given async sender.
@@ -38,15 +44,13 @@ public class Sequencer implements MessageHandler, ReplyHandler {
      */
     public boolean destroy() {
         if (!destroyed.getAndSet(true)) {
-            synchronized (this) {
-                for (Queue<Message> queue : seqMap.values()) {
-                    if (queue != null) {
-                        for (Message msg : queue) {
-                            msg.discard();
-                        }
+            for (Long seqId : seqMap.keySet()) {
+                Queue<Message> queue = seqMap.remove(seqId);
+                if (queue != null) {
+                    for (Message msg : queue) {
+                        msg.discard();
                     }
                 }
-                seqMap.clear();
             }
             return true;
         }
@@ -65,23 +69,19 @@ public class Sequencer implements MessageHandler, ReplyHandler {
     private boolean filter(Message msg) {
         long seqId = msg.getSequenceId();
         msg.setContext(seqId);
-        synchronized (this) {
-            if (seqMap.containsKey(seqId)) {
-                Queue<Message> queue = seqMap.get(seqId);
-                if (queue == null) {
-                    queue = new LinkedList<>();
-                    seqMap.put(seqId, queue);
-                }
-                if (msg.getTrace().shouldTrace(TraceLevel.COMPONENT)) {
-                    msg.getTrace().trace(TraceLevel.COMPONENT,
-                                         "Sequencer queued message with sequence id '" + seqId + "'.");
-                }
-                queue.add(msg);
-                return false;
+        Queue<Message> queue = seqMap.compute(seqId, (id, waiting) -> {
+            if (waiting == null) return noneWaiting; // nothing in flight: send this
+
+            if (waiting == noneWaiting)
+                waiting = new ArrayDeque<>();
+            if (msg.getTrace().shouldTrace(TraceLevel.COMPONENT)) {
+                msg.getTrace().trace(TraceLevel.COMPONENT,
+                                     "Sequencer queued message with sequence id '" + seqId + "'.");
             }
-            seqMap.put(seqId, null);
-        }
-        return true;
+            waiting.add(msg);
+            return waiting;
+        });
+        return queue == noneWaiting;
     }
 
     /**
@@ -137,17 +137,15 @@ public class Sequencer implements MessageHandler, ReplyHandler {
             reply.getTrace().trace(TraceLevel.COMPONENT,
                                    "Sequencer received reply with sequence id '" + seqId + "'.");
         }
-        Message msg = null;
-        synchronized (this) {
-            Queue<Message> queue = seqMap.get(seqId);
-            if (queue == null || queue.isEmpty()) {
-                seqMap.remove(seqId);
-            } else {
-                msg = queue.remove();
-            }
-        }
-        if (msg != null) {
-            sequencedSend(msg);
+        Message[] next = new Message[1];
+        seqMap.computeIfPresent(seqId, (id, waiting) -> {
+            if (waiting.isEmpty()) return null; // nothing more to send for this id
+
+            next[0] = waiting.remove();
+            return waiting;
+        });
+        if (next[0] != null) {
+            sequencedSend(next[0]);
         }
         ReplyHandler handler = reply.popHandler();
         handler.handleReply(reply);
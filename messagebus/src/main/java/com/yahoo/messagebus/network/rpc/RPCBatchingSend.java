@@ -0,0 +1,444 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.messagebus.network.rpc;
+
+import com.yahoo.component.Version;
+import com.yahoo.concurrent.SystemTimer;
+import com.yahoo.jrt.Method;
+import com.yahoo.jrt.MethodHandler;
+import com.yahoo.jrt.Request;
+import com.yahoo.jrt.Supervisor;
+import com.yahoo.jrt.Values;
+import com.yahoo.messagebus.EmptyReply;
+import com.yahoo.messagebus.Error;
+import com.yahoo.messagebus.ErrorCode;
+import com.yahoo.messagebus.Message;
+import com.yahoo.messagebus.Reply;
+import com.yahoo.messagebus.Trace;
+import com.yahoo.messagebus.routing.Route;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A request adapter which may send multiple messages to the same target in a single request, when the
+ * network is configured to do so. Targets which do not know the batch method are sent messages one by one.
+ *
+ * Each message in a batch keeps its own deadline: The sender times out each message which is not replied to
+ * when its own time remaining has passed, and a failed batch request fails only the messages not yet replied to.
+ * The receiver answers each message which is not replied to when its own time remaining has passed with a timeout,
+ * and returns the replies to a batch when all of its messages are either replied to or timed out.
+ *
+ * @author agent
+ */
+public abstract class RPCBatchingSend extends RPCSend {
+
+    private final Map<RPCTarget, Batch> batches = new HashMap<>(); // guarded by itself
+
+    protected abstract Method buildBatchMethod(MethodHandler handler);
+    protected abstract Request encodeBatchRequest(List<BatchedMessage> messages);
+    protected abstract List<Reply> createBatchReplies(Values ret, List<String> serviceNames, List<Trace> traces);
+    protected abstract List<Params> toBatchParams(Values req);
+    protected abstract void createBatchResponse(Values ret, List<EncodedReply> replies);
+
+    @Override
+    void addMethods(Supervisor supervisor) {
+        super.addMethods(supervisor);
+        supervisor.addMethod(buildBatchMethod(this::invokeBatch));
+    }
+
+    @Override
+    void sendAsync(SendContext ctx, Version version, Route route, RPCServiceAddress address, Message msg,
+                   long timeRemaining, byte[] payload) {
+        if (getNetwork().getMaxBatchMessages() > 1 && address.getTarget().acceptsBatches())
+            addToBatch(new BatchedMessage(ctx, version, route, address, msg, timeRemaining, payload));
+        else
+            invokeAsync(ctx, version, route, address, msg, timeRemaining, payload);
+    }
+
+    /**
+     * Adds a message to the batch of the target it is sent to. The batch is sent when it
+     * reaches the max number of messages or bytes, or when the max batch delay has passed since
+     * the first message was added, whichever comes first.
+     */
+    private void addToBatch(BatchedMessage message) {
+        RPCTarget target = message.address.getTarget();
+        RPCNetwork net = getNetwork();
+        Batch full = null;
+        synchronized (batches) {
+            Batch batch = batches.computeIfAbsent(target, Batch::new);
+            batch.add(message);
+            if (batch.messages.size() >= net.getMaxBatchMessages() || batch.bytes >= net.getMaxBatchBytes()) {
+                batches.remove(target);
+                full = batch;
+            }
+            else if (batch.messages.size() == 1) {
+                try {
+                    net.getBatchScheduler().schedule(() -> flush(batch), net.getMaxBatchDelayMicros(), TimeUnit.MICROSECONDS);
+                }
+                catch (RejectedExecutionException e) { // shutting down: send right away
+                    batches.remove(target);
+                    full = batch;
+                }
+            }
+        }
+        if (full != null) {
+            sendBatch(full);
+        }
+    }
+
+    /** Sends the given batch, unless it has already been sent because it became full */
+    private void flush(Batch batch) {
+        synchronized (batches) {
+            if (batches.get(batch.target) != batch) return;
+            batches.remove(batch.target);
+        }
+        sendBatch(batch);
+    }
+
+    private void sendBatch(Batch batch) {
+        if (batch.messages.size() == 1) {
+            batch.messages.get(0).resend();
+            return;
+        }
+        long now = SystemTimer.INSTANCE.milliTime();
+        long timeRemaining = 0;
+        for (BatchedMessage message : batch.messages) {
+            timeRemaining = Math.max(timeRemaining, message.deadline - now);
+        }
+        if (timeRemaining <= 0) { // all have timed out while waiting to be sent
+            expire(batch);
+            return;
+        }
+        Request req = encodeBatchRequest(batch.messages);
+        req.setContext(batch);
+        batch.target.getJRTTarget().invokeAsync(req, timeRemaining * 0.001, this::handleBatchRequestDone);
+        req.discardParameters(); // allow garbage collection of request parameters
+        scheduleExpiry(batch);
+    }
+
+    /** Schedules timing out the messages in the given batch which are not replied to, at the earliest of their deadlines */
+    private void scheduleExpiry(Batch batch) {
+        long now = SystemTimer.INSTANCE.milliTime();
+        long timeRemaining = Long.MAX_VALUE;
+        for (BatchedMessage message : batch.messages) {
+            if ( ! message.isReplied())
+                timeRemaining = Math.min(timeRemaining, message.deadline - now);
+        }
+        if (timeRemaining == Long.MAX_VALUE) return;
+
+        RPCNetwork net = getNetwork();
+        try {
+            batch.setExpiry(net.getBatchScheduler().schedule(() -> net.getExecutor().execute(() -> expire(batch)),
+                                                             Math.max(0, timeRemaining), TimeUnit.MILLISECONDS));
+        }
+        catch (RejectedExecutionException e) {
+            // shutting down: the batch request fails when its connection is closed
+        }
+    }
+
+    private void expire(Batch batch) {
+        long now = SystemTimer.INSTANCE.milliTime();
+        for (BatchedMessage message : batch.messages) {
+            if (message.deadline <= now && message.reply()) {
+                deliverReply(message.ctx, new EmptyReply(),
+                             new Error(ErrorCode.TIMEOUT,
+                                       "A timeout occured while waiting for '" + message.address.getServiceName() +
+                                       "' (" + message.ctx.timeout + " seconds expired); no reply to batched message."));
+            }
+        }
+        scheduleExpiry(batch);
+    }
+
+    private void handleBatchRequestDone(Request req) {
+        getNetwork().getExecutor().execute(() -> doBatchRequestDone(req));
+    }
+
+    private void doBatchRequestDone(Request req) {
+        Batch batch = (Batch)req.getContext();
+        batch.cancelExpiry();
+        if (req.errorCode() == com.yahoo.jrt.ErrorCode.NO_SUCH_METHOD) {
+            // The target does not know how to receive batches; send these and all later messages one by one
+            batch.target.setAcceptsBatches(false);
+            for (BatchedMessage message : batch.messages) {
+                if (message.reply()) {
+                    message.resend();
+                }
+            }
+            return;
+        }
+
+        if (!req.checkReturnTypes(getReturnSpec())) {
+            for (BatchedMessage message : batch.messages) {
+                if (message.reply()) {
+                    deliverReply(message.ctx, new EmptyReply(), toError(req, message.address.getServiceName(), message.ctx.timeout));
+                }
+            }
+            return;
+        }
+        List<String> serviceNames = new ArrayList<>(batch.messages.size());
+        List<Trace> traces = new ArrayList<>(batch.messages.size());
+        for (BatchedMessage message : batch.messages) {
+            serviceNames.add(message.address.getServiceName());
+            traces.add(message.ctx.trace);
+        }
+        List<Reply> replies = createBatchReplies(req.returnValues(), serviceNames, traces);
+        for (int i = 0; i < batch.messages.size(); i++) {
+            BatchedMessage message = batch.messages.get(i);
+            if ( ! message.reply()) continue; // timed out already
+
+            if (i < replies.size())
+                deliverReply(message.ctx, replies.get(i), null);
+            else
+                deliverReply(message.ctx, new EmptyReply(),
+                             new Error(ErrorCode.NETWORK_ERROR,
+                                       "Got " + replies.size() + " replies to a batch of " + batch.messages.size() +
+                                       " messages from '" + serviceNames.get(i) + "'."));
+        }
+    }
+
+    private void invokeBatch(Request request) {
+        request.detach();
+        getNetwork().getExecutor().execute(() -> doInvokeBatch(request));
+    }
+
+    private void doInvokeBatch(Request request) {
+        List<Params> params = toBatchParams(request.parameters());
+
+        request.discardParameters(); // allow garbage collection of request parameters
+
+        if (params.isEmpty()) {
+            createBatchResponse(request.returnValues(), List.of());
+            request.returnRequest();
+            return;
+        }
+        BatchReplies replies = new BatchReplies(request, params);
+        replies.scheduleTimeout();
+        for (int i = 0; i < params.size(); i++) {
+            deliverMessage(params.get(i), new BatchReplyContext(replies, i));
+        }
+    }
+
+    /** The context of a message received in a batch, whose reply is returned with the others in the batch */
+    private class BatchReplyContext extends ReplyContext {
+
+        final BatchReplies batch;
+        final int index;
+
+        BatchReplyContext(BatchReplies batch, int index) {
+            super(batch.request, batch.versions[index]);
+            this.batch = batch;
+            this.index = index;
+        }
+
+        @Override
+        void returnReply(Reply reply, byte[] payload) {
+            batch.set(index, new EncodedReply(reply, version, payload));
+        }
+
+    }
+
+    /** A message waiting to be sent to a target in a batch */
+    protected final class BatchedMessage {
+
+        private final SendContext ctx;
+        final Version version;
+        final Route route;
+        final RPCServiceAddress address;
+        final Message msg;
+        final byte[] payload;
+        final long deadline;
+        private boolean replied = false;
+
+        BatchedMessage(SendContext ctx, Version version, Route route, RPCServiceAddress address, Message msg,
+                       long timeRemaining, byte[] payload) {
+            this.ctx = ctx;
+            this.version = version;
+            this.route = route;
+            this.address = address;
+            this.msg = msg;
+            this.payload = payload;
+            this.deadline = SystemTimer.INSTANCE.milliTime() + timeRemaining;
+        }
+
+        int traceLevel() { return ctx.trace.getLevel(); }
+
+        /** Returns the number of milliseconds left until this times out */
+        long timeRemainingNow() {
+            return deadline - SystemTimer.INSTANCE.milliTime();
+        }
+
+        /** Marks this as replied to, and returns whether it was not already */
+        synchronized boolean reply() {
+            if (replied) return false;
+            return replied = true;
+        }
+
+        synchronized boolean isReplied() { return replied; }
+
+        /** Sends this message in a request of its own with the time it has left, or times it out if there is none */
+        void resend() {
+            long timeRemaining = timeRemainingNow();
+            if (timeRemaining > 0)
+                invokeAsync(ctx, version, route, address, msg, timeRemaining, payload);
+            else
+                deliverReply(ctx, new EmptyReply(),
+                             new Error(ErrorCode.TIMEOUT, "Aborting transmission because zero time remains."));
+        }
+
+    }
+
+    /** The messages to send to a target in a single request */
+    private static class Batch {
+
+        final RPCTarget target;
+        final List<BatchedMessage> messages = new ArrayList<>();
+        int bytes = 0;
+        private ScheduledFuture<?> expiry = null;
+        private boolean done = false;
+
+        Batch(RPCTarget target) {
+            this.target = target;
+        }
+
+        void add(BatchedMessage message) {
+            messages.add(message);
+            bytes += message.payload.length;
+        }
+
+        synchronized void setExpiry(ScheduledFuture<?> expiry) {
+            if (done)
+                expiry.cancel(false);
+            else
+                this.expiry = expiry;
+        }
+
+        /** Cancels timing out the messages of this, as the request is done */
+        synchronized void cancelExpiry() {
+            done = true;
+            if (expiry != null) {
+                expiry.cancel(false);
+            }
+        }
+
+    }
+
+    /** A reply encoded for a given version, to be returned as part of a batch */
+    protected static final class EncodedReply {
+
+        final Reply reply;
+        final Version version;
+        final byte[] payload;
+
+        EncodedReply(Reply reply, Version version, byte[] payload) {
+            this.reply = reply;
+            this.version = version;
+            this.payload = payload;
+        }
+
+    }
+
+    /**
+     * Collects the replies to a received batch of messages, which may arrive in any order, and returns them
+     * when each message is either replied to or timed out
+     */
+    private class BatchReplies {
+
+        final Request request;
+        final Version[] versions;
+        private final long[] deadlines;
+        private final EncodedReply[] replies;
+        private int remaining;
+        private ScheduledFuture<?> timeout = null;
+
+        BatchReplies(Request request, List<Params> params) {
+            this.request = request;
+            this.versions = new Version[params.size()];
+            this.deadlines = new long[params.size()];
+            long now = SystemTimer.INSTANCE.milliTime();
+            for (int i = 0; i < versions.length; i++) {
+                versions[i] = params.get(i).version;
+                deadlines[i] = now + params.get(i).timeRemaining;
+            }
+            this.replies = new EncodedReply[params.size()];
+            this.remaining = params.size();
+        }
+
+        /** Schedules timing out the messages of this which are not replied to, at the earliest of their deadlines */
+        void scheduleTimeout() {
+            long deadline = Long.MAX_VALUE;
+            synchronized (this) {
+                for (int i = 0; i < replies.length; i++) {
+                    if (replies[i] == null)
+                        deadline = Math.min(deadline, deadlines[i]);
+                }
+            }
+            if (deadline == Long.MAX_VALUE) return;
+
+            RPCNetwork net = getNetwork();
+            try {
+                ScheduledFuture<?> timeout = net.getBatchScheduler().schedule(() -> net.getExecutor().execute(this::expire),
+                                                                             Math.max(0, deadline - SystemTimer.INSTANCE.milliTime()),
+                                                                             TimeUnit.MILLISECONDS);
+                synchronized (this) {
+                    if (remaining == 0)
+                        timeout.cancel(false);
+                    else
+                        this.timeout = timeout;
+                }
+            }
+            catch (RejectedExecutionException e) {
+                // shutting down: the replies are returned when all are ready
+            }
+        }
+
+        /** Sets the reply at the given index, and returns all the replies if this was the last one missing */
+        void set(int index, EncodedReply reply) {
+            synchronized (this) {
+                if (replies[index] != null) return; // timed out already
+                replies[index] = reply;
+                if (--remaining > 0) return;
+                if (timeout != null) {
+                    timeout.cancel(false);
+                }
+            }
+            returnReplies();
+        }
+
+        /**
+         * Sets a timeout error for each message which is not replied to when its deadline has passed, and returns
+         * the replies if none are missing then. Otherwise, this is scheduled again for the next deadline.
+         */
+        private void expire() {
+            boolean done;
+            synchronized (this) {
+                if (remaining == 0) return;
+                long now = SystemTimer.INSTANCE.milliTime();
+                for (int i = 0; i < replies.length; i++) {
+                    if (replies[i] == null && deadlines[i] <= now) {
+                        Reply reply = new EmptyReply();
+                        reply.addError(new Error(ErrorCode.TIMEOUT, "Timed out before the message was replied to."));
+                        replies[i] = new EncodedReply(reply, versions[i], new byte[0]);
+                        remaining--;
+                    }
+                }
+                done = remaining == 0;
+            }
+            if (done)
+                returnReplies();
+            else
+                scheduleTimeout();
+        }
+
+        private void returnReplies() {
+            createBatchResponse(request.returnValues(), List.of(replies));
+            request.returnRequest();
+        }
+
+    }
+
+}
@@ -38,6 +38,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -68,6 +70,12 @@ public class RPCNetwork implements Network, MethodHandler {
                                    new SynchronousQueue<>(false),
                                    ThreadFactoryFactory.getDaemonThreadFactory("mbus.net"), new ThreadPoolExecutor.CallerRunsPolicy());
 
+    private final int maxBatchMessages;
+    private final int maxBatchBytes;
+    private final long maxBatchDelayMicros;
+    private final ScheduledThreadPoolExecutor batchScheduler =
+            new ScheduledThreadPoolExecutor(1, ThreadFactoryFactory.getDaemonThreadFactory("mbus.batch"));
+
     private static int getNumThreads() {
         return Math.max(2, Runtime.getRuntime().availableProcessors()/2);
     }
@@ -92,6 +100,10 @@ public class RPCNetwork implements Network, MethodHandler {
         orb.setMaxOutputBufferSize(params.getMaxOutputBufferSize());
         targetPool = new RPCTargetPool(params.getConnectionExpireSecs(), params.getNumTargetsPerSpec());
         servicePool = new RPCServicePool(this, 4096);
+        maxBatchMessages = params.getMaxBatchMessages();
+        maxBatchBytes = params.getMaxBatchBytes();
+        maxBatchDelayMicros = (long)(params.getMaxBatchDelay() * 1_000_000);
+        batchScheduler.setRemoveOnCancelPolicy(true); // its thread is only started when batches are sent or received
 
         Method method = new Method("mbus.getVersion", "", "s", this);
         method.methodDesc("Retrieves the message bus version.");
@@ -274,6 +286,7 @@ public class RPCNetwork implements Network, MethodHandler {
             if (slobroksConfig != null) {
                 slobroksConfig.shutdown();
             }
+            batchScheduler.shutdown(); // batches already waiting are still sent
             register.shutdown();
             mirror.shutdown();
             listener.shutdown().join();
@@ -389,6 +402,24 @@ public class RPCNetwork implements Network, MethodHandler {
         return executor;
     }
 
+    /** Returns the max number of messages to send to a target in one request, where 1 means no batching */
+    int getMaxBatchMessages() {
+        return maxBatchMessages;
+    }
+
+    int getMaxBatchBytes() {
+        return maxBatchBytes;
+    }
+
+    long getMaxBatchDelayMicros() {
+        return maxBatchDelayMicros;
+    }
+
+    /** Returns the scheduler used to send batches which are not filled in time, and to time out messages in batches */
+    ScheduledExecutorService getBatchScheduler() {
+        return batchScheduler;
+    }
+
     private class SendTask implements Runnable {
 
         final Protocol protocol;
@@ -21,6 +21,9 @@ public class RPCNetworkParams {
     private double connectionExpireSecs = 30;
     private int numTargetsPerSpec = 1;
     private int numNetworkThreads = 2;
+    private int maxBatchMessages = 1;
+    private int maxBatchBytes = 64 * 1024;
+    private double maxBatchDelaySecs = 0.001;
     public enum Optimization {LATENCY, THROUGHPUT}
     Optimization optimization = Optimization.LATENCY;
 
@@ -46,6 +49,9 @@ public class RPCNetworkParams {
         maxOutputBufferSize = params.maxOutputBufferSize;
         numTargetsPerSpec = params.numTargetsPerSpec;
         numNetworkThreads = params.numNetworkThreads;
+        maxBatchMessages = params.maxBatchMessages;
+        maxBatchBytes = params.maxBatchBytes;
+        maxBatchDelaySecs = params.maxBatchDelaySecs;
         optimization = params.optimization;
     }
 
@@ -173,6 +179,52 @@ public class RPCNetworkParams {
         return optimization;
     }
 
+    /**
+     * Sets the max number of messages to the same target to send in a single request. Batching is only used
+     * towards targets which support it, and only when this is larger than 1, which it is not by default.
+     * Each message in a batch is still routed, traced and replied to separately.
+     *
+     * @param maxBatchMessages The max number of messages per request.
+     * @return This, to allow chaining.
+     */
+    public RPCNetworkParams setMaxBatchMessages(int maxBatchMessages) {
+        if (maxBatchMessages < 1)
+            throw new IllegalArgumentException("Max batch messages must be positive, not " + maxBatchMessages);
+        this.maxBatchMessages = maxBatchMessages;
+        return this;
+    }
+    int getMaxBatchMessages() {
+        return maxBatchMessages;
+    }
+
+    /**
+     * Sets the number of payload bytes at which a batch is sent even if it has not reached the max number of messages.
+     *
+     * @param maxBatchBytes The max number of payload bytes per request.
+     * @return This, to allow chaining.
+     */
+    public RPCNetworkParams setMaxBatchBytes(int maxBatchBytes) {
+        this.maxBatchBytes = maxBatchBytes;
+        return this;
+    }
+    int getMaxBatchBytes() {
+        return maxBatchBytes;
+    }
+
+    /**
+     * Sets the max time a message waits for other messages to the same target before its batch is sent.
+     *
+     * @param secs The max delay in seconds.
+     * @return This, to allow chaining.
+     */
+    public RPCNetworkParams setMaxBatchDelay(double secs) {
+        this.maxBatchDelaySecs = secs;
+        return this;
+    }
+    double getMaxBatchDelay() {
+        return maxBatchDelaySecs;
+    }
+
     /**
      * Returns the maximum input buffer size allowed for the underlying FNET connection.
      *
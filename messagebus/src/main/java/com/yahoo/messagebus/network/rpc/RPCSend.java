@@ -7,6 +7,7 @@ import com.yahoo.jrt.Method;
 import com.yahoo.jrt.MethodHandler;
 import com.yahoo.jrt.Request;
 import com.yahoo.jrt.RequestWaiter;
+import com.yahoo.jrt.Supervisor;
 import com.yahoo.jrt.Values;
 import com.yahoo.messagebus.EmptyReply;
 import com.yahoo.messagebus.Error;
@@ -41,6 +42,7 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
     protected abstract Reply createReply(Values ret, String serviceName, Trace trace);
     protected abstract Params toParams(Values req);
     protected abstract void createResponse(Values ret, Reply reply, Version version, byte [] payload);
+
     @Override
     public final void attach(RPCNetwork net) {
         this.net = net;
@@ -49,7 +51,17 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
             clientIdent = "'" + prefix + "'";
             serverIdent = clientIdent;
         }
-        net.getSupervisor().addMethod(buildMethod());
+        addMethods(net.getSupervisor());
+    }
+
+    /** Returns the network this is attached to */
+    final RPCNetwork getNetwork() {
+        return net;
+    }
+
+    /** Adds the methods this receives messages through to the given supervisor */
+    void addMethods(Supervisor supervisor) {
+        supervisor.addMethod(buildMethod());
     }
 
     @Override
@@ -60,8 +72,6 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
         Route route = new Route(recipient.getRoute());
         Hop hop = route.removeHop(0);
 
-        Request req = encodeRequest(version, route, address,msg, timeRemaining, payload, ctx.trace.getLevel());
-
         if (ctx.trace.shouldTrace(TraceLevel.SEND_RECEIVE)) {
             ctx.trace.trace(TraceLevel.SEND_RECEIVE,
                     "Sending message (version " + version + ") from " + clientIdent + " to '" +
@@ -69,7 +79,9 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
         }
 
         if (hop.getIgnoreResult()) {
+            Request req = encodeRequest(version, route, address,msg, timeRemaining, payload, ctx.trace.getLevel());
             address.getTarget().getJRTTarget().invokeVoid(req);
+            req.discardParameters(); // allow garbage collection of request parameters
             if (ctx.trace.shouldTrace(TraceLevel.SEND_RECEIVE)) {
                 ctx.trace.trace(TraceLevel.SEND_RECEIVE,
                         "Not waiting for a reply from '" + address.getServiceName() + "'.");
@@ -78,9 +90,22 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
             reply.getTrace().swap(ctx.trace);
             net.getOwner().deliverReply(reply, recipient);
         } else {
-            req.setContext(ctx);
-            address.getTarget().getJRTTarget().invokeAsync(req, ctx.timeout, this);
+            sendAsync(ctx, version, route, address, msg, timeRemaining, payload);
         }
+    }
+
+    /** Sends a message which expects a reply, which is passed to the recipient of the given context */
+    void sendAsync(SendContext ctx, Version version, Route route, RPCServiceAddress address, Message msg,
+                   long timeRemaining, byte[] payload) {
+        invokeAsync(ctx, version, route, address, msg, timeRemaining, payload);
+    }
+
+    /** Sends a message in a request of its own, which times out when the given time remaining has passed */
+    final void invokeAsync(SendContext ctx, Version version, Route route, RPCServiceAddress address, Message msg,
+                           long timeRemaining, byte[] payload) {
+        Request req = encodeRequest(version, route, address,msg, timeRemaining, payload, ctx.trace.getLevel());
+        req.setContext(ctx);
+        address.getTarget().getJRTTarget().invokeAsync(req, timeRemaining * 0.001, this);
         req.discardParameters(); // allow garbage collection of request parameters
     }
 
@@ -113,28 +138,30 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
     private void doRequestDone(Request req) {
         SendContext ctx = (SendContext)req.getContext();
         String serviceName = ((RPCServiceAddress)ctx.recipient.getServiceAddress()).getServiceName();
-        Reply reply;
-        Error error = null;
         if (!req.checkReturnTypes(getReturnSpec())) {
-            // Map all known JRT errors to the appropriate message bus error.
-            reply = new EmptyReply();
-            switch (req.errorCode()) {
-                case com.yahoo.jrt.ErrorCode.TIMEOUT:
-                    error = new Error(ErrorCode.TIMEOUT,
-                            "A timeout occured while waiting for '" + serviceName + "' (" +
-                                    ctx.timeout + " seconds expired); " + req.errorMessage());
-                    break;
-                case com.yahoo.jrt.ErrorCode.CONNECTION:
-                    error = new Error(ErrorCode.CONNECTION_ERROR,
-                            "A connection error occured for '" + serviceName + "'; " + req.errorMessage());
-                    break;
-                default:
-                    error = new Error(ErrorCode.NETWORK_ERROR,
-                            "A network error occured for '" + serviceName + "'; " + req.errorMessage());
-            }
+            deliverReply(ctx, new EmptyReply(), toError(req, serviceName, ctx.timeout));
         } else {
-            reply = createReply(req.returnValues(), serviceName, ctx.trace);
+            deliverReply(ctx, createReply(req.returnValues(), serviceName, ctx.trace), null);
+        }
+    }
+
+    /** Maps all known JRT errors to the appropriate message bus error. */
+    static Error toError(Request req, String serviceName, double timeout) {
+        switch (req.errorCode()) {
+            case com.yahoo.jrt.ErrorCode.TIMEOUT:
+                return new Error(ErrorCode.TIMEOUT,
+                        "A timeout occured while waiting for '" + serviceName + "' (" +
+                                timeout + " seconds expired); " + req.errorMessage());
+            case com.yahoo.jrt.ErrorCode.CONNECTION:
+                return new Error(ErrorCode.CONNECTION_ERROR,
+                        "A connection error occured for '" + serviceName + "'; " + req.errorMessage());
+            default:
+                return new Error(ErrorCode.NETWORK_ERROR,
+                        "A network error occured for '" + serviceName + "'; " + req.errorMessage());
         }
+    }
+
+    final void deliverReply(SendContext ctx, Reply reply, Error error) {
         if (ctx.trace.shouldTrace(TraceLevel.SEND_RECEIVE)) {
             ctx.trace.trace(TraceLevel.SEND_RECEIVE,
                     "Reply (type " + reply.getType() + ") received at " + clientIdent + ".");
@@ -169,23 +196,27 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
 
         request.discardParameters(); // allow garbage collection of request parameters
 
+        deliverMessage(p, new ReplyContext(request, p.version));
+    }
+
+    final void deliverMessage(Params p, ReplyContext context) {
         // Make sure that the owner understands the protocol.
         Protocol protocol = net.getOwner().getProtocol(p.protocolName);
         if (protocol == null) {
-            replyError(request, p.version, p.traceLevel,
+            replyError(context, p.traceLevel,
                     new Error(ErrorCode.UNKNOWN_PROTOCOL,
                             "Protocol '" + p.protocolName + "' is not known by " + serverIdent + "."));
             return;
         }
         Routable routable = protocol.decode(p.version, p.payload);
         if (routable == null) {
-            replyError(request, p.version, p.traceLevel,
+            replyError(context, p.traceLevel,
                     new Error(ErrorCode.DECODE_ERROR,
                             "Protocol '" + protocol.getName() + "' failed to decode routable."));
             return;
         }
         if (routable instanceof Reply) {
-            replyError(request, p.version, p.traceLevel,
+            replyError(context, p.traceLevel,
                     new Error(ErrorCode.DECODE_ERROR,
                             "Payload decoded to a reply when expecting a message."));
             return;
@@ -194,7 +225,7 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
         if (p.route != null && p.route.length() > 0) {
             msg.setRoute(net.getRoute(p.route));
         }
-        msg.setContext(new ReplyContext(request, p.version));
+        msg.setContext(context);
         msg.pushHandler(this);
         msg.setRetryEnabled(p.retryEnabled);
         msg.setRetry(p.retry);
@@ -231,27 +262,25 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
                         "An error occured while encoding the reply."));
             }
         }
-        createResponse(ctx.request.returnValues(), reply, ctx.version, payload);
-        ctx.request.returnRequest();
+        ctx.returnReply(reply, payload);
     }
 
     /**
      * Send an error reply for a given request.
      *
-     * @param request    The JRT request to reply to.
-     * @param version    The version to serialize for.
+     * @param context    The context of the request to reply to.
      * @param traceLevel The trace level to set in the reply.
      * @param err        The error to reply with.
      */
-    private void replyError(Request request, Version version, int traceLevel, Error err) {
+    private void replyError(ReplyContext context, int traceLevel, Error err) {
         Reply reply = new EmptyReply();
-        reply.setContext(new ReplyContext(request, version));
+        reply.setContext(context);
         reply.getTrace().setLevel(traceLevel);
         reply.addError(err);
         handleReply(reply);
     }
 
-    private static class SendContext {
+    static class SendContext {
 
         final RoutingNode recipient;
         final Trace trace;
@@ -264,7 +293,8 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
         }
     }
 
-    private static class ReplyContext {
+    /** The context of a received message, through which its reply is returned */
+    class ReplyContext {
 
         final Request request;
         final Version version;
@@ -273,5 +303,11 @@ public abstract class RPCSend implements MethodHandler, ReplyHandler, RequestWai
             this.request = request;
             this.version = version;
         }
+
+        /** Returns the given reply, encoded to the given payload, to the sender */
+        void returnReply(Reply reply, byte[] payload) {
+            createResponse(request.returnValues(), reply, version, payload);
+            request.returnRequest();
+        }
     }
 }
@@ -8,6 +8,7 @@ import com.yahoo.jrt.DataValue;
 import com.yahoo.jrt.Int32Value;
 import com.yahoo.jrt.Int8Value;
 import com.yahoo.jrt.Method;
+import com.yahoo.jrt.MethodHandler;
 import com.yahoo.jrt.Request;
 import com.yahoo.jrt.Values;
 import com.yahoo.messagebus.EmptyReply;
@@ -23,16 +24,20 @@ import com.yahoo.slime.Inspector;
 import com.yahoo.slime.Slime;
 import com.yahoo.text.Utf8Array;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
- * Implements the request adapter for method "mbus.slime".
+ * Implements the request adapter for methods "mbus.slime" and "mbus.slimeBatch".
  *
  * @author baldersheim
  */
-public class RPCSendV2 extends RPCSend {
+public class RPCSendV2 extends RPCBatchingSend {
 
     private final static String METHOD_NAME = "mbus.slime";
     private final static String METHOD_PARAMS = "bixbix";
     private final static String METHOD_RETURN = "bixbix";
+    private final static String BATCH_METHOD_NAME = "mbus.slimeBatch";
     private final Compressor compressor = new Compressor(CompressionType.LZ4, 3, 0.90, 1024);
 
     @Override
@@ -56,6 +61,26 @@ public class RPCSendV2 extends RPCSend {
                 .returnDesc(5, "body_payload", "Slime encoded body payload.");
         return method;
     }
+
+    @Override
+    protected Method buildBatchMethod(MethodHandler handler) {
+        Method method = new Method(BATCH_METHOD_NAME, METHOD_PARAMS, METHOD_RETURN, handler);
+        method.methodDesc("Send multiple message bus requests and get a reply to each back.");
+        method.paramDesc(0, "header_encoding", "Encoding type of header.")
+                .paramDesc(1, "header_decodedSize", "Number of bytes after header decoding.")
+                .paramDesc(2, "header_payload", "Slime encoded header payload.")
+                .paramDesc(3, "body_encoding", "Encoding type of body.")
+                .paramDesc(4, "body_decoded_ize", "Number of bytes after body decoding.")
+                .paramDesc(5, "body_payload", "Slime encoded body payload, an array of messages.");
+        method.returnDesc(0, "header_encoding", "Encoding type of header.")
+                .returnDesc(1, "header_decoded_size", "Number of bytes after header decoding.")
+                .returnDesc(2, "header_payload", "Slime encoded header payload.")
+                .returnDesc(3, "body_encoding", "Encoding type of body.")
+                .returnDesc(4, "body_encoded_size", "Number of bytes after body decoding.")
+                .returnDesc(5, "body_payload", "Slime encoded body payload, an array of replies in message order.");
+        return method;
+    }
+
     private static final String VERSION_F = "version";
     private static final String ROUTE_F = "route";
     private static final String SESSION_F = "session";
@@ -76,26 +101,43 @@ public class RPCSendV2 extends RPCSend {
     protected Request encodeRequest(Version version, Route route, RPCServiceAddress address, Message msg,
                                     long timeRemaining, byte[] payload, int traceLevel)
     {
-
+        Slime slime = new Slime();
+        encodeMessage(slime.setObject(), version, route, address, msg, msg.getTimeRemaining(), payload, traceLevel);
         Request req = new Request(METHOD_NAME);
-        Values v = req.parameters();
-
-        v.add(new Int8Value(CompressionType.NONE.getCode()));
-        v.add(new Int32Value(0));
-        v.add(new DataValue(new byte[0]));
+        encode(slime, req.parameters());
+        return req;
+    }
 
+    @Override
+    protected Request encodeBatchRequest(List<BatchedMessage> messages) {
         Slime slime = new Slime();
-        Cursor root = slime.setObject();
+        Cursor array = slime.setArray();
+        for (BatchedMessage m : messages) {
+            encodeMessage(array.addObject(), m.version, m.route, m.address, m.msg, m.timeRemainingNow(), m.payload, m.traceLevel());
+        }
+        Request req = new Request(BATCH_METHOD_NAME);
+        encode(slime, req.parameters());
+        return req;
+    }
 
+    private static void encodeMessage(Cursor root, Version version, Route route, RPCServiceAddress address, Message msg,
+                                      long timeRemaining, byte[] payload, int traceLevel) {
         root.setString(VERSION_F, version.toUtf8().getBytes());
         root.setString(ROUTE_F, route.toString());
         root.setString(SESSION_F, address.getSessionName());
         root.setString(PROTOCOL_F, msg.getProtocol().toString());
         root.setBool(USERETRY_F, msg.getRetryEnabled());
         root.setLong(RETRY_F, msg.getRetry());
-        root.setLong(TIMEREMAINING_F, msg.getTimeRemaining());
+        root.setLong(TIMEREMAINING_F, timeRemaining);
         root.setLong(TRACELEVEL_F, traceLevel);
         root.setData(BLOB_F, payload);
+    }
+
+    /** Adds an empty header and the given slime as a compressed body to the given values */
+    private void encode(Slime slime, Values v) {
+        v.add(new Int8Value(CompressionType.NONE.getCode()));
+        v.add(new Int32Value(0));
+        v.add(new DataValue(new byte[0]));
 
         byte[] serializedSlime = BinaryFormat.encode(slime);
         Compressor.Compression compressionResult = compressor.compress(serializedSlime);
@@ -103,17 +145,32 @@ public class RPCSendV2 extends RPCSend {
         v.add(new Int8Value(compressionResult.type().getCode()));
         v.add(new Int32Value(compressionResult.uncompressedSize()));
         v.add(new DataValue(compressionResult.data()));
+    }
 
-        return req;
+    /** Returns the root of the slime in the compressed body of the given values */
+    private Inspector decode(Values v) {
+        CompressionType compression = CompressionType.valueOf(v.get(3).asInt8());
+        byte[] slimeBytes = compressor.decompress(v.get(5).asData(), compression, v.get(4).asInt32());
+        return BinaryFormat.decode(slimeBytes).get();
     }
 
     @Override
     protected Reply createReply(Values ret, String serviceName, Trace trace) {
-        CompressionType compression = CompressionType.valueOf(ret.get(3).asInt8());
-        byte[] slimeBytes = compressor.decompress(ret.get(5).asData(), compression, ret.get(4).asInt32());
-        Slime slime = BinaryFormat.decode(slimeBytes);
-        Inspector root = slime.get();
+        return decodeReply(decode(ret), serviceName, trace);
+    }
 
+    @Override
+    protected List<Reply> createBatchReplies(Values ret, List<String> serviceNames, List<Trace> traces) {
+        Inspector array = decode(ret);
+        int count = Math.min(array.entries(), serviceNames.size());
+        List<Reply> replies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            replies.add(decodeReply(array.entry(i), serviceNames.get(i), traces.get(i)));
+        }
+        return replies;
+    }
+
+    private Reply decodeReply(Inspector root, String serviceName, Trace trace) {
         Version version = new Version(new Utf8Array(root.field(VERSION_F).asUtf8()));
         byte[] payload = root.field(BLOB_F).asData();
 
@@ -150,10 +207,20 @@ public class RPCSendV2 extends RPCSend {
     }
 
     protected Params toParams(Values args) {
-        CompressionType compression = CompressionType.valueOf(args.get(3).asInt8());
-        byte[] slimeBytes = compressor.decompress(args.get(5).asData(), compression, args.get(4).asInt32());
-        Slime slime = BinaryFormat.decode(slimeBytes);
-        Inspector root = slime.get();
+        return toParams(decode(args));
+    }
+
+    @Override
+    protected List<Params> toBatchParams(Values args) {
+        Inspector array = decode(args);
+        List<Params> params = new ArrayList<>(array.entries());
+        for (int i = 0; i < array.entries(); i++) {
+            params.add(toParams(array.entry(i)));
+        }
+        return params;
+    }
+
+    private Params toParams(Inspector root) {
         Params p = new Params();
         p.version = new Version(new Utf8Array(root.field(VERSION_F).asUtf8()));
         p.route = root.field(ROUTE_F).asString();
@@ -169,13 +236,22 @@ public class RPCSendV2 extends RPCSend {
 
     @Override
     protected void createResponse(Values ret, Reply reply, Version version, byte [] payload) {
-        ret.add(new Int8Value(CompressionType.NONE.getCode()));
-        ret.add(new Int32Value(0));
-        ret.add(new DataValue(new byte[0]));
+        Slime slime = new Slime();
+        encodeReply(slime.setObject(), reply, version, payload);
+        encode(slime, ret);
+    }
 
+    @Override
+    protected void createBatchResponse(Values ret, List<EncodedReply> replies) {
         Slime slime = new Slime();
-        Cursor root = slime.setObject();
+        Cursor array = slime.setArray();
+        for (EncodedReply r : replies) {
+            encodeReply(array.addObject(), r.reply, r.version, r.payload);
+        }
+        encode(slime, ret);
+    }
 
+    private static void encodeReply(Cursor root, Reply reply, Version version, byte [] payload) {
         root.setString(VERSION_F, version.toUtf8().getBytes());
         root.setDouble(RETRYDELAY_F, reply.getRetryDelay());
         root.setString(PROTOCOL_F, reply.getProtocol().getBytes());
@@ -196,13 +272,6 @@ public class RPCSendV2 extends RPCSend {
                 }
             }
         }
-
-        byte[] serializedSlime = BinaryFormat.encode(slime);
-        Compressor.Compression compressionResult = compressor.compress(serializedSlime);
-
-        ret.add(new Int8Value(compressionResult.type().getCode()));
-        ret.add(new Int32Value(compressionResult.uncompressedSize()));
-        ret.add(new DataValue(compressionResult.data()));
     }
 
 }
@@ -30,6 +30,7 @@ public class RPCTarget implements RequestWaiter {
     private final Target target;
     private boolean targetInvoked = false;
     private Version version = null;
+    private volatile boolean acceptsBatches = true;
     private List<VersionHandler> versionHandlers = new LinkedList<>();
 
     /**
@@ -86,6 +87,21 @@ public class RPCTarget implements RequestWaiter {
         return ref.get();
     }
 
+    /**
+     * <p>Returns whether messages may be sent to this target in batches. This is
+     * true until a batch is rejected because the target does not know the batch
+     * method.</p>
+     *
+     * @return True if batches may be sent to this target.
+     */
+    boolean acceptsBatches() {
+        return acceptsBatches;
+    }
+
+    void setAcceptsBatches(boolean acceptsBatches) {
+        this.acceptsBatches = acceptsBatches;
+    }
+
     /**
      * <p>Requests the version of this target be passed to the given {@link
      * VersionHandler}. If the version is available, the handler is called
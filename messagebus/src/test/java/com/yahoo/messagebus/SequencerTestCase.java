@@ -4,8 +4,17 @@ package com.yahoo.messagebus;
 import com.yahoo.messagebus.test.SimpleMessage;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
@@ -104,6 +113,49 @@ public class SequencerTestCase {
         assertEquals(0, dst.size());
     }
 
+    @Test
+    public void testConcurrentSendAndReply() throws InterruptedException {
+        int threads = 8, messagesPerThread = 2000, ids = 16;
+        ExecutorService replier = Executors.newFixedThreadPool(4);
+        Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+        Map<String, Integer> lastSent = new ConcurrentHashMap<>(); // thread and id -> last message index sent
+        List<String> failures = new LinkedList<>();
+        CountDownLatch replies = new CountDownLatch(threads * messagesPerThread);
+        ReplyHandler counter = reply -> replies.countDown();
+        Sequencer seq = new Sequencer(msg -> {
+            OrderedMessage message = (OrderedMessage)msg;
+            if ( ! inFlight.add(message.getSequenceId()))
+                synchronized (failures) { failures.add("Two messages in flight for id " + message.getSequenceId()); }
+            Integer last = lastSent.put(message.thread + ":" + message.getSequenceId(), message.index);
+            if (last != null && last > message.index)
+                synchronized (failures) { failures.add("Message " + message.index + " sent after " + last); }
+            replier.execute(() -> {
+                Reply reply = new EmptyReply();
+                reply.swapState(msg);
+                inFlight.remove(message.getSequenceId());
+                reply.popHandler().handleReply(reply);
+            });
+        });
+
+        List<Thread> senders = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            senders.add(new Thread(() -> {
+                for (int i = 0; i < messagesPerThread; i++) {
+                    Message msg = new OrderedMessage(thread, i, i % ids);
+                    msg.pushHandler(counter);
+                    seq.handleMessage(msg);
+                }
+            }));
+        }
+        senders.forEach(Thread::start);
+        for (Thread sender : senders)
+            sender.join();
+        assertTrue(replies.await(60, TimeUnit.SECONDS));
+        replier.shutdown();
+        assertEquals(List.of(), failures);
+    }
+
     @SuppressWarnings("serial")
     private static class TestQueue extends LinkedList<Routable> implements ReplyHandler {
 
@@ -183,5 +235,27 @@ public class SequencerTestCase {
         }
     }
 
-}
+    private static class OrderedMessage extends SimpleMessage {
+
+        final int thread, index;
+        final long seqId;
+
+        OrderedMessage(int thread, int index, long seqId) {
+            super("foo");
+            this.thread = thread;
+            this.index = index;
+            this.seqId = seqId;
+        }
 
+        @Override
+        public boolean hasSequenceId() {
+            return true;
+        }
+
+        @Override
+        public long getSequenceId() {
+            return seqId;
+        }
+    }
+
+}
@@ -0,0 +1,191 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.messagebus.network.rpc;
+
+import com.yahoo.component.Version;
+import com.yahoo.jrt.ListenFailedException;
+import com.yahoo.jrt.slobrok.server.Slobrok;
+import com.yahoo.messagebus.DestinationSession;
+import com.yahoo.messagebus.DestinationSessionParams;
+import com.yahoo.messagebus.ErrorCode;
+import com.yahoo.messagebus.Message;
+import com.yahoo.messagebus.MessageBusParams;
+import com.yahoo.messagebus.Reply;
+import com.yahoo.messagebus.SourceSession;
+import com.yahoo.messagebus.SourceSessionParams;
+import com.yahoo.messagebus.network.Identity;
+import com.yahoo.messagebus.network.rpc.test.TestServer;
+import com.yahoo.messagebus.routing.Route;
+import com.yahoo.messagebus.test.Receptor;
+import com.yahoo.messagebus.test.SimpleMessage;
+import com.yahoo.messagebus.test.SimpleProtocol;
+import com.yahoo.messagebus.test.SimpleReply;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests sending messages in batches.
+ *
+ * @author agent
+ */
+public class BatchingTestCase {
+
+    private static final int messageCount = 100;
+
+    private Slobrok slobrok;
+    private TestServer srcServer, dstServer;
+    private SourceSession srcSession;
+    private DestinationSession dstSession;
+
+    @Before
+    public void setUp() throws ListenFailedException {
+        slobrok = new Slobrok();
+        dstServer = new TestServer(new MessageBusParams().addProtocol(new SimpleProtocol()),
+                                   new RPCNetworkParams().setIdentity(new Identity("dst"))
+                                                         .setSlobrokConfigId(TestServer.getSlobrokConfig(slobrok)));
+        dstSession = dstServer.mb.createDestinationSession(new DestinationSessionParams().setName("session")
+                                                                                         .setMessageHandler(new Receptor()));
+        srcServer = new TestServer(new MessageBusParams().addProtocol(new SimpleProtocol()),
+                                   new RPCNetworkParams().setSlobrokConfigId(TestServer.getSlobrokConfig(slobrok))
+                                                         .setMaxBatchMessages(16)
+                                                         .setMaxBatchDelay(0.01));
+        srcSession = srcServer.mb.createSourceSession(new SourceSessionParams().setTimeout(600.0)
+                                                                               .setThrottlePolicy(null)
+                                                                               .setReplyHandler(new Receptor()));
+        assertTrue(srcServer.waitSlobrok("dst/session", 1));
+    }
+
+    @After
+    public void tearDown() {
+        slobrok.stop();
+        dstSession.destroy();
+        dstServer.destroy();
+        srcSession.destroy();
+        srcServer.destroy();
+    }
+
+    @Test
+    public void requireThatBatchedMessagesAreRepliedToIndividually() {
+        assertSendAndReplyInAnyOrder();
+    }
+
+    @Test
+    public void requireThatMessagesAreSentOneByOneToTargetsWithoutBatchSupport() {
+        dstServer.net.setVersion(new Version(6, 148)); // Does not support batching
+        assertSendAndReplyInAnyOrder();
+    }
+
+    @Test
+    public void requireThatBatchesAreSentWhenMessagesAreFewerThanTheMaxBatchSize() {
+        assertTrue(srcSession.send(new SimpleMessage("single"), Route.parse("dst/session")).isAccepted());
+        Message msg = ((Receptor)dstSession.getMessageHandler()).getMessage(60);
+        assertNotNull(msg);
+        Reply reply = new SimpleReply("single");
+        reply.swapState(msg);
+        dstSession.reply(reply);
+        reply = ((Receptor)srcSession.getReplyHandler()).getReply(60);
+        assertNotNull(reply);
+        assertFalse(reply.hasErrors());
+        assertEquals("single", ((SimpleReply)reply).getValue());
+    }
+
+    @Test
+    public void requireThatEachMessageInABatchTimesOutOnItsOwn() {
+        SimpleMessage slow = new SimpleMessage("slow");
+        slow.setTimeRemaining(1000);
+        assertTrue(srcSession.send(slow, Route.parse("dst/session")).isAccepted());
+        assertTrue(srcSession.send(new SimpleMessage("fast"), Route.parse("dst/session")).isAccepted());
+
+        for (int i = 0; i < 2; i++) {
+            Message msg = ((Receptor)dstSession.getMessageHandler()).getMessage(60);
+            assertNotNull(msg);
+            if (((SimpleMessage)msg).getValue().equals("fast")) { // the slow message is never replied to
+                Reply reply = new SimpleReply("reply to fast");
+                reply.swapState(msg);
+                dstSession.reply(reply);
+            }
+        }
+
+        for (int i = 0; i < 2; i++) {
+            Reply reply = ((Receptor)srcSession.getReplyHandler()).getReply(60);
+            assertNotNull(reply);
+            if (((SimpleMessage)reply.getMessage()).getValue().equals("fast")) {
+                assertFalse(reply.hasErrors());
+                assertEquals("reply to fast", ((SimpleReply)reply).getValue());
+            }
+            else {
+                assertTrue(reply.hasErrors());
+                assertEquals(ErrorCode.TIMEOUT, reply.getError(0).getCode());
+            }
+        }
+    }
+
+    @Test
+    public void requireThatAMessageInABatchIsNotTimedOutByTheReceiverBeforeItsOwnDeadline() throws InterruptedException {
+        SimpleMessage early = new SimpleMessage("early");
+        early.setTimeRemaining(500);
+        assertTrue(srcSession.send(early, Route.parse("dst/session")).isAccepted());
+        assertTrue(srcSession.send(new SimpleMessage("late"), Route.parse("dst/session")).isAccepted());
+
+        Message late = null;
+        for (int i = 0; i < 2; i++) {
+            Message msg = ((Receptor)dstSession.getMessageHandler()).getMessage(60);
+            assertNotNull(msg);
+            if (((SimpleMessage)msg).getValue().equals("late")) // the early message is never replied to
+                late = msg;
+        }
+        assertNotNull(late);
+
+        Reply reply = ((Receptor)srcSession.getReplyHandler()).getReply(60);
+        assertNotNull(reply);
+        assertEquals("early", ((SimpleMessage)reply.getMessage()).getValue());
+        assertEquals(ErrorCode.TIMEOUT, reply.getError(0).getCode());
+
+        // Let the early message time out at the receiver as well, the late one should still get its reply
+        Thread.sleep(500);
+        Reply lateReply = new SimpleReply("reply to late");
+        lateReply.swapState(late);
+        dstSession.reply(lateReply);
+        reply = ((Receptor)srcSession.getReplyHandler()).getReply(60);
+        assertNotNull(reply);
+        assertFalse(reply.hasErrors());
+        assertEquals("reply to late", ((SimpleReply)reply).getValue());
+    }
+
+    /** Sends many messages and replies to them in reverse order, and checks that each reply reaches its sender */
+    private void assertSendAndReplyInAnyOrder() {
+        for (int i = 0; i < messageCount; i++) {
+            assertTrue(srcSession.send(new SimpleMessage("message " + i), Route.parse("dst/session")).isAccepted());
+        }
+
+        List<Message> received = new ArrayList<>();
+        for (int i = 0; i < messageCount; i++) {
+            Message msg = ((Receptor)dstSession.getMessageHandler()).getMessage(60);
+            assertNotNull(msg);
+            received.add(msg);
+        }
+        Collections.reverse(received);
+        for (Message msg : received) {
+            Reply reply = new SimpleReply("reply to " + ((SimpleMessage)msg).getValue());
+            reply.swapState(msg);
+            dstSession.reply(reply);
+        }
+
+        for (int i = 0; i < messageCount; i++) {
+            Reply reply = ((Receptor)srcSession.getReplyHandler()).getReply(60);
+            assertNotNull(reply);
+            assertFalse(reply.hasErrors());
+            assertEquals("reply to " + ((SimpleMessage)reply.getMessage()).getValue(), ((SimpleReply)reply).getValue());
+        }
+    }
+
+}
@@ -0,0 +1,220 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.models.evaluation;
+
+import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * An evaluator which evaluates a function over many rows of arguments in one call, for example to score
+ * many hits with the same model. Each argument is bound either to one value per row, or to a single value
+ * used in all rows. All rows are evaluated in the same context, so the cost of setting up an evaluation
+ * is paid once per evaluator rather than once per row.
+ *
+ * An evaluator may be used for any number of evaluations, rebinding arguments between them,
+ * but it must be used by a single thread only.
+ *
+ * Usage:
+ * <code>List&lt;Tensor&gt; results = model.batchEvaluatorOf("myFunction").bind("foo", fooValues).bind("bar", barValue).evaluate()</code>
+ *
+ * @author agent
+ */
+// This wraps all access to the context and the ranking expression to avoid incorrect usage
+public class BatchFunctionEvaluator {
+
+    private final ExpressionFunction function;
+    private final LazyArrayContext context;
+
+    /** The values bound to each argument, in each row, or once for all rows, by argument name */
+    private final Map<String, Binding> bindings = new LinkedHashMap<>();
+
+    BatchFunctionEvaluator(ExpressionFunction function, LazyArrayContext context) {
+        this.function = function;
+        this.context = context;
+    }
+
+    /**
+     * Binds the given variable referred in this expression to the given value in all rows.
+     *
+     * @param name the variable to bind
+     * @param value the value this becomes bound to
+     * @return this for chaining
+     */
+    public BatchFunctionEvaluator bind(String name, Tensor value) {
+        requireAssignable(name, value.type(), requireArgumentType(name));
+        return bind(name, new Binding(context.getIndex(name), new TensorValue(value).freeze()));
+    }
+
+    /**
+     * Binds the given variable referred in this expression to the given value in all rows.
+     * This is equivalent to <code>bind(name, Tensor.Builder.of(TensorType.empty).cell(value).build())</code>
+     *
+     * @param name the variable to bind
+     * @param value the value this becomes bound to
+     * @return this for chaining
+     */
+    public BatchFunctionEvaluator bind(String name, double value) {
+        return bind(name, Tensor.Builder.of(TensorType.empty).cell(value).build());
+    }
+
+    /**
+     * Binds the given variable referred in this expression to one value for each row.
+     *
+     * @param name the variable to bind
+     * @param values the value this becomes bound to in each row
+     * @return this for chaining
+     */
+    public BatchFunctionEvaluator bind(String name, List<Tensor> values) {
+        TensorType requiredType = requireArgumentType(name);
+        Value[] rows = new Value[values.size()];
+        for (int i = 0; i < rows.length; i++) {
+            requireAssignable(name, values.get(i).type(), requiredType);
+            rows[i] = new TensorValue(values.get(i)).freeze();
+        }
+        return bind(name, new Binding(context.getIndex(name), rows));
+    }
+
+    /**
+     * Binds the given variable referred in this expression to one value for each row.
+     *
+     * @param name the variable to bind
+     * @param values the value this becomes bound to in each row
+     * @return this for chaining
+     */
+    public BatchFunctionEvaluator bind(String name, double[] values) {
+        requireAssignable(name, TensorType.empty, requireArgumentType(name));
+        Value[] rows = new Value[values.length];
+        for (int i = 0; i < rows.length; i++)
+            rows[i] = DoubleValue.frozen(values[i]);
+        return bind(name, new Binding(context.getIndex(name), rows));
+    }
+
+    private BatchFunctionEvaluator bind(String name, Binding binding) {
+        bindings.put(name, binding);
+        return this;
+    }
+
+    /**
+     * Sets the default value to use for variables which are not bound
+     *
+     * @param value the default value
+     * @return this for chaining
+     */
+    public BatchFunctionEvaluator setMissingValue(Tensor value) {
+        context.setMissingValue(value);
+        return this;
+    }
+
+    /**
+     * Sets the default value to use for variables which are not bound
+     *
+     * @param value the default value
+     * @return this for chaining
+     */
+    public BatchFunctionEvaluator setMissingValue(double value) {
+        return setMissingValue(Tensor.Builder.of(TensorType.empty).cell(value).build());
+    }
+
+    /**
+     * Evaluates the function for each row of the arguments bound.
+     * The number of rows is the number of values bound to the arguments bound to a value per row,
+     * which must be the same for all such arguments, or 1 if all arguments are bound to a single value.
+     *
+     * @return the value of the function in each row, in row order
+     * @throws IllegalStateException if an argument is not bound, or arguments are bound to different numbers of rows
+     */
+    public List<Tensor> evaluate() {
+        for (Map.Entry<String, TensorType> argument : function.argumentTypes().entrySet()) {
+            if ( ! bindings.containsKey(argument.getKey()))
+                throw new IllegalStateException("Argument '" + argument.getKey() +
+                                                "' must be bound to a value of type " + argument.getValue());
+        }
+        int rows = rows();
+        for (Binding binding : bindings.values()) {
+            if (binding.isConstant())
+                context.put(binding.index, binding.values[0]);
+        }
+
+        List<Tensor> results = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            for (Binding binding : bindings.values()) {
+                if ( ! binding.isConstant())
+                    context.put(binding.index, binding.values[row]);
+            }
+            context.clearComputedValues();
+            results.add(function.getBody().evaluate(context).asTensor());
+        }
+        return results;
+    }
+
+    /** Returns the function evaluated by this */
+    public ExpressionFunction function() { return function; }
+
+    private int rows() {
+        int rows = -1;
+        String rowsArgument = null;
+        for (Map.Entry<String, Binding> binding : bindings.entrySet()) {
+            if (binding.getValue().isConstant()) continue;
+            int bindingRows = binding.getValue().values.length;
+            if (rows >= 0 && bindingRows != rows)
+                throw new IllegalStateException("Argument '" + binding.getKey() + "' is bound to " + bindingRows +
+                                                " values, but '" + rowsArgument + "' is bound to " + rows);
+            rows = bindingRows;
+            rowsArgument = binding.getKey();
+        }
+        return rows >= 0 ? rows : 1;
+    }
+
+    private TensorType requireArgumentType(String name) {
+        TensorType requiredType = function.argumentTypes().get(name);
+        if (requiredType == null)
+            throw new IllegalArgumentException("'" + name + "' is not a valid argument in " + function +
+                                               ". Expected arguments: " + function.argumentTypes().entrySet().stream()
+                                                                                  .map(e -> e.getKey() + ": " + e.getValue())
+                                                                                  .collect(Collectors.joining(", ")));
+        return requiredType;
+    }
+
+    private void requireAssignable(String name, TensorType type, TensorType requiredType) {
+        if ( ! type.isAssignableTo(requiredType))
+            throw new IllegalArgumentException("'" + name + "' must be of type " + requiredType + ", not " + type);
+    }
+
+    /** The values bound to an argument: Either one per row, or a single one used in all rows */
+    private static class Binding {
+
+        /** The index of the argument in the context */
+        final int index;
+
+        final Value[] values;
+
+        private final boolean constant;
+
+        /** Creates a binding to a single value used in all rows */
+        Binding(int index, Value value) {
+            this.index = index;
+            this.values = new Value[] { value };
+            this.constant = true;
+        }
+
+        /** Creates a binding to one value per row */
+        Binding(int index, Value[] values) {
+            this.index = index;
+            this.values = values;
+            this.constant = false;
+        }
+
+        boolean isConstant() { return constant; }
+
+    }
+
+}
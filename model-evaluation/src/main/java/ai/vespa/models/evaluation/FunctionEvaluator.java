@@ -6,12 +6,13 @@ import com.yahoo.searchlib.rankingexpression.evaluation.StringValue;
 import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.ParallelEvaluation;
 
 import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
- * An evaluator which can be used to evaluate a single function once.
+ * An evaluator which can be used to evaluate a single function once, or more times if it is reset in between.
  *
  * @author bratseth
  */
@@ -99,6 +100,20 @@ public class FunctionEvaluator {
         return setMissingValue(Tensor.Builder.of(TensorType.empty).cell(value).build());
     }
 
+    /**
+     * Sets the settings to use to evaluate tensor functions over many cells in this function on multiple threads.
+     * Parallel evaluation is disabled by default.
+     *
+     * @param parallelEvaluation the parallel evaluation settings, or null to evaluate on the calling thread only
+     * @return this for chaining
+     */
+    public FunctionEvaluator setParallelEvaluation(ParallelEvaluation parallelEvaluation) {
+        if (evaluated)
+            throw new IllegalStateException("Cannot change parallel evaluation in a used evaluator");
+        context.setParallelEvaluation(parallelEvaluation);
+        return this;
+    }
+
     public Tensor evaluate() {
         for (Map.Entry<String, TensorType> argument : function.argumentTypes().entrySet()) {
             if (context.isMissing(argument.getKey()))
@@ -113,6 +128,18 @@ public class FunctionEvaluator {
         return function.getBody().evaluate(context).asTensor();
     }
 
+    /**
+     * Unbinds all arguments and restores the default settings of this, such that it can be used
+     * for another evaluation. This is much cheaper than creating a new evaluator.
+     *
+     * @return this for chaining
+     */
+    public FunctionEvaluator reset() {
+        context.reset();
+        evaluated = false;
+        return this;
+    }
+
     /** Returns the function evaluated by this */
     public ExpressionFunction function() { return function; }
 
@@ -0,0 +1,84 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.models.evaluation;
+
+import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of evaluators of a single function, which avoids creating a new evaluator for each evaluation.
+ * Evaluators are lent out by {@link #acquire} and must be given back by {@link #release} when the
+ * result is evaluated. Released evaluators are reset and kept for reuse, so the pool holds as many
+ * evaluators as have been in use concurrently, up to a max size. Evaluators released to a full pool are dropped.
+ *
+ * Usage:
+ * <code>
+ * FunctionEvaluator evaluator = pool.acquire();
+ * try {
+ *     Tensor result = evaluator.bind("foo", value).bind("bar", value).evaluate();
+ * }
+ * finally {
+ *     pool.release(evaluator);
+ * }
+ * </code>
+ *
+ * This is thread safe.
+ *
+ * @author agent
+ */
+public class FunctionEvaluatorPool {
+
+    /** The max number of evaluators kept for reuse in a pool */
+    static final int maxSize = 64;
+
+    private final ExpressionFunction function;
+
+    /** The context all evaluators of this are copies of. This is never modified. */
+    private final LazyArrayContext prototype;
+
+    private final Deque<FunctionEvaluator> evaluators = new ConcurrentLinkedDeque<>();
+
+    /** The number of evaluators in the deque, which is not counted by the deque itself in constant time */
+    private final AtomicInteger size = new AtomicInteger(0);
+
+    FunctionEvaluatorPool(ExpressionFunction function, LazyArrayContext prototype) {
+        this.function = function;
+        this.prototype = prototype;
+    }
+
+    /**
+     * Returns an evaluator for the exclusive use of the caller until it is released.
+     * This is an evaluator previously released to this if there is any, and a new one otherwise.
+     */
+    public FunctionEvaluator acquire() {
+        FunctionEvaluator evaluator = evaluators.pollLast();
+        if (evaluator != null) {
+            size.decrementAndGet();
+            return evaluator;
+        }
+        return new FunctionEvaluator(function, prototype.copy());
+    }
+
+    /**
+     * Gives an evaluator returned by {@link #acquire} back to this. The evaluator must not be used after this is called.
+     * The evaluator is kept for reuse unless this already holds its max size of evaluators.
+     *
+     * @throws IllegalArgumentException if the evaluator is not of the function of this pool
+     */
+    public void release(FunctionEvaluator evaluator) {
+        if (evaluator.function() != function)
+            throw new IllegalArgumentException("Cannot release an evaluator of " + evaluator.function() +
+                                               " to a pool of evaluators of " + function);
+        if (size.incrementAndGet() > maxSize) {
+            size.decrementAndGet();
+            return;
+        }
+        evaluators.addLast(evaluator.reset());
+    }
+
+    /** Returns the function evaluated by the evaluators of this */
+    public ExpressionFunction function() { return function; }
+
+}
@@ -106,6 +106,21 @@ public final class LazyArrayContext extends Context implements ContextIndex {
         return requireIndexOf(name);
     }
 
+    /**
+     * Returns whether the value at this index is an argument of a function declaring it a scalar.
+     * Scalar arguments may be bound to doubles or tensors without dimensions.
+     */
+    @Override
+    public boolean isScalar(int index) {
+        return indexedBindings.isScalar(index);
+    }
+
+    /** Returns the name to index map shared by the copies of this, if unbound scalar arguments will be scalars */
+    @Override
+    public Object indexLayout() {
+        return indexedBindings.indexLayout(this);
+    }
+
     @Override
     public int size() {
         return indexedBindings.names().size();
@@ -133,6 +148,20 @@ public final class LazyArrayContext extends Context implements ContextIndex {
         return indexedBindings.missingValue;
     }
 
+    /** Forgets the values computed by the functions bound in this, such that this can be evaluated again */
+    void clearComputedValues() {
+        indexedBindings.clearComputedValues();
+    }
+
+    /**
+     * Returns this to the state of a fresh copy of its prototype: Arguments are unbound, computed values
+     * are forgotten, and the missing value and parallel evaluation settings are the defaults.
+     */
+    void reset() {
+        indexedBindings.reset();
+        setParallelEvaluation(null);
+    }
+
     /**
      * Creates a copy of this context suitable for evaluating against the same ranking expression
      * in a different thread or for re-binding free variables.
@@ -152,18 +181,31 @@ public final class LazyArrayContext extends Context implements ContextIndex {
         /** The current values set */
         private final Value[] values;
 
+        /** The indexes of the arguments in values */
+        private final int[] argumentIndexes;
+
+        /** Whether the value at each index is declared to be a scalar */
+        private final boolean[] scalars;
+
         /** The object instance which encodes "no value is set". The actual value of this is never used. */
         private static final Value missing = new DoubleValue(Double.NaN).freeze();
 
+        /** The default value to return for lookups where no value is set */
+        private static final Value defaultMissingValue = new DoubleValue(Double.NaN).freeze();
+
         /** The value to return for lookups where no value is set (default: NaN) */
-        private Value missingValue = new DoubleValue(Double.NaN).freeze();
+        private Value missingValue = defaultMissingValue;
 
         private IndexedBindings(ImmutableMap<String, Integer> nameToIndex,
                                 Value[] values,
-                                ImmutableSet<String> arguments) {
+                                ImmutableSet<String> arguments,
+                                int[] argumentIndexes,
+                                boolean[] scalars) {
             this.nameToIndex = nameToIndex;
             this.values = values;
             this.arguments = arguments;
+            this.argumentIndexes = argumentIndexes;
+            this.scalars = scalars;
         }
 
         /**
@@ -189,6 +231,15 @@ public final class LazyArrayContext extends Context implements ContextIndex {
             for (String variable : bindTargets)
                 nameToIndexBuilder.put(variable, i++);
             nameToIndex = nameToIndexBuilder.build();
+            argumentIndexes = arguments.stream().mapToInt(nameToIndex::get).toArray();
+
+            scalars = new boolean[values.length];
+            if ( ! function.getName().startsWith(Model.INTERMEDIATE_OPERATION_FUNCTION_PREFIX)) { // no type info
+                for (String argument : arguments) {
+                    TensorType type = function.argumentTypes().get(argument);
+                    scalars[nameToIndex.get(argument)] = type == null || type.rank() == 0; // scalar types may be omitted
+                }
+            }
 
             // 2. Bind the bind targets
             for (Constant constant : constants) {
@@ -258,6 +309,26 @@ public final class LazyArrayContext extends Context implements ContextIndex {
             values[index] = value;
         }
 
+        boolean isScalar(int index) { return scalars[index]; }
+
+        Object indexLayout(LazyArrayContext owner) {
+            return missingValue.type().rank() == 0 ? nameToIndex : owner;
+        }
+
+        void clearComputedValues() {
+            for (Value value : values) {
+                if (value instanceof LazyValue)
+                    ((LazyValue)value).clearComputedValue();
+            }
+        }
+
+        void reset() {
+            for (int index : argumentIndexes)
+                values[index] = missing;
+            clearComputedValues();
+            missingValue = defaultMissingValue;
+        }
+
         Set<String> names() { return nameToIndex.keySet(); }
         Set<String> arguments() { return arguments; }
         Integer indexOf(String name) { return nameToIndex.get(name); }
@@ -266,7 +337,7 @@ public final class LazyArrayContext extends Context implements ContextIndex {
             Value[] valueCopy = new Value[values.length];
             for (int i = 0; i < values.length; i++)
                 valueCopy[i] = values[i] instanceof LazyValue ? ((LazyValue) values[i]).copyFor(context) : values[i];
-            return new IndexedBindings(nameToIndex, valueCopy, arguments);
+            return new IndexedBindings(nameToIndex, valueCopy, arguments, argumentIndexes, scalars);
         }
 
     }
@@ -147,6 +147,11 @@ class LazyValue extends Value {
         return computedValue().hashCode();
     }
 
+    /** Forgets the computed value of this, such that it is computed again from the current context when requested */
+    void clearComputedValue() {
+        computedValue = null;
+    }
+
     LazyValue copyFor(Context context) {
         return new LazyValue(this.function, context, model);
     }
@@ -16,6 +16,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -27,7 +28,7 @@ import java.util.stream.Collectors;
 public class Model {
 
     /** The prefix generated by mode-integration/../IntermediateOperation */
-    private final static String INTERMEDIATE_OPERATION_FUNCTION_PREFIX = "imported_ml_function_";
+    final static String INTERMEDIATE_OPERATION_FUNCTION_PREFIX = "imported_ml_function_";
 
     private final String name;
 
@@ -43,6 +44,9 @@ public class Model {
     /** Context prototypes, indexed by function name (as all invocations of the same function share the same context prototype) */
     private final ImmutableMap<String, LazyArrayContext> contextPrototypes;
 
+    /** Evaluator pools, indexed by function name, created on first request */
+    private final Map<String, FunctionEvaluatorPool> evaluatorPools = new ConcurrentHashMap<>();
+
     private final ExpressionOptimizer expressionOptimizer = new ExpressionOptimizer();
 
     /** Programmatically create a model containing functions without constant of function references only */
@@ -172,22 +176,55 @@ public class Model {
      *              by dot.
      * @throws IllegalArgumentException if the function is not present, or not uniquely identified by the names given
      */
-    public FunctionEvaluator evaluatorOf(String ... names) {  // TODO: Parameter overloading?
+    public FunctionEvaluator evaluatorOf(String ... names) {
+        return evaluatorOf(resolveFunction(names));
+    }
+
+    /**
+     * Returns an evaluator which can be used to evaluate the given function over many rows of arguments
+     * in a single thread, any number of times.
+     *
+     * Usage:
+     * <code>List&lt;Tensor&gt; results = model.batchEvaluatorOf("myFunction").bind("foo", values).bind("bar", value).evaluate()</code>
+     *
+     * @param names the names identifying the function, as in {@link #evaluatorOf}
+     * @throws IllegalArgumentException if the function is not present, or not uniquely identified by the names given
+     */
+    public BatchFunctionEvaluator batchEvaluatorOf(String ... names) {
+        ExpressionFunction function = resolveFunction(names);
+        return new BatchFunctionEvaluator(function, requireContextPrototype(function.getName()).copy());
+    }
+
+    /**
+     * Returns a pool of evaluators of the given function, which may be shared by any number of threads.
+     * This is the cheapest way to evaluate a function many times. The same pool is returned on each call.
+     *
+     * @param names the names identifying the function, as in {@link #evaluatorOf}
+     * @throws IllegalArgumentException if the function is not present, or not uniquely identified by the names given
+     */
+    public FunctionEvaluatorPool evaluatorPoolOf(String ... names) {
+        ExpressionFunction function = resolveFunction(names);
+        return evaluatorPools.computeIfAbsent(function.getName(),
+                                              name -> new FunctionEvaluatorPool(function, requireContextPrototype(name)));
+    }
+
+    /** Returns the function identified by the given names, as described in {@link #evaluatorOf} */
+    private ExpressionFunction resolveFunction(String ... names) {  // TODO: Parameter overloading?
         if (names.length == 0) {
             if (functions.size() > 1)
                 throwUndeterminedFunction("More than one function is available in " + this + ", but no name is given");
-            return evaluatorOf(functions.get(0));
+            return functions.get(0);
         }
         else if (names.length == 1) {
             String name = names[0];
             ExpressionFunction function = function(name);
-            if (function != null) return evaluatorOf(function);
+            if (function != null) return function;
 
             // Check if the name is a signature
             List<ExpressionFunction> functionsStartingByName =
                     functions.stream().filter(f -> f.getName().startsWith(name + ".")).collect(Collectors.toList());
             if (functionsStartingByName.size() == 1)
-                return evaluatorOf(functionsStartingByName.get(0));
+                return functionsStartingByName.get(0);
             if (functionsStartingByName.size() > 1)
                 throwUndeterminedFunction("Multiple functions start by '" + name + "' in " + this);
 
@@ -195,19 +232,19 @@ public class Model {
             List<ExpressionFunction> functionsEndingByName =
                     functions.stream().filter(f -> f.getName().endsWith("." + name)).collect(Collectors.toList());
             if (functionsEndingByName.size() == 1)
-                return evaluatorOf(functionsEndingByName.get(0));
+                return functionsEndingByName.get(0);
             if (functionsEndingByName.size() > 1)
                 throwUndeterminedFunction("Multiple functions called '" + name + "' in " + this);
 
             // To handle TensorFlow conversion to ONNX
             if (name.startsWith("serving_default")) {
-                return evaluatorOf("default" + name.substring("serving_default".length()));
+                return resolveFunction("default" + name.substring("serving_default".length()));
             }
 
             throwUndeterminedFunction("No function '" + name + "' in " + this);
         }
         else if (names.length == 2) {
-            return evaluatorOf(names[0] + "." + names[1]);
+            return resolveFunction(names[0] + "." + names[1]);
         }
         throw new IllegalArgumentException("No more than 2 names can be given when choosing a function, got " +
                                            Arrays.toString(names));
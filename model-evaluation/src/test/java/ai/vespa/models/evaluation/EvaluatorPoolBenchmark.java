@@ -0,0 +1,82 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.models.evaluation;
+
+import com.yahoo.config.subscription.ConfigGetter;
+import com.yahoo.config.subscription.FileSource;
+import com.yahoo.filedistribution.fileacquirer.MockFileAcquirer;
+import com.yahoo.path.Path;
+import com.yahoo.vespa.config.search.RankProfilesConfig;
+import com.yahoo.vespa.config.search.core.RankingConstantsConfig;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Microbenchmark comparing the time and memory allocated per evaluation of a small function
+ * when creating a new evaluator for each evaluation, and when reusing evaluators from a pool.
+ *
+ * @author agent
+ */
+public class EvaluatorPoolBenchmark {
+
+    private static final String configDirectory = "src/test/resources/config/rankexpression/";
+
+    public static void main(String[] args) {
+        ModelsEvaluator models = createModels();
+        int iterations = 100 * 1000;
+        for (int i = 0; i < 5; i++) {
+            benchmark("New evaluators   ", iterations, () -> evaluateWithNewEvaluators(models, iterations));
+            benchmark("Pooled evaluators", iterations, () -> evaluateWithPooledEvaluators(models, iterations));
+        }
+    }
+
+    private static double evaluateWithNewEvaluators(ModelsEvaluator models, int iterations) {
+        double sum = 0;
+        for (int i = 0; i < iterations; i++) {
+            FunctionEvaluator evaluator = models.evaluatorOf("macros", "secondphase");
+            sum += evaluator.bind("match", i).bind("rankBoost", 5).evaluate().asDouble();
+        }
+        return sum;
+    }
+
+    private static double evaluateWithPooledEvaluators(ModelsEvaluator models, int iterations) {
+        FunctionEvaluatorPool pool = models.evaluatorPoolOf("macros", "secondphase");
+        double sum = 0;
+        for (int i = 0; i < iterations; i++) {
+            FunctionEvaluator evaluator = pool.acquire();
+            try {
+                sum += evaluator.bind("match", i).bind("rankBoost", 5).evaluate().asDouble();
+            }
+            finally {
+                pool.release(evaluator);
+            }
+        }
+        return sum;
+    }
+
+    private static void benchmark(String name, int iterations, Evaluation evaluation) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+
+        long startBytes = threads.getThreadAllocatedBytes(threadId);
+        long startTime = System.nanoTime();
+        double result = evaluation.run();
+        long time = System.nanoTime() - startTime;
+        long bytes = threads.getThreadAllocatedBytes(threadId) - startBytes;
+        System.out.println(name + ": " + time / iterations + " ns and " + bytes / iterations + " bytes allocated " +
+                           "per evaluation (result " + result + ")");
+    }
+
+    private static ModelsEvaluator createModels() {
+        Path configDir = Path.fromString(configDirectory);
+        RankProfilesConfig config = new ConfigGetter<>(new FileSource(configDir.append("rank-profiles.cfg").toFile()),
+                                                       RankProfilesConfig.class).getConfig("");
+        RankingConstantsConfig constantsConfig = new ConfigGetter<>(new FileSource(configDir.append("ranking-constants.cfg").toFile()),
+                                                                    RankingConstantsConfig.class).getConfig("");
+        return new ModelsEvaluator(config, constantsConfig, MockFileAcquirer.returnFile(null));
+    }
+
+    private interface Evaluation {
+        double run();
+    }
+
+}
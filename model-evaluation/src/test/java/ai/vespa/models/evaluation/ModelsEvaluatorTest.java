@@ -7,6 +7,8 @@ import com.yahoo.filedistribution.fileacquirer.MockFileAcquirer;
 import com.yahoo.path.Path;
 import com.yahoo.searchlib.rankingexpression.ExpressionFunction;
 import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.scalaroptimization.CompiledScalarNode;
+import com.yahoo.searchlib.rankingexpression.rule.ArithmeticNode;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.vespa.config.search.RankProfilesConfig;
@@ -15,9 +17,15 @@ import com.yahoo.yolean.Exceptions;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -60,6 +68,89 @@ public class ModelsEvaluatorTest {
         }
     }
 
+    @Test
+    public void testEvaluatorPool() {
+        ModelsEvaluator models = createModels("src/test/resources/config/rankexpression/");
+        FunctionEvaluatorPool pool = models.evaluatorPoolOf("macros", "secondphase");
+        assertSame(pool, models.evaluatorPoolOf("macros", "secondphase"));
+
+        FunctionEvaluator function = pool.acquire();
+        function.bind("match", 3);
+        function.bind("rankBoost", 5);
+        assertEquals(32.0, function.evaluate().asDouble(), delta);
+        pool.release(function);
+
+        FunctionEvaluator reused = pool.acquire();
+        assertSame(function, reused);
+        assertNotSame(reused, pool.acquire());
+        assertTrue(Double.isNaN(reused.evaluate().asDouble())); // bindings are reset
+        reused.reset();
+        reused.bind("match", 1);
+        reused.bind("rankBoost", 2);
+        assertEquals(12.0, reused.evaluate().asDouble(), delta);
+    }
+
+    @Test
+    public void testEvaluatorPoolIsBounded() {
+        ModelsEvaluator models = createModels("src/test/resources/config/rankexpression/");
+        FunctionEvaluatorPool pool = models.evaluatorPoolOf("macros", "secondphase");
+
+        List<FunctionEvaluator> released = new ArrayList<>();
+        for (int i = 0; i < FunctionEvaluatorPool.maxSize + 1; i++)
+            released.add(pool.acquire());
+        released.forEach(pool::release);
+
+        for (int i = 0; i < FunctionEvaluatorPool.maxSize; i++)
+            assertSame(released.get(FunctionEvaluatorPool.maxSize - 1 - i), pool.acquire());
+        assertFalse(released.contains(pool.acquire()));
+    }
+
+    @Test
+    public void testBatchEvaluation() {
+        ModelsEvaluator models = createModels("src/test/resources/config/rankexpression/");
+        BatchFunctionEvaluator function = models.batchEvaluatorOf("macros", "secondphase");
+        function.bind("match", new double[] { 3, 1, 0 });
+        function.bind("rankBoost", 5);
+        assertEquals(List.of(32.0, 24.0, 20.0), asDoubles(function.evaluate()));
+
+        // Rebind and evaluate again
+        function.bind("rankBoost", new double[] { 1, 2, 3 });
+        assertEquals(List.of(16.0, 12.0, 12.0), asDoubles(function.evaluate()));
+
+        function.bind("match", new double[] { 1, 2 });
+        try {
+            function.evaluate();
+        }
+        catch (IllegalStateException e) {
+            assertEquals("Argument 'rankBoost' is bound to 3 values, but 'match' is bound to 2",
+                         Exceptions.toMessageString(e));
+        }
+    }
+
+    @Test
+    public void testBatchEvaluationOfTensors() {
+        List<ExpressionFunction> functions = new ArrayList<>();
+        ExpressionFunction function = new ExpressionFunction("test", RankingExpression.from("sum(arg1 * arg2)"));
+        function = function.withArgument("arg1", TensorType.fromSpec("tensor(d0[2])"));
+        function = function.withArgument("arg2", TensorType.fromSpec("tensor(d0[2])"));
+        functions.add(function);
+        Model model = new Model("test-model", functions);
+
+        BatchFunctionEvaluator evaluator = model.batchEvaluatorOf("test");
+        evaluator.bind("arg1", Tensor.from(TensorType.fromSpec("tensor(d0[2])"), "[1.0, 2.0]"));
+        evaluator.bind("arg2", List.of(Tensor.from(TensorType.fromSpec("tensor(d0[2])"), "[1.0, 0.0]"),
+                                       Tensor.from(TensorType.fromSpec("tensor(d0[2])"), "[3.0, 4.0]")));
+        assertEquals(List.of(1.0, 11.0), asDoubles(evaluator.evaluate()));
+
+        try {
+            evaluator.bind("arg2", List.of(Tensor.from(TensorType.fromSpec("tensor(d1[2])"), "[1.0, 0.0]")));
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals("'arg2' must be of type tensor(d0[2]), not tensor(d1[2])",
+                         Exceptions.toMessageString(e));
+        }
+    }
+
     @Test
     public void testBindingValidation() {
         List<ExpressionFunction> functions = new ArrayList<>();
@@ -122,6 +213,47 @@ public class ModelsEvaluatorTest {
 
     }
 
+    @Test
+    public void testScalarArgumentsAreCompiled() {
+        ModelsEvaluator models = createModels("src/test/resources/config/rankexpression/");
+        FunctionEvaluator function = models.evaluatorOf("macros", "fourtimessum"); // 4 * (var1 + var2)
+        assertTrue(function.function().getBody().getRoot() instanceof CompiledScalarNode);
+        CompiledScalarNode compiled = (CompiledScalarNode)function.function().getBody().getRoot();
+        assertTrue(compiled.isCompiledFor(function.context()));
+        assertTrue(compiled.isCompiledFor(models.evaluatorPoolOf("macros", "fourtimessum").acquire().context()));
+        function.bind("var1", 3);
+        function.bind("var2", 5);
+        assertEquals(32.0, function.evaluate().asDouble(), delta);
+
+        // Unbound arguments may take a missing value which is not a scalar
+        FunctionEvaluator tensorMissing = models.evaluatorOf("macros", "fourtimessum");
+        tensorMissing.setMissingValue(Tensor.from("tensor(x[2]):[1.0, 2.0]"));
+        assertFalse(compiled.isCompiledFor(tensorMissing.context()));
+    }
+
+    @Test
+    public void testTensorArgumentsAreNotCompiled() {
+        ExpressionFunction function = new ExpressionFunction("test", RankingExpression.from("if (a > b, a * b, 0) + (a * t)"));
+        function = function.withArgument("t", TensorType.fromSpec("tensor(x[2])"));
+        Map<FunctionReference, ExpressionFunction> functions = new LinkedHashMap<>();
+        functions.put(FunctionReference.fromName("test"), function);
+        Model model = new Model("test-model", functions, new LinkedHashMap<>(functions), List.of());
+
+        FunctionEvaluator evaluator = model.evaluatorOf("test");
+        ArithmeticNode root = (ArithmeticNode)evaluator.function().getBody().getRoot();
+        assertTrue(root.children().get(0) instanceof CompiledScalarNode);
+        assertFalse(root.children().get(1) instanceof CompiledScalarNode);
+
+        evaluator.bind("a", 3);
+        evaluator.bind("b", 2);
+        evaluator.bind("t", Tensor.from("tensor(x[2]):[1.0, 2.0]"));
+        assertEquals(Tensor.from("tensor(x[2]):[9.0, 12.0]"), evaluator.evaluate());
+    }
+
+    private List<Double> asDoubles(List<Tensor> tensors) {
+        return tensors.stream().map(Tensor::asDouble).collect(Collectors.toList());
+    }
+
     // TODO: Test argument-less function
     // TODO: Test with nested functions
 
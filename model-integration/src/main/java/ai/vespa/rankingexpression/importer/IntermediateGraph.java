@@ -2,15 +2,25 @@
 
 package ai.vespa.rankingexpression.importer;
 
+import ai.vespa.rankingexpression.importer.operations.Constant;
 import ai.vespa.rankingexpression.importer.operations.IntermediateOperation;
 import ai.vespa.rankingexpression.importer.operations.MatMul;
+import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.tensor.Tensor;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Holds an intermediate representation of an imported model graph.
@@ -22,6 +32,8 @@ import java.util.Set;
  */
 public class IntermediateGraph {
 
+    private static final Logger log = Logger.getLogger(IntermediateGraph.class.getName());
+
     private final String modelName;
     private final Map<String, IntermediateOperation> operations = new HashMap<>();
     private final Map<String, GraphSignature> signatures = new HashMap<>();
@@ -73,6 +85,7 @@ public class IntermediateGraph {
 
     public void optimize() {
         renameDimensions();
+        mergeDuplicateConstants();
     }
 
     /**
@@ -115,6 +128,89 @@ public class IntermediateGraph {
         }
     }
 
+    /**
+     * Makes all operations which use the value of a constant subgraph use the same subgraph when
+     * several evaluate to the same tensor, such that this tensor is only stored and referenced once.
+     * Subgraphs are merged only when they have the same type after dimension renaming.
+     */
+    private void mergeDuplicateConstants() {
+        Map<OrderedTensorType, List<IntermediateOperation>> constantsByType = new LinkedHashMap<>();
+        Set<String> processed = new HashSet<>();
+        for (String signature : signatures()) {
+            for (String output : outputs(signature).values()) {
+                addConstantSubgraphs(operations.get(output), constantsByType, processed);
+            }
+        }
+
+        int mergedConstants = 0;
+        long savedCells = 0;
+        for (List<IntermediateOperation> constants : constantsByType.values()) {
+            if (constants.size() < 2) continue;
+            Map<IntermediateOperation, Tensor> distinctConstants = new LinkedHashMap<>();
+            for (IntermediateOperation constant : constants) {
+                Optional<Tensor> value = constantValueOf(constant);
+                if (value.isEmpty()) continue;
+                Optional<IntermediateOperation> equal = distinctConstants.entrySet().stream()
+                                                                         .filter(entry -> equalCells(entry.getValue(), value.get()))
+                                                                         .map(Map.Entry::getKey)
+                                                                         .findFirst();
+                if (equal.isEmpty()) {
+                    distinctConstants.put(constant, value.get());
+                    continue;
+                }
+                boolean merged = false;
+                for (IntermediateOperation output : new ArrayList<>(constant.outputs())) {
+                    if ( ! output.isConstant())
+                        merged |= output.replaceInput(constant, equal.get());
+                }
+                if (merged) {
+                    mergedConstants++;
+                    savedCells += value.get().size();
+                }
+            }
+        }
+        if (mergedConstants > 0)
+            log.log(Level.FINE, "Merged " + mergedConstants + " constants in " + this + " with constants of the same " +
+                                "value, saving " + savedCells + " tensor cells");
+    }
+
+    /** Adds the roots of the constant subgraphs used by non-constant operations in the graph of the given operation */
+    private static void addConstantSubgraphs(IntermediateOperation operation,
+                                             Map<OrderedTensorType, List<IntermediateOperation>> constantsByType,
+                                             Set<String> processed) {
+        if (processed.contains(operation.name())) return;
+        processed.add(operation.name());
+        if (operation.type().isEmpty()) return;
+
+        if ( ! operation.isConstant()) {
+            operation.inputs().forEach(input -> addConstantSubgraphs(input, constantsByType, processed));
+        }
+        else if ( ! (operation instanceof Constant) && operation.type().get().rank() > 0) { // Constants are not evaluated by the importer
+            constantsByType.computeIfAbsent(operation.type().get(), (k) -> new ArrayList<>()).add(operation);
+        }
+    }
+
+    private static Optional<Tensor> constantValueOf(IntermediateOperation operation) {
+        try {
+            Optional<Value> value = operation.getConstantValue();
+            if (value.isEmpty() || ! (value.get() instanceof TensorValue)) return Optional.empty();
+            return Optional.of(value.get().asTensor());
+        }
+        catch (IllegalArgumentException e) { // reported when the operation is imported
+            return Optional.empty();
+        }
+    }
+
+    /** Returns whether the given tensors have the same type and exactly the same cell values */
+    private static boolean equalCells(Tensor a, Tensor b) {
+        if ( ! a.type().equals(b.type()) || a.size() != b.size()) return false;
+        for (Iterator<Tensor.Cell> i = a.cellIterator(); i.hasNext(); ) {
+            Tensor.Cell cell = i.next();
+            if (Double.compare(cell.getValue(), b.get(cell.getKey())) != 0) return false;
+        }
+        return true;
+    }
+
     @Override
     public String toString() {
         return "intermediate graph for '" + modelName + "'";
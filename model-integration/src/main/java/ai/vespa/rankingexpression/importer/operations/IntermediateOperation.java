@@ -303,6 +303,26 @@ public abstract class IntermediateOperation {
         inputs.set(inputNumber, newInputOperation);
     }
 
+    /**
+     * Replaces an input of this by another operation producing the same value.
+     *
+     * @return whether the input was replaced. This is not done if the function of this is already created
+     *         or the given operation is not an input of this.
+     */
+    public boolean replaceInput(IntermediateOperation input, IntermediateOperation replacement) {
+        if (function != null) return false;
+        boolean replaced = false;
+        for (int i = 0; i < inputs.size(); ++i) {
+            if (inputs.get(i) == input) {
+                inputs.set(i, replacement);
+                replacement.outputs.add(this);
+                replaced = true;
+            }
+        }
+        input.outputs.removeIf(output -> output == this);
+        return replaced;
+    }
+
     private int findOutputNumber(IntermediateOperation output, IntermediateOperation op) {
         for (int i = 0; i < output.outputs.size(); ++i) {
             if (output.outputs.get(i).equals(op)) {
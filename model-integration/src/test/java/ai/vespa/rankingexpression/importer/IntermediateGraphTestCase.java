@@ -0,0 +1,64 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.rankingexpression.importer;
+
+import ai.vespa.rankingexpression.importer.operations.Argument;
+import ai.vespa.rankingexpression.importer.operations.Constant;
+import ai.vespa.rankingexpression.importer.operations.IntermediateOperation;
+import ai.vespa.rankingexpression.importer.operations.Join;
+import ai.vespa.rankingexpression.importer.operations.Map;
+import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.functions.ScalarFunctions;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author agent
+ */
+public class IntermediateGraphTestCase {
+
+    private static final String modelName = "test_model";
+
+    @Test
+    public void testMergingOfDuplicateConstants() {
+        IntermediateOperation x = new Argument(modelName, "x", OrderedTensorType.fromSpec("tensor(d0[3])"));
+        IntermediateOperation c1 = constant("c1", Tensor.from("tensor(d0[3]):[1, 2, 3]"));
+        IntermediateOperation c2 = constant("c2", Tensor.from("tensor(d0[3]):[1, 2, 4]"));
+
+        IntermediateOperation negated1 = computedConstant(new Map(modelName, "negated1", List.of(c1), ScalarFunctions.neg()));
+        IntermediateOperation negated2 = computedConstant(new Map(modelName, "negated2", List.of(c1), ScalarFunctions.neg()));
+        IntermediateOperation negated3 = computedConstant(new Map(modelName, "negated3", List.of(c2), ScalarFunctions.neg()));
+        IntermediateOperation add1 = new Join(modelName, "add1", List.of(x, negated1), ScalarFunctions.add());
+        IntermediateOperation add2 = new Join(modelName, "add2", List.of(x, negated2), ScalarFunctions.add());
+        IntermediateOperation add3 = new Join(modelName, "add3", List.of(x, negated3), ScalarFunctions.add());
+        IntermediateOperation sum = new Join(modelName, "sum", List.of(add1, add2), ScalarFunctions.add());
+        IntermediateOperation output = new Join(modelName, "output", List.of(sum, add3), ScalarFunctions.multiply());
+
+        IntermediateGraph graph = new IntermediateGraph(modelName);
+        for (IntermediateOperation operation : List.of(x, c1, c2, negated1, negated2, negated3, add1, add2, add3, sum, output))
+            graph.put(operation.name(), operation);
+        graph.outputs(graph.defaultSignature()).put("output", "output");
+        graph.optimize();
+
+        assertEquals(List.of(x, negated1), add1.inputs());
+        assertEquals(List.of(x, negated1), add2.inputs());
+        assertEquals(List.of(add1, add2), negated1.outputs());
+        assertEquals(List.of(), negated2.outputs());
+        assertEquals(List.of(x, negated3), add3.inputs());
+    }
+
+    private IntermediateOperation constant(String name, Tensor value) {
+        IntermediateOperation constant = new Constant(modelName, name, OrderedTensorType.fromSpec(value.type().toString()));
+        constant.setConstantValueFunction(type -> new TensorValue(value.withType(type.type())));
+        return constant;
+    }
+
+    private IntermediateOperation computedConstant(IntermediateOperation operation) {
+        operation.setConstantValueFunction(operation::evaluateAsConstant);
+        return operation;
+    }
+
+}
@@ -83,6 +83,10 @@ public abstract class AbstractArrayContext extends Context implements Cloneable,
         return indexedBindings.getDouble(index);
     }
 
+    /** Returns the name to index map of this, which is shared with its clones */
+    @Override
+    public Object indexLayout() { return indexedBindings.nameToIndex(); }
+
     final boolean isMissing(int index) {
         return indexedBindings.isMissing(index);
     }
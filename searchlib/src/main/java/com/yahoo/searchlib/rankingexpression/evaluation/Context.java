@@ -7,7 +7,9 @@ import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.evaluation.EvaluationContext;
+import com.yahoo.tensor.evaluation.ParallelEvaluation;
 
+import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -24,6 +26,8 @@ public abstract class Context implements EvaluationContext<Reference> {
     /** The value to return if the value has not been set  */
     Value missingValue;
 
+    private ParallelEvaluation parallelEvaluation = null;
+
     /**
      * Returns the value of a simple variable name.
      *
@@ -41,6 +45,17 @@ public abstract class Context implements EvaluationContext<Reference> {
     @Override
     public Tensor getTensor(String name) { return get(name).asTensor(); }
 
+    /**
+     * Sets the settings to use to evaluate tensor functions over many cells on multiple threads,
+     * or null (the default) to evaluate on the calling thread only.
+     */
+    public void setParallelEvaluation(ParallelEvaluation parallelEvaluation) {
+        this.parallelEvaluation = parallelEvaluation;
+    }
+
+    @Override
+    public Optional<ParallelEvaluation> parallelEvaluation() { return Optional.ofNullable(parallelEvaluation); }
+
     /**
      * <p>Returns the value of a <i>structured variable</i> on the form
      * <code>name(argument*)(.output)?</code>, where <i>argument</i> is any
@@ -24,4 +24,16 @@ public interface ContextIndex {
 
     double getDouble(int index);
 
+    /**
+     * Returns whether the value at the given index is always a number, such that expressions may be compiled
+     * to look it up by {@link #getDouble}. This is false unless this context knows the type of the value.
+     */
+    default boolean isScalar(int index) { return false; }
+
+    /**
+     * Returns an object which is the same instance in all contexts which bind the same names to the same indexes
+     * as this, such that expressions optimized for this can look up values by index in them.
+     */
+    default Object indexLayout() { return this; }
+
 }
@@ -79,6 +79,9 @@ public class DoubleOnlyArrayContext extends AbstractArrayContext {
         return TensorType.empty; // Double only
     }
 
+    @Override
+    public boolean isScalar(int index) { return true; } // Double only
+
     /** Perform a slow lookup by name */
     @Override
     public Value get(String name) {
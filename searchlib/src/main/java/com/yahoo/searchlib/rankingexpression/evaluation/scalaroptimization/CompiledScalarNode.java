@@ -0,0 +1,72 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.scalaroptimization;
+
+import com.yahoo.searchlib.rankingexpression.Reference;
+import com.yahoo.searchlib.rankingexpression.evaluation.BooleanValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Context;
+import com.yahoo.searchlib.rankingexpression.evaluation.ContextIndex;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.searchlib.rankingexpression.rule.CompositeNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.SerializationContext;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.TypeContext;
+
+import java.util.Deque;
+
+/**
+ * A scalar subexpression compiled to a function of primitive doubles, which is evaluated without
+ * allocating intermediate values. The compiled function is used with contexts having the index layout
+ * of the context it was compiled for, such as copies of it. The original expression is interpreted in other contexts.
+ *
+ * This serializes to, and has the type of, the original expression.
+ *
+ * @author agent
+ */
+public final class CompiledScalarNode extends ExpressionNode {
+
+    private static final Value trueValue = BooleanValue.frozen(true);
+    private static final Value falseValue = BooleanValue.frozen(false);
+
+    private final ExpressionNode original;
+    private final ScalarFunction function;
+    private final boolean isBoolean;
+
+    /** The index layout of the context this was compiled for */
+    private final Object indexLayout;
+
+    CompiledScalarNode(ExpressionNode original, ScalarFunction function, boolean isBoolean, Object indexLayout) {
+        this.original = original;
+        this.function = function;
+        this.isBoolean = isBoolean;
+        this.indexLayout = indexLayout;
+    }
+
+    /** Returns the expression this is a compiled version of */
+    public ExpressionNode original() { return original; }
+
+    /** Returns whether this evaluates the compiled function, rather than the original expression, in the given context */
+    public boolean isCompiledFor(Context context) {
+        return context instanceof ContextIndex && ((ContextIndex)context).indexLayout() == indexLayout;
+    }
+
+    @Override
+    public StringBuilder toString(StringBuilder string, SerializationContext context, Deque<String> path, CompositeNode parent) {
+        return original.toString(string, context, path, parent);
+    }
+
+    @Override
+    public TensorType type(TypeContext<Reference> context) { return original.type(context); }
+
+    @Override
+    public Value evaluate(Context context) {
+        if ( ! isCompiledFor(context)) return original.evaluate(context);
+
+        double value = function.evaluate((ContextIndex)context);
+        if (isBoolean)
+            return value != 0 ? trueValue : falseValue;
+        return new DoubleValue(value);
+    }
+
+}
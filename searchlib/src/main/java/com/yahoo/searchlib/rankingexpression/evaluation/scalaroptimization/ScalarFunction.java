@@ -0,0 +1,18 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.scalaroptimization;
+
+import com.yahoo.searchlib.rankingexpression.evaluation.ContextIndex;
+
+/**
+ * A compiled scalar expression, computing a primitive double from variables looked up by index in a context.
+ * Boolean values are represented as 1 and 0.
+ *
+ * @author agent
+ */
+@FunctionalInterface
+interface ScalarFunction {
+
+    /** Returns the value of this in the given context, which must have the index layout this was compiled for */
+    double evaluate(ContextIndex context);
+
+}
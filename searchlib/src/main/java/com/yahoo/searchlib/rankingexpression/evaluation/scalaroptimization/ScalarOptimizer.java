@@ -0,0 +1,282 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.scalaroptimization;
+
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.BooleanValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.ContextIndex;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleCompatibleValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.OptimizationReport;
+import com.yahoo.searchlib.rankingexpression.evaluation.Optimizer;
+import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.searchlib.rankingexpression.rule.ArithmeticNode;
+import com.yahoo.searchlib.rankingexpression.rule.ArithmeticOperator;
+import com.yahoo.searchlib.rankingexpression.rule.BooleanNode;
+import com.yahoo.searchlib.rankingexpression.rule.ComparisonNode;
+import com.yahoo.searchlib.rankingexpression.rule.CompositeNode;
+import com.yahoo.searchlib.rankingexpression.rule.ConstantNode;
+import com.yahoo.searchlib.rankingexpression.rule.EmbracedNode;
+import com.yahoo.searchlib.rankingexpression.rule.ExpressionNode;
+import com.yahoo.searchlib.rankingexpression.rule.Function;
+import com.yahoo.searchlib.rankingexpression.rule.FunctionNode;
+import com.yahoo.searchlib.rankingexpression.rule.IfNode;
+import com.yahoo.searchlib.rankingexpression.rule.NegativeNode;
+import com.yahoo.searchlib.rankingexpression.rule.NotNode;
+import com.yahoo.searchlib.rankingexpression.rule.ReferenceNode;
+import com.yahoo.searchlib.rankingexpression.rule.SetMembershipNode;
+import com.yahoo.searchlib.rankingexpression.rule.TensorFunctionNode;
+import com.yahoo.searchlib.rankingexpression.rule.TruthOperator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Compiles the scalar parts of an expression to trees of functions over primitive doubles,
+ * where variables are read by index from the context.
+ * Each largest subexpression consisting only of constants, variables, arithmetic, comparisons, conditions
+ * and scalar functions is replaced by a {@link CompiledScalarNode}, which evaluates it without
+ * creating a value for each node.
+ *
+ * Variables are only compiled when the context knows they are always scalars ({@link ContextIndex#isScalar}),
+ * as other variables may be bound to values of other types, such as tensors, which the interpreted expression
+ * must return. Compiled expressions are only used in contexts with the same index layout as the one given here.
+ *
+ * This should run after the other optimizers, as it hides the structure of the expressions it compiles.
+ *
+ * @author agent
+ */
+public class ScalarOptimizer extends Optimizer {
+
+    /**
+     * Replaces scalar subexpressions by compiled versions
+     *
+     * @param expression the expression to destructively optimize
+     * @param context    a fast lookup context created from the given expression
+     * @param report     the optimization report to which actions of this is logged
+     */
+    @Override
+    public void optimize(RankingExpression expression, ContextIndex context, OptimizationReport report) {
+        if ( ! isEnabled()) return;
+
+        expression.setRoot(findAndOptimize(expression.getRoot(), context, report));
+        report.note("Scalar compilation done");
+    }
+
+    /**
+     * Recursively descend and compile the largest scalar subexpressions.
+     *
+     * @return the resulting node, which may be the input node if nothing could be compiled
+     */
+    private ExpressionNode findAndOptimize(ExpressionNode node, ContextIndex context, OptimizationReport report) {
+        if ( ! (node instanceof CompositeNode)) return node; // nothing to gain from compiling single constants or variables
+        if (node instanceof ReferenceNode) return node; // arguments are part of the name
+        if (node instanceof TensorFunctionNode) return node; // lambdas are evaluated in other contexts
+
+        Boolean isBoolean = isBoolean(node);
+        ScalarFunction function = isBoolean != null ? compile(node, context) : null;
+        if (function != null) {
+            report.incMetric("Compiled scalar expressions", 1);
+            return new CompiledScalarNode(node, function, isBoolean, context.indexLayout());
+        }
+
+        CompositeNode composite = (CompositeNode)node;
+        List<ExpressionNode> newChildren = new ArrayList<>();
+        for (ExpressionNode child : composite.children())
+            newChildren.add(findAndOptimize(child, context, report));
+        return composite.setChildren(newChildren);
+    }
+
+    /** Returns a function computing the value of this node, or null if it is not a scalar expression we can compile */
+    private ScalarFunction compile(ExpressionNode node, ContextIndex context) {
+        if (node instanceof ConstantNode)
+            return compileConstant((ConstantNode)node);
+        if (node instanceof ReferenceNode)
+            return compileReference((ReferenceNode)node, context);
+        if (node instanceof ArithmeticNode)
+            return compileArithmetic((ArithmeticNode)node, context);
+        if (node instanceof ComparisonNode)
+            return compileComparison((ComparisonNode)node, context);
+        if (node instanceof SetMembershipNode)
+            return compileSetMembership((SetMembershipNode)node, context);
+        if (node instanceof IfNode)
+            return compileIf((IfNode)node, context);
+        if (node instanceof FunctionNode)
+            return compileFunction((FunctionNode)node, context);
+        if (node instanceof EmbracedNode)
+            return compile(((EmbracedNode)node).getValue(), context);
+        if (node instanceof NegativeNode) {
+            ScalarFunction value = compile(((NegativeNode)node).getValue(), context);
+            if (value == null) return null;
+            return c -> - value.evaluate(c);
+        }
+        if (node instanceof NotNode) {
+            ScalarFunction value = compile(((NotNode)node).getValue(), context);
+            if (value == null) return null;
+            return c -> value.evaluate(c) == 0 ? 1 : 0;
+        }
+        return null;
+    }
+
+    private ScalarFunction compileConstant(ConstantNode node) {
+        Value value = node.getValue();
+        if ( ! (value instanceof DoubleCompatibleValue)) return null; // strings and tensors have other semantics
+        double constant = value.asDouble();
+        return c -> constant;
+    }
+
+    private ScalarFunction compileReference(ReferenceNode node, ContextIndex context) {
+        if ( ! node.getArguments().isEmpty()) return null;
+        int index;
+        try {
+            index = context.getIndex(node.toString());
+        }
+        catch (RuntimeException e) { // not bound in this context
+            return null;
+        }
+        if ( ! context.isScalar(index)) return null; // the value may not be a double
+        return c -> c.getDouble(index);
+    }
+
+    /** Compiles the operators in the same order as ArithmeticNode applies them */
+    private ScalarFunction compileArithmetic(ArithmeticNode node, ContextIndex context) {
+        List<ScalarFunction> children = compile(node.children(), context);
+        if (children == null) return null;
+
+        Deque<FunctionItem> stack = new ArrayDeque<>();
+        stack.push(new FunctionItem(ArithmeticOperator.OR, children.get(0)));
+        for (int i = 0; i < node.operators().size() && i + 1 < children.size(); i++) {
+            ArithmeticOperator op = node.operators().get(i);
+            while (stack.peek().op.hasPrecedenceOver(op))
+                popStack(stack);
+            stack.push(new FunctionItem(op, children.get(i + 1)));
+        }
+        while (stack.size() > 1)
+            popStack(stack);
+        return stack.getFirst().function;
+    }
+
+    private void popStack(Deque<FunctionItem> stack) {
+        FunctionItem rhs = stack.pop();
+        FunctionItem lhs = stack.peek();
+        lhs.function = compile(lhs.function, rhs.op, rhs.function);
+    }
+
+    private ScalarFunction compile(ScalarFunction x, ArithmeticOperator op, ScalarFunction y) {
+        switch (op) {
+            case OR: return c -> x.evaluate(c) != 0 | y.evaluate(c) != 0 ? 1 : 0;
+            case AND: return c -> x.evaluate(c) != 0 & y.evaluate(c) != 0 ? 1 : 0;
+            case PLUS: return c -> x.evaluate(c) + y.evaluate(c);
+            case MINUS: return c -> x.evaluate(c) - y.evaluate(c);
+            case MULTIPLY: return c -> x.evaluate(c) * y.evaluate(c);
+            case DIVIDE: return c -> x.evaluate(c) / y.evaluate(c);
+            case MODULO: return c -> x.evaluate(c) % y.evaluate(c);
+            case POWER: return c -> Math.pow(x.evaluate(c), y.evaluate(c));
+            default: throw new IllegalArgumentException("Unknown operator " + op);
+        }
+    }
+
+    private ScalarFunction compileComparison(ComparisonNode node, ContextIndex context) {
+        ScalarFunction x = compile(node.getLeftCondition(), context);
+        ScalarFunction y = compile(node.getRightCondition(), context);
+        if (x == null || y == null) return null;
+
+        TruthOperator op = node.getOperator();
+        switch (op) {
+            case SMALLER: return c -> x.evaluate(c) < y.evaluate(c) ? 1 : 0;
+            case SMALLEREQUAL: return c -> x.evaluate(c) <= y.evaluate(c) ? 1 : 0;
+            case EQUAL: return c -> x.evaluate(c) == y.evaluate(c) ? 1 : 0;
+            case LARGER: return c -> x.evaluate(c) > y.evaluate(c) ? 1 : 0;
+            case LARGEREQUAL: return c -> x.evaluate(c) >= y.evaluate(c) ? 1 : 0;
+            case NOTEQUAL: return c -> x.evaluate(c) != y.evaluate(c) ? 1 : 0;
+            default: return c -> op.evaluate(x.evaluate(c), y.evaluate(c)) ? 1 : 0;
+        }
+    }
+
+    private ScalarFunction compileSetMembership(SetMembershipNode node, ContextIndex context) {
+        if ( ! Boolean.FALSE.equals(isBoolean(node.getTestValue()))) return null; // booleans are members by truth value
+        ScalarFunction testValue = compile(node.getTestValue(), context);
+        if (testValue == null) return null;
+
+        double[] setValues = new double[node.getSetValues().size()];
+        for (int i = 0; i < setValues.length; i++) {
+            ExpressionNode setValue = node.getSetValues().get(i);
+            if ( ! (setValue instanceof ConstantNode)) return null;
+            Value value = ((ConstantNode)setValue).getValue();
+            if ( ! value.hasDouble()) return null;
+            setValues[i] = value.asDouble(); // strings are members by their double (hash) value, as in Value.equals
+        }
+        return c -> {
+            double value = testValue.evaluate(c);
+            for (double setValue : setValues) {
+                if (value == setValue) return 1;
+            }
+            return 0;
+        };
+    }
+
+    private ScalarFunction compileIf(IfNode node, ContextIndex context) {
+        ScalarFunction condition = compile(node.getCondition(), context);
+        ScalarFunction trueValue = compile(node.getTrueExpression(), context);
+        ScalarFunction falseValue = compile(node.getFalseExpression(), context);
+        if (condition == null || trueValue == null || falseValue == null) return null;
+        return c -> condition.evaluate(c) != 0 ? trueValue.evaluate(c) : falseValue.evaluate(c);
+    }
+
+    private ScalarFunction compileFunction(FunctionNode node, ContextIndex context) {
+        List<ScalarFunction> arguments = compile(node.children(), context);
+        if (arguments == null) return null;
+
+        Function function = node.getFunction();
+        ScalarFunction x = arguments.get(0);
+        if (arguments.size() == 1)
+            return c -> function.evaluate(x.evaluate(c), 0);
+        ScalarFunction y = arguments.get(1);
+        return c -> function.evaluate(x.evaluate(c), y.evaluate(c));
+    }
+
+    /** Returns the compiled nodes, or null if any of them can not be compiled */
+    private List<ScalarFunction> compile(List<ExpressionNode> nodes, ContextIndex context) {
+        List<ScalarFunction> functions = new ArrayList<>(nodes.size());
+        for (ExpressionNode node : nodes) {
+            ScalarFunction function = compile(node, context);
+            if (function == null) return null;
+            functions.add(function);
+        }
+        return functions;
+    }
+
+    /**
+     * Returns whether the interpreted value of this compilable node is a boolean value,
+     * or null if that depends on the values of the variables
+     */
+    private Boolean isBoolean(ExpressionNode node) {
+        if (node instanceof BooleanNode) return true;
+        if (node instanceof ConstantNode) return ((ConstantNode)node).getValue() instanceof BooleanValue;
+        if (node instanceof EmbracedNode) return isBoolean(((EmbracedNode)node).getValue());
+        if (node instanceof IfNode) {
+            Boolean trueIsBoolean = isBoolean(((IfNode)node).getTrueExpression());
+            Boolean falseIsBoolean = isBoolean(((IfNode)node).getFalseExpression());
+            return Objects.equals(trueIsBoolean, falseIsBoolean) ? trueIsBoolean : null;
+        }
+        if (node instanceof ArithmeticNode) { // the operator with the lowest precedence is applied last
+            List<ArithmeticOperator> operators = ((ArithmeticNode)node).operators();
+            return operators.contains(ArithmeticOperator.OR) || operators.contains(ArithmeticOperator.AND);
+        }
+        return false;
+    }
+
+    private static class FunctionItem {
+
+        final ArithmeticOperator op;
+        ScalarFunction function;
+
+        FunctionItem(ArithmeticOperator op, ScalarFunction function) {
+            this.op = op;
+            this.function = function;
+        }
+
+    }
+
+}
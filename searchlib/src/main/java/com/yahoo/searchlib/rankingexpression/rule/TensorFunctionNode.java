@@ -13,6 +13,7 @@ import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorAddress;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.evaluation.EvaluationContext;
+import com.yahoo.tensor.evaluation.ParallelEvaluation;
 import com.yahoo.tensor.evaluation.TypeContext;
 import com.yahoo.tensor.functions.PrimitiveTensorFunction;
 import com.yahoo.tensor.functions.ScalarFunction;
@@ -376,6 +377,11 @@ public class TensorFunctionNode extends CompositeNode {
             return delegate.getType(name);
         }
 
+        @Override
+        public Optional<ParallelEvaluation> parallelEvaluation() {
+            return delegate.parallelEvaluation();
+        }
+
     }
 
 }
@@ -0,0 +1,132 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.rankingexpression.evaluation.scalaroptimization;
+
+import com.yahoo.searchlib.rankingexpression.RankingExpression;
+import com.yahoo.searchlib.rankingexpression.evaluation.AbstractArrayContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.ArrayContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.DoubleOnlyArrayContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.ExpressionOptimizer;
+import com.yahoo.searchlib.rankingexpression.evaluation.MapContext;
+import com.yahoo.searchlib.rankingexpression.evaluation.OptimizationReport;
+import com.yahoo.searchlib.rankingexpression.evaluation.TensorValue;
+import com.yahoo.searchlib.rankingexpression.evaluation.Value;
+import com.yahoo.searchlib.rankingexpression.parser.ParseException;
+import com.yahoo.tensor.Tensor;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent
+ */
+public class ScalarOptimizerTestCase {
+
+    @Test
+    public void testCompiledEvaluationEqualsInterpretation() throws ParseException {
+        assertCompiled("a + b * c - a / b");
+        assertCompiled("a - b - c");
+        assertCompiled("a - b + c * a ^ b % c");
+        assertCompiled("a < b && b <= c || !(a == c)");
+        assertCompiled("a ~= b");
+        assertCompiled("a != b");
+        assertCompiled("a >= b");
+        assertCompiled("-a + -(b * c)");
+        assertCompiled("if (a > b, c * 2, if (b in [1, 2.5, 3], a, -1))");
+        assertCompiled("if (a > b, a < c, c > b)");
+        assertCompiled("max(a, b) + sqrt(c) * sigmoid(a) - pow(b, 2) + ldexp(a, 3) + relu(-c)");
+        assertCompiled("isNan(a / 0)");
+        assertCompiled("(a || 0) + (b && c)");
+    }
+
+    @Test
+    public void testOnlyScalarSubexpressionsAreCompiled() throws ParseException {
+        String expressionString = "if (a > b, a * b, 3) + reduce(t, sum)";
+        RankingExpression expression = new RankingExpression(expressionString);
+        OptimizationReport report = optimize(expression, new DoubleOnlyArrayContext(expression));
+        assertEquals(1, report.getMetric("Compiled scalar expressions"));
+        assertEquals(new RankingExpression(expressionString).toString(), expression.toString());
+    }
+
+    @Test
+    public void testVariablesAreNotCompiledWhenTheyMayHaveNonDoubleValues() throws ParseException {
+        RankingExpression expression = new RankingExpression("a + b");
+        ArrayContext context = new ArrayContext(expression);
+        optimize(expression, context);
+        assertFalse(expression.getRoot() instanceof CompiledScalarNode);
+
+        context.put("a", new TensorValue(Tensor.from("{{x:1}:2.0}")));
+        context.put("b", 2);
+        assertEquals(Tensor.from("{{x:1}:4.0}"), expression.evaluate(context).asTensor());
+
+        context.put("a", new TensorValue(Tensor.from("{1.5}")));
+        assertTrue(expression.evaluate(context) instanceof TensorValue);
+        assertEquals(3.5, expression.evaluate(context).asDouble(), 0);
+    }
+
+    @Test
+    public void testCompiledExpressionIsInterpretedInOtherContexts() throws ParseException {
+        RankingExpression expression = new RankingExpression("a + b");
+        assertEquals(1, optimize(expression, new DoubleOnlyArrayContext(expression)).getMetric("Compiled scalar expressions"));
+        assertTrue(expression.getRoot() instanceof CompiledScalarNode);
+
+        MapContext context = new MapContext();
+        context.put("a", new TensorValue(Tensor.from("{1.5}")));
+        context.put("b", 2);
+        assertTrue(expression.evaluate(context) instanceof TensorValue);
+        assertEquals(3.5, expression.evaluate(context).asDouble(), 0);
+    }
+
+    @Test
+    public void testCompiledExpressionIsInterpretedInContextsWithOtherIndexes() throws ParseException {
+        RankingExpression expression = new RankingExpression("a - b");
+        DoubleOnlyArrayContext context = new DoubleOnlyArrayContext(expression);
+        optimize(expression, context);
+        CompiledScalarNode compiled = (CompiledScalarNode)expression.getRoot();
+        assertTrue(compiled.isCompiledFor(context));
+        assertTrue(compiled.isCompiledFor(context.clone()));
+
+        DoubleOnlyArrayContext otherContext = new DoubleOnlyArrayContext(new RankingExpression("b - a"));
+        assertFalse(compiled.isCompiledFor(otherContext));
+        otherContext.put("a", 3);
+        otherContext.put("b", 1);
+        assertEquals(2.0, expression.evaluate(otherContext).asDouble(), 0);
+    }
+
+    private void assertCompiled(String expressionString) throws ParseException {
+        double[][] bindings = { { 1, 2, 3 }, { 3, 2, 1 }, { 2.5, 2.5, -1 }, { 0, 0, 0 }, { -1.5, Double.NaN, 7 } };
+        for (double[] values : bindings) {
+            RankingExpression expression = new RankingExpression(expressionString);
+            MapContext mapContext = new MapContext();
+            bind(values, mapContext::put);
+            Value expected = expression.evaluate(mapContext);
+
+            DoubleOnlyArrayContext arrayContext = new DoubleOnlyArrayContext(expression);
+            OptimizationReport report = optimize(expression, arrayContext);
+            assertEquals(1, report.getMetric("Compiled scalar expressions"));
+            assertTrue(expression.getRoot() instanceof CompiledScalarNode);
+            assertEquals(new RankingExpression(expressionString).toString(), expression.toString());
+
+            bind(values, arrayContext::put);
+            Value actual = expression.evaluate(arrayContext);
+            assertEquals(expressionString, expected.getClass(), actual.getClass());
+            assertEquals(expressionString, expected.asDouble(), actual.asDouble(), 0);
+        }
+    }
+
+    private OptimizationReport optimize(RankingExpression expression, AbstractArrayContext context) {
+        return new ExpressionOptimizer().optimize(expression, context);
+    }
+
+    private void bind(double[] values, Binder binder) {
+        binder.put("a", values[0]);
+        binder.put("b", values[1]);
+        binder.put("c", values[2]);
+    }
+
+    private interface Binder {
+        void put(String name, double value);
+    }
+
+}
@@ -10,11 +10,14 @@ import com.yahoo.searchlib.rankingexpression.parser.ParseException;
 import com.yahoo.searchlib.rankingexpression.rule.TensorFunctionNode;
 import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.functions.Join;
 import com.yahoo.tensor.functions.Reduce;
 import com.yahoo.tensor.functions.ReduceJoin;
+import com.yahoo.tensor.functions.ScalarFunctions;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author lesters
@@ -52,6 +55,20 @@ public class TensorOptimizerTestCase {
         assertCantOptimize("d0[1],d1[2],d2[3]", "d0[1],d1[2],d2[3]", "d1,d2");  // reducing on less then joining on
     }
 
+    @Test
+    public void testMultiplicationLambdaIsOptimizedAsMultiplication() throws ParseException {
+        RankingExpression expression = new RankingExpression("reduce(join(a, b, f(x,y)(x * y)), sum, d0)");
+        ArrayContext context = generateContext(generateRandomTensor("d0[3]"), generateRandomTensor("d1[2],d0[3]"), expression);
+        Tensor result = expression.evaluate(context).asTensor();
+        TensorFunctionNode join = (TensorFunctionNode)((TensorFunctionNode)expression.getRoot()).children().get(0);
+        assertTrue(((Join<?>)join.function()).combinator() instanceof ScalarFunctions.Multiply);
+
+        new ExpressionOptimizer().optimize(expression, context);
+        assertTrue(((TensorFunctionNode)expression.getRoot()).function() instanceof ReduceJoin);
+        assertEquals(result, expression.evaluate(context).asTensor());
+        assertEquals("reduce(join(a, b, f(x,y)(x * y)), sum, d0)", expression.toString());
+    }
+
     private void assertWillOptimize(String aType, String bType) throws ParseException {
         assertWillOptimize(aType, bType, "", "sum");
     }
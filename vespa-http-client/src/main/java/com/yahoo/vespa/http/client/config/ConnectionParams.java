@@ -137,7 +137,8 @@ public final class ConnectionParams {
          * in the network not fully utilized and the round-trip time can be a limiting factor. A low number
          * can cause skew in distribution of load between gateways. A too high number will cause
          * many threads to run, more context switching and potential more memory usage. We recommend using about
-         * 16 connections per gateway.
+         * 16 connections per gateway. The operations in flight to a gateway are shared by all its connections,
+         * and limited according to the latency observed, so adding connections does not increase the load on it.
          *
          * @param numPersistentConnectionsPerEndpoint number of channels per endpoint
          * @return pointer to builder.
@@ -162,7 +162,8 @@ public final class FeedParams {
         }
 
         /**
-         * Sets the maximum number of operations to be in-flight.
+         * Sets the maximum number of operations to be in-flight. This is divided between the endpoints of a cluster,
+         * and the number in flight to each endpoint is further limited according to the latency observed for it.
          *
          * @param maxInFlightRequests max number of operations.
          * @return this, for chaining
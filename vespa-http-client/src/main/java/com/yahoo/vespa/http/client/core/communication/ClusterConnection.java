@@ -56,6 +56,7 @@ public class ClusterConnection implements AutoCloseable {
         if (totalNumberOfEndpointsInThisCluster == 0)
             throw new IllegalArgumentException("At least 1 persistent connection per endpoint is required in " + cluster);
         int maxInFlightPerSession = Math.max(1, feedParams.getMaxInFlightRequests() / totalNumberOfEndpointsInThisCluster);
+        int maxInFlightPerEndpoint = Math.max(1, feedParams.getMaxInFlightRequests() / cluster.getEndpoints().size());
 
         documentQueue = new DocumentQueue(clientQueueSizePerCluster, clock);
         ioThreadGroup = operationProcessor.getIoThreadGroup();
@@ -68,7 +69,9 @@ public class ClusterConnection implements AutoCloseable {
                                                                               endpoint,
                                                                               clusterId,
                                                                               timeoutExecutor,
-                                                                              feedParams.getServerTimeout(TimeUnit.MILLISECONDS) + feedParams.getClientTimeout(TimeUnit.MILLISECONDS));
+                                                                              feedParams.getServerTimeout(TimeUnit.MILLISECONDS) + feedParams.getClientTimeout(TimeUnit.MILLISECONDS),
+                                                                              new LatencyThrottler(maxInFlightPerSession, maxInFlightPerEndpoint),
+                                                                              clock);
             for (int i = 0; i < connectionParams.getNumPersistentConnectionsPerEndpoint(); i++) {
                 GatewayConnectionFactory connectionFactory;
                 if (connectionParams.isDryRun()) {
@@ -89,7 +92,6 @@ public class ClusterConnection implements AutoCloseable {
                                                  connectionFactory,
                                                  clusterId,
                                                  feedParams.getMaxChunkSizeBytes(),
-                                                 maxInFlightPerSession,
                                                  Duration.ofMillis(feedParams.getLocalQueueTimeOut()),
                                                  documentQueue,
                                                  feedParams.getMaxSleepTimeMs(),
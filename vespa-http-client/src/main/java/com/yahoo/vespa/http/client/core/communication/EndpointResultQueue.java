@@ -2,11 +2,15 @@
 package com.yahoo.vespa.http.client.core.communication;
 
 import com.yahoo.vespa.http.client.FeedEndpointException;
+import com.yahoo.vespa.http.client.Result;
 import com.yahoo.vespa.http.client.config.Endpoint;
 import com.yahoo.vespa.http.client.core.EndpointResult;
 import com.yahoo.vespa.http.client.core.operationProcessor.EndPointResultFactory;
 import com.yahoo.vespa.http.client.core.operationProcessor.OperationProcessor;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ScheduledFuture;
@@ -31,23 +35,29 @@ class EndpointResultQueue {
     private final int clusterId;
     private final ScheduledThreadPoolExecutor timer;
     private final long totalTimeoutMs;
+    private final LatencyThrottler throttler;
+    private final Clock clock;
 
     EndpointResultQueue(OperationProcessor operationProcessor,
                         Endpoint endpoint,
                         int clusterId,
                         ScheduledThreadPoolExecutor timer,
-                        long totalTimeoutMs) {
+                        long totalTimeoutMs,
+                        LatencyThrottler throttler,
+                        Clock clock) {
         this.operationProcessor = operationProcessor;
         this.endpoint = endpoint;
         this.clusterId = clusterId;
         this.timer = timer;
         this.totalTimeoutMs = totalTimeoutMs;
+        this.throttler = throttler;
+        this.clock = clock;
     }
 
     public synchronized void operationSent(String operationId, GatewayConnection connection) {
         DocumentTimerTask task = new DocumentTimerTask(operationId);
         ScheduledFuture<?> future = timer.schedule(task, totalTimeoutMs, TimeUnit.MILLISECONDS);
-        inflightOperations.put(operationId, new InflightOperation(future, connection));
+        inflightOperations.put(operationId, new InflightOperation(future, connection, clock.instant()));
     }
 
     public synchronized void failOperation(EndpointResult result, int clusterId) {
@@ -62,11 +72,11 @@ class EndpointResultQueue {
         operationProcessor.onEndpointError(e);
     }
 
-    private synchronized void resultReceived(EndpointResult result, int clusterId, boolean duplicateGivesWarning) {
+    private synchronized void resultReceived(EndpointResult result, int clusterId, boolean fromServer) {
         operationProcessor.resultReceived(result, clusterId);
         InflightOperation operation = inflightOperations.remove(result.getOperationId());
         if (operation == null) {
-            if (duplicateGivesWarning) {
+            if (fromServer) {
                 log.warning("Result for ID '" + result.getOperationId() + "' received from '" + endpoint +
                             "', but we have no record of a sent operation. Either something is wrong on the server side " +
                             "(bad VIP usage?), or we have somehow received duplicate results, " +
@@ -75,6 +85,15 @@ class EndpointResultQueue {
             return;
         }
         operation.future.cancel(false);
+        if (fromServer)
+            recordLatency(result, Duration.between(operation.sentTime, clock.instant()));
+    }
+
+    private void recordLatency(EndpointResult result, Duration latency) {
+        if (result.getDetail().getResultType() == Result.ResultType.TRANSITIVE_ERROR)
+            throttler.transientError();
+        else
+            throttler.success(latency);
     }
 
     /** Called only from ScheduledThreadPoolExecutor thread in DocumentTimerTask.run(), see below */
@@ -91,6 +110,11 @@ class EndpointResultQueue {
         operationProcessor.resultReceived(endpointResult, clusterId);
     }
 
+    /** Returns the max number of operations which should be in flight to this endpoint now */
+    public int getMaxPendingSize() {
+        return throttler.limit();
+    }
+
     public synchronized int getPendingSize() {
         return inflightOperations.values().size();
     }
@@ -127,10 +151,12 @@ class EndpointResultQueue {
     private static class InflightOperation {
         final ScheduledFuture<?> future;
         final GatewayConnection connection;
+        final Instant sentTime;
 
-        InflightOperation(ScheduledFuture<?> future, GatewayConnection connection) {
+        InflightOperation(ScheduledFuture<?> future, GatewayConnection connection, Instant sentTime) {
             this.future = future;
             this.connection = connection;
+            this.sentTime = sentTime;
         }
     }
 }
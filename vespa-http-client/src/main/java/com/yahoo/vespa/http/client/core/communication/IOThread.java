@@ -49,7 +49,6 @@ public class IOThread implements Runnable, AutoCloseable {
     private final CountDownLatch running = new CountDownLatch(1);
     private final CountDownLatch stopSignal = new CountDownLatch(1);
     private final int maxChunkSizeBytes;
-    private final int maxInFlightRequests;
     private final Duration localQueueTimeOut;
     private final GatewayThrottler gatewayThrottler;
     private final Duration connectionTimeToLive;
@@ -78,7 +77,6 @@ public class IOThread implements Runnable, AutoCloseable {
              GatewayConnectionFactory connectionFactory,
              int clusterId,
              int maxChunkSizeBytes,
-             int maxInFlightRequests,
              Duration localQueueTimeOut,
              DocumentQueue documentQueue,
              long maxSleepTimeMs,
@@ -93,7 +91,6 @@ public class IOThread implements Runnable, AutoCloseable {
         this.resultQueue = endpointResultQueue;
         this.clusterId = clusterId;
         this.maxChunkSizeBytes = maxChunkSizeBytes;
-        this.maxInFlightRequests = maxInFlightRequests;
         this.connectionTimeToLive = connectionTimeToLive;
         this.gatewayThrottler = new GatewayThrottler(maxSleepTimeMs);
         this.pollIntervalUS = Math.max(1000, (long)(1000000.0/Math.max(0.1, idlePollFrequency))); // ensure range [1ms, 10s]
@@ -202,7 +199,7 @@ public class IOThread implements Runnable, AutoCloseable {
         // slightly randomize how much is taken to avoid harmonic interactions leading
         // to some threads consistently taking more than others
         int thisMaxChunkSizeBytes = randomize(maxChunkSizeBytes);
-        int thisMaxInFlightRequests = randomize(maxInFlightRequests);
+        int thisMaxInFlightRequests = randomize(resultQueue.getMaxPendingSize());
         while (chunkSizeBytes < thisMaxChunkSizeBytes && pendingSize < thisMaxInFlightRequests) {
             drainFirstDocumentsInQueueIfOld();
             Document document = documentQueue.poll();
@@ -296,9 +293,10 @@ public class IOThread implements Runnable, AutoCloseable {
 
     private ProcessResponse pullAndProcessData(long maxWaitTimeUS) throws ServerResponseException, IOException {
         int pendingResultQueueSize = resultQueue.getPendingSize();
+        int maxPendingSize = resultQueue.getMaxPendingSize();
         pendingDocumentStatusCount.set(pendingResultQueueSize);
 
-        List<Document> nextDocsForFeeding = (pendingResultQueueSize > maxInFlightRequests)
+        List<Document> nextDocsForFeeding = (pendingResultQueueSize > maxPendingSize)
                                             ? new ArrayList<>() // The queue is full, will not send more documents
                                             : getNextDocsForFeeding(maxWaitTimeUS, TimeUnit.MICROSECONDS);
 
@@ -310,7 +308,7 @@ public class IOThread implements Runnable, AutoCloseable {
         log.finest("Awaiting " + pendingResultQueueSize + " results.");
         ProcessResponse processResponse = feedDocumentAndProcessResults(nextDocsForFeeding);
 
-        if (pendingResultQueueSize > maxInFlightRequests && processResponse.processResultsCount == 0) {
+        if (pendingResultQueueSize > maxPendingSize && processResponse.processResultsCount == 0) {
             try {
                 // Max outstanding document operations, no more results on server side, wait a bit before asking again
                 Thread.sleep(300);
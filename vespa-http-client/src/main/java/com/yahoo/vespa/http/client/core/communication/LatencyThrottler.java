@@ -0,0 +1,86 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.http.client.core.communication;
+
+import java.time.Duration;
+
+/**
+ * Limits the number of operations in flight to an endpoint, based on the latency observed for them.
+ *
+ * As long as the latency of operations stays close to its long term average, the limit is increased by
+ * about the square root of itself for each sample, so that a few connections can carry many operations.
+ * When operations start to queue up on the server side latency grows, and the limit is reduced in proportion.
+ * Transient errors from the gateway also reduce the limit.
+ *
+ * Operations are multiplexed on HTTP/1.1 connections by the gateway protocol. HTTP/2 is not used, as this
+ * client targets Java 8 and Apache HttpClient 4, neither of which support it.
+ *
+ * This is thread safe.
+ *
+ * @see GatewayThrottler
+ * @author agent
+ */
+public class LatencyThrottler {
+
+    /** The number of successful operations to average latency over before adjusting the limit */
+    static final int sampleSize = 16;
+
+    /** How much of a new limit to apply in each adjustment */
+    private static final double smoothing = 0.2;
+
+    /** The factor latency may grow by, compared to the long term average, before the limit is reduced */
+    private static final double tolerance = 1.5;
+
+    private final int maxLimit;
+
+    private double limit;
+    private double longTermLatencyNanos = 0;
+    private long latencySumNanos = 0;
+    private int samples = 0;
+
+    /**
+     * Creates a latency throttler
+     *
+     * @param initialLimit the limit to start at
+     * @param maxLimit the max limit this will ever set
+     */
+    public LatencyThrottler(int initialLimit, int maxLimit) {
+        if (maxLimit < 1)
+            throw new IllegalArgumentException("Max limit must be positive, not " + maxLimit);
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(1, Math.min(initialLimit, maxLimit));
+    }
+
+    /** Returns the current max number of operations in flight */
+    public synchronized int limit() { return (int)limit; }
+
+    /** Records that an operation completed successfully with the given latency */
+    public synchronized void success(Duration latency) {
+        latencySumNanos += latency.toNanos();
+        if (++samples < sampleSize) return;
+
+        double latencyNanos = (double)latencySumNanos / samples;
+        latencySumNanos = 0;
+        samples = 0;
+        if (longTermLatencyNanos == 0) {
+            longTermLatencyNanos = latencyNanos;
+        }
+        else {
+            longTermLatencyNanos = 0.95 * longTermLatencyNanos + 0.05 * latencyNanos;
+            if (longTermLatencyNanos > 2 * latencyNanos) // latency has dropped after a period of overload
+                longTermLatencyNanos *= 0.9;
+        }
+        double gradient = latencyNanos == 0 ? 1.0
+                                            : Math.max(0.5, Math.min(1.0, tolerance * longTermLatencyNanos / latencyNanos));
+        adjust(limit * gradient + Math.sqrt(limit));
+    }
+
+    /** Records that an operation failed because the gateway could not handle more load */
+    public synchronized void transientError() {
+        adjust(limit * 0.9);
+    }
+
+    private void adjust(double newLimit) {
+        limit = Math.max(1, Math.min(maxLimit, (1 - smoothing) * limit + smoothing * newLimit));
+    }
+
+}
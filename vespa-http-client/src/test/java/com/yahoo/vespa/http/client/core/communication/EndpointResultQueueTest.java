@@ -1,6 +1,7 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.vespa.http.client.core.communication;
 
+import com.yahoo.vespa.http.client.ManualClock;
 import com.yahoo.vespa.http.client.Result;
 import com.yahoo.vespa.http.client.config.Endpoint;
 import com.yahoo.vespa.http.client.core.EndpointResult;
@@ -8,6 +9,7 @@ import com.yahoo.vespa.http.client.core.operationProcessor.OperationProcessor;
 import org.junit.Test;
 
 import java.time.Clock;
+import java.time.Duration;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -15,6 +17,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doAnswer;
@@ -39,7 +42,8 @@ public class EndpointResultQueueTest {
         }).when(mockAggregator).resultReceived(any(), eq(0));
 
         EndpointResultQueue q = new EndpointResultQueue(
-                mockAggregator, endpoint, 0, new ScheduledThreadPoolExecutor(1), 100L * 1000L);
+                mockAggregator, endpoint, 0, new ScheduledThreadPoolExecutor(1), 100L * 1000L,
+                new LatencyThrottler(10, 100), Clock.systemUTC());
 
         q.operationSent("op1", connection);
         assertThat(q.getPendingSize(), is(1));
@@ -71,6 +75,31 @@ public class EndpointResultQueueTest {
     }
 
 
+    @Test
+    public void testMaxPendingSizeIsAdjustedByResults() {
+        Endpoint endpoint = Endpoint.create("a");
+        GatewayConnection connection = new DryRunGatewayConnection(endpoint, Clock.systemUTC());
+        ManualClock clock = new ManualClock();
+        EndpointResultQueue q = new EndpointResultQueue(
+                mock(OperationProcessor.class), endpoint, 0, new ScheduledThreadPoolExecutor(1), 100L * 1000L,
+                new LatencyThrottler(10, 100), clock);
+        assertThat(q.getMaxPendingSize(), is(10));
+
+        for (int i = 0; i < 10 * LatencyThrottler.sampleSize; i++) {
+            q.operationSent("op" + i, connection);
+            clock.advance(Duration.ofMillis(10));
+            q.resultReceived(new EndpointResult("op" + i, new Result.Detail(endpoint)), 0);
+        }
+        assertTrue(q.getMaxPendingSize() > 10);
+
+        int maxPendingSize = q.getMaxPendingSize();
+        q.operationSent("failing", connection);
+        q.resultReceived(new EndpointResult("failing",
+                                            new Result.Detail(endpoint, Result.ResultType.TRANSITIVE_ERROR, null, null)),
+                         0);
+        assertTrue(q.getMaxPendingSize() < maxPendingSize);
+    }
+
     @Test
     public void testTimeout() throws InterruptedException {
         Endpoint endpoint = Endpoint.create("a");
@@ -81,7 +110,8 @@ public class EndpointResultQueueTest {
             return null;
         }).when(mockAggregator).resultReceived(any(), eq(0));
         EndpointResultQueue q = new EndpointResultQueue(
-                mockAggregator, endpoint, 0, new ScheduledThreadPoolExecutor(1), 100L);
+                mockAggregator, endpoint, 0, new ScheduledThreadPoolExecutor(1), 100L,
+                new LatencyThrottler(10, 100), Clock.systemUTC());
         q.operationSent("1234", new DryRunGatewayConnection(endpoint, Clock.systemUTC()));
         assert(latch.await(120, TimeUnit.SECONDS));
     }
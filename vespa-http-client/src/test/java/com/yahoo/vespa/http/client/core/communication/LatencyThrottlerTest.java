@@ -0,0 +1,63 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.http.client.core.communication;
+
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent
+ */
+public class LatencyThrottlerTest {
+
+    @Test
+    public void limitGrowsToMaxWhenLatencyIsStable() {
+        LatencyThrottler throttler = new LatencyThrottler(10, 1000);
+        assertEquals(10, throttler.limit());
+        sample(throttler, Duration.ofMillis(20), 500);
+        assertEquals(1000, throttler.limit());
+    }
+
+    @Test
+    public void limitIsReducedWhenLatencyGrows() {
+        LatencyThrottler throttler = new LatencyThrottler(100, 1000);
+        sample(throttler, Duration.ofMillis(20), 20);
+        int limitBefore = throttler.limit();
+        sample(throttler, Duration.ofMillis(80), 5);
+        assertTrue(throttler.limit() < limitBefore);
+    }
+
+    @Test
+    public void limitIsReducedOnTransientErrorsButNotBelowOne() {
+        LatencyThrottler throttler = new LatencyThrottler(100, 1000);
+        throttler.transientError();
+        assertTrue(throttler.limit() < 100);
+        for (int i = 0; i < 1000; i++)
+            throttler.transientError();
+        assertEquals(1, throttler.limit());
+    }
+
+    @Test
+    public void limitRecoversWhenLatencyDrops() {
+        LatencyThrottler throttler = new LatencyThrottler(100, 1000);
+        sample(throttler, Duration.ofMillis(200), 50);
+        for (int i = 0; i < 1000; i++)
+            throttler.transientError();
+        sample(throttler, Duration.ofMillis(10), 500);
+        assertEquals(1000, throttler.limit());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxLimitMustBePositive() {
+        new LatencyThrottler(1, 0);
+    }
+
+    private static void sample(LatencyThrottler throttler, Duration latency, int samples) {
+        for (int i = 0; i < samples * LatencyThrottler.sampleSize; i++)
+            throttler.success(latency);
+    }
+
+}
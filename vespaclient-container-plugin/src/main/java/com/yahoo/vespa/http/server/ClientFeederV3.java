@@ -23,8 +23,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Optional;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
@@ -37,6 +42,11 @@ import java.util.logging.Logger;
  * avoid using a threadpool that has no effect with all the extra that comes with it. V2 has one instance per thread
  * on the client, while this is one instance for all threads.
  *
+ * Each request is fed as a pipeline: The request thread splits the stream into operations, which are parsed
+ * in parallel by the parser executor, and then sent by the request thread in the order they were read.
+ * Hence operations on the same document are sent in the order given by the client. Reading ahead of sending
+ * is bounded both by the number of operations and by their total size.
+ *
  * @author dybis
  */
 class ClientFeederV3 {
@@ -44,6 +54,10 @@ class ClientFeederV3 {
     protected static final Logger log = Logger.getLogger(ClientFeederV3.class.getName());
     // This is for all clients on this gateway, for load balancing from client.
     private final static AtomicInteger outstandingOperations = new AtomicInteger(0);
+    /** The max number of operations per request which are read but not yet sent */
+    private static final int maxOperationsInPipeline = 128;
+    /** The max number of bytes of operation data per request which are read but not yet sent, unless it is a single operation */
+    private static final int maxBytesInPipeline = 8 * 1024 * 1024;
     private final BlockingQueue<OperationStatus> feedReplies = new LinkedBlockingQueue<>();
     private final ReferencedResource<SharedSourceSession> sourceSession;
     private final String clientId;
@@ -53,6 +67,7 @@ class ClientFeederV3 {
     private double operationsForOpsPerSec = 0d;
     private final Object monitor = new Object();
     private final StreamReaderV3 streamReaderV3;
+    private final Executor parserExecutor;
     private final AtomicInteger ongoingRequests = new AtomicInteger(0);
     private final String hostName;
 
@@ -62,12 +77,14 @@ class ClientFeederV3 {
             DocumentTypeManager docTypeManager,
             String clientId,
             Metric metric,
-            ReplyHandler feedReplyHandler) {
+            ReplyHandler feedReplyHandler,
+            Executor parserExecutor) {
         this.sourceSession = sourceSession;
         this.clientId = clientId;
         this.feedReplyHandler = feedReplyHandler;
         this.metric = metric;
         this.streamReaderV3 = new StreamReaderV3(feedReaderFactory, docTypeManager);
+        this.parserExecutor = parserExecutor;
         this.hostName = HostName.getLocalhost();
     }
 
@@ -127,9 +144,15 @@ class ClientFeederV3 {
         }
     }
 
-    private Optional<DocumentOperationMessageV3> pullMessageFromRequest(FeederSettings settings,
-                                                                        InputStream requestInputStream,
-                                                                        BlockingQueue<OperationStatus> repliesFromOldMessages) {
+    /**
+     * Reads the next operation from the request and starts parsing it in the parser executor.
+     * Operations which cannot be read are reported as failed, and skipped.
+     *
+     * @return the operation being parsed, or empty if there are no more operations in the request
+     */
+    private Optional<PendingOperation> pullOperationFromRequest(FeederSettings settings,
+                                                                 InputStream requestInputStream,
+                                                                 BlockingQueue<OperationStatus> repliesFromOldMessages) {
         while (true) {
             Optional<String> operationId;
             try {
@@ -141,23 +164,35 @@ class ClientFeederV3 {
             }
 
             try {
-                DocumentOperationMessageV3 message = getNextMessage(operationId.get(), requestInputStream, settings);
-                if (message != null)
-                    setRoute(message, settings);
-                return Optional.ofNullable(message);
+                byte[] operationData = streamReaderV3.getNextOperationData(requestInputStream);
+                CompletableFuture<DocumentOperationMessageV3> message = new CompletableFuture<>();
+                parserExecutor.execute(() -> {
+                    if (message.isDone()) return; // cancelled
+                    try {
+                        message.complete(getNextMessage(operationId.get(), operationData, settings));
+                    }
+                    catch (Throwable e) {
+                        message.completeExceptionally(e);
+                    }
+                });
+                return Optional.of(new PendingOperation(operationId.get(), operationData.length, message));
             } catch (Exception e) {
-                log.log(Level.WARNING, () -> Exceptions.toMessageString(e));
-                metric.add(MetricNames.PARSE_ERROR, 1, null);
-
-                repliesFromOldMessages.add(new OperationStatus(Exceptions.toMessageString(e),
-                                                               operationId.get(),
-                                                               ErrorCode.ERROR,
-                                                               false,
-                                                               ""));
+                reportParseError(operationId.get(), e, repliesFromOldMessages);
             }
         }
     }
 
+    private void reportParseError(String operationId, Throwable e, BlockingQueue<OperationStatus> repliesFromOldMessages) {
+        log.log(Level.WARNING, () -> Exceptions.toMessageString(e));
+        metric.add(MetricNames.PARSE_ERROR, 1, null);
+
+        repliesFromOldMessages.add(new OperationStatus(Exceptions.toMessageString(e),
+                                                       operationId,
+                                                       ErrorCode.ERROR,
+                                                       false,
+                                                       ""));
+    }
+
     private Result sendMessage(DocumentOperationMessageV3 msg) throws InterruptedException {
         msg.getMessage().pushHandler(feedReplyHandler);
         return sourceSession.getResource().sendMessageBlocking(msg.getMessage());
@@ -166,41 +201,91 @@ class ClientFeederV3 {
     private void feed(FeederSettings settings,
                       InputStream requestInputStream,
                       BlockingQueue<OperationStatus> repliesFromOldMessages) throws InterruptedException {
-        while (true) {
-            Optional<DocumentOperationMessageV3> message = pullMessageFromRequest(settings,
-                                                                                  requestInputStream,
-                                                                                  repliesFromOldMessages);
+        Deque<PendingOperation> pipeline = new ArrayDeque<>(maxOperationsInPipeline);
+        long bytesInPipeline = 0;
+        try {
+            boolean endOfRequest = false;
+            while (true) {
+                // Keep reading while more data is available without blocking, to keep the parsers busy
+                while ( ! endOfRequest && (pipeline.isEmpty() ||
+                                           pipeline.size() < maxOperationsInPipeline &&
+                                           bytesInPipeline < maxBytesInPipeline &&
+                                           available(requestInputStream))) {
+                    Optional<PendingOperation> operation = pullOperationFromRequest(settings,
+                                                                                    requestInputStream,
+                                                                                    repliesFromOldMessages);
+                    if (operation.isPresent()) {
+                        pipeline.add(operation.get());
+                        bytesInPipeline += operation.get().size;
+                    }
+                    else {
+                        endOfRequest = true;
+                    }
+                }
+                if (pipeline.isEmpty()) return;
 
-            if (message.isEmpty()) break;
-            setMessageParameters(message.get(), settings);
+                // Send the first operation in the pipeline when it is parsed
+                PendingOperation operation = pipeline.poll();
+                bytesInPipeline -= operation.size;
+                DocumentOperationMessageV3 message;
+                try {
+                    message = operation.message.get();
+                } catch (ExecutionException e) {
+                    reportParseError(operation.operationId, e.getCause(), repliesFromOldMessages);
+                    continue;
+                }
+                if (message == null) return; // end of feed
 
-            Result result;
-            try {
-                result = sendMessage(message.get());
-
-            } catch  (RuntimeException e) {
-                repliesFromOldMessages.add(createOperationStatus(message.get().getOperationId(),
-                                                                 Exceptions.toMessageString(e),
-                                                                 ErrorCode.ERROR,
-                                                                 message.get().getMessage()));
-                continue;
+                setRoute(message, settings);
+                send(message, settings, repliesFromOldMessages);
             }
+        }
+        finally {
+            for (PendingOperation operation : pipeline) // Let the parsers skip operations which will not be sent
+                operation.message.cancel(false);
+        }
+    }
 
-            if (result.isAccepted()) {
-                outstandingOperations.incrementAndGet();
-                updateOpsPerSec();
-                log(Level.FINE, "Sent message successfully, document id: ", message.get().getOperationId());
-            } else if (!result.getError().isFatal()) {
-                repliesFromOldMessages.add(createOperationStatus(message.get().getOperationId(),
-                                                                 result.getError().getMessage(),
-                                                                 ErrorCode.TRANSIENT_ERROR,
-                        message.get().getMessage()));
-            } else {
-                repliesFromOldMessages.add(createOperationStatus(message.get().getOperationId(),
-                                                                 result.getError().getMessage(),
-                                                                 ErrorCode.ERROR,
-                        message.get().getMessage()));
-            }
+    private void send(DocumentOperationMessageV3 message,
+                      FeederSettings settings,
+                      BlockingQueue<OperationStatus> repliesFromOldMessages) throws InterruptedException {
+        setMessageParameters(message, settings);
+
+        Result result;
+        try {
+            result = sendMessage(message);
+
+        } catch  (RuntimeException e) {
+            repliesFromOldMessages.add(createOperationStatus(message.getOperationId(),
+                                                             Exceptions.toMessageString(e),
+                                                             ErrorCode.ERROR,
+                                                             message.getMessage()));
+            return;
+        }
+
+        if (result.isAccepted()) {
+            outstandingOperations.incrementAndGet();
+            updateOpsPerSec();
+            log(Level.FINE, "Sent message successfully, document id: ", message.getOperationId());
+        } else if (!result.getError().isFatal()) {
+            repliesFromOldMessages.add(createOperationStatus(message.getOperationId(),
+                                                             result.getError().getMessage(),
+                                                             ErrorCode.TRANSIENT_ERROR,
+                                                             message.getMessage()));
+        } else {
+            repliesFromOldMessages.add(createOperationStatus(message.getOperationId(),
+                                                             result.getError().getMessage(),
+                                                             ErrorCode.ERROR,
+                                                             message.getMessage()));
+        }
+    }
+
+    /** Returns whether more data can be read from the given stream without blocking */
+    private static boolean available(InputStream stream) {
+        try {
+            return stream.available() > 0;
+        } catch (IOException e) {
+            return false;
         }
     }
 
@@ -212,11 +297,11 @@ class ClientFeederV3 {
     }
 
     // protected for mocking
-    /** Returns the next message in the stream, or null if none */
+    /** Returns the message parsed from the given operation data, or null if it marks the end of the feed. This is thread safe. */
     protected DocumentOperationMessageV3 getNextMessage(String operationId,
-                                                        InputStream requestInputStream,
+                                                        byte[] operationData,
                                                         FeederSettings settings) throws Exception {
-        FeedOperation operation = streamReaderV3.getNextOperation(requestInputStream, settings);
+        FeedOperation operation = streamReaderV3.parseOperation(operationData, settings);
 
         // This is a bit hard to set up while testing, so we accept that things are not perfect.
         if (sourceSession.getResource().session() != null) {
@@ -283,4 +368,22 @@ class ClientFeederV3 {
             }
         }
     }
+
+    /** An operation read from a request, which is parsed to a message asynchronously */
+    private static class PendingOperation {
+
+        final String operationId;
+        /** The size of the data of this operation */
+        final int size;
+        /** Completes with the parsed message, or null if the operation marks the end of the feed */
+        final CompletableFuture<DocumentOperationMessageV3> message;
+
+        PendingOperation(String operationId, int size, CompletableFuture<DocumentOperationMessageV3> message) {
+            this.operationId = operationId;
+            this.size = size;
+            this.message = message;
+        }
+
+    }
+
 }
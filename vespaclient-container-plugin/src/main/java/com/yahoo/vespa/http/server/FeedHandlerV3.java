@@ -22,6 +22,8 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
@@ -39,6 +41,7 @@ public class FeedHandlerV3 extends LoggingRequestHandler {
     private DocumentTypeManager docTypeManager;
     private final Map<String, ClientFeederV3> clientFeederByClientId = new HashMap<>();
     private final ScheduledThreadPoolExecutor cron;
+    private final ExecutorService parserExecutor;
     private final SessionCache sessionCache;
     protected final ReplyHandler feedReplyHandler;
     private final Metric metric;
@@ -57,6 +60,8 @@ public class FeedHandlerV3 extends LoggingRequestHandler {
         feedReplyHandler = new FeedReplyReader(metric, metricsHelper);
         cron = new ScheduledThreadPoolExecutor(1, ThreadFactoryFactory.getThreadFactory("feedhandlerv3.cron"));
         cron.scheduleWithFixedDelay(this::removeOldClients, 16, 11, TimeUnit.MINUTES);
+        parserExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                                                      ThreadFactoryFactory.getDaemonThreadFactory("feedhandlerv3.parser"));
         this.metric = metric;
     }
 
@@ -79,7 +84,8 @@ public class FeedHandlerV3 extends LoggingRequestHandler {
                                                               docTypeManager,
                                                               clientId,
                                                               metric,
-                                                              feedReplyHandler));
+                                                              feedReplyHandler,
+                                                              parserExecutor));
             }
             clientFeederV3 = clientFeederByClientId.get(clientId);
         }
@@ -115,6 +121,7 @@ public class FeedHandlerV3 extends LoggingRequestHandler {
                 }
                 clientFeederByClientId.clear();
             }
+            parserExecutor.shutdown();
         });
         destroyer.setDaemon(true);
         destroyer.start();
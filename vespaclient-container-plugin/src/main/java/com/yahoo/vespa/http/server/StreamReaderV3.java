@@ -4,10 +4,10 @@ package com.yahoo.vespa.http.server;
 import com.yahoo.container.jdisc.HttpRequest;
 import com.yahoo.document.DocumentTypeManager;
 import com.yahoo.vespa.http.client.core.Encoder;
-import com.yahoo.vespa.http.server.util.ByteLimitedInputStream;
 import com.yahoo.vespaxmlparser.FeedOperation;
 import com.yahoo.vespaxmlparser.FeedReader;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Optional;
@@ -30,16 +30,24 @@ public class StreamReaderV3 {
         this.docTypeManager = docTypeManager;
     }
 
-    public FeedOperation getNextOperation(InputStream requestInputStream, FeederSettings settings) throws Exception {
-        FeedOperation op = null;
-
+    /**
+     * Reads the length prefixed data of the next operation in the stream, such that it can be parsed
+     * by {@link #parseOperation} independently of the stream.
+     */
+    public byte[] getNextOperationData(InputStream requestInputStream) throws IOException {
         int length = readByteLength(requestInputStream);
+        byte[] data = requestInputStream.readNBytes(length);
+        if (data.length < length)
+            throw new IllegalStateException("Operation data ended after " + data.length + " of " + length + " bytes.");
+        return data;
+    }
 
-        try (InputStream limitedInputStream = new ByteLimitedInputStream(requestInputStream, length)){
-            FeedReader reader = feedReaderFactory.createReader(limitedInputStream, docTypeManager, settings.dataFormat);
-            op = reader.read();
+    /** Parses the data of one operation. This is thread safe. */
+    public FeedOperation parseOperation(byte[] operationData, FeederSettings settings) throws Exception {
+        try (InputStream operationStream = new ByteArrayInputStream(operationData)) {
+            FeedReader reader = feedReaderFactory.createReader(operationStream, docTypeManager, settings.dataFormat);
+            return reader.read();
         }
-        return op;
     }
 
     public Optional<String> getNextOperationId(InputStream requestInputStream) throws IOException {
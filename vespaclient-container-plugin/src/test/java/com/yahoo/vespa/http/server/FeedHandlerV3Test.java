@@ -28,6 +28,7 @@ import org.mockito.stubbing.Answer;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
+import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
 
@@ -74,6 +75,55 @@ public class FeedHandlerV3Test {
         assertThat(Splitter.on("\n").splitToList(result).size(), is(101));
     }
 
+    @Test
+    public void feedManyDocumentsInRequestOrder() throws Exception {
+        final FeedHandlerV3 feedHandlerV3 = setupFeederHandler(simpleThreadpool);
+        HttpResponse httpResponse = feedHandlerV3.handle(createRequest(1000));
+        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        httpResponse.render(outStream);
+        List<String> lines = Splitter.on("\n").omitEmptyStrings().splitToList(Utf8.toString(outStream.toByteArray()));
+        assertThat(lines.size(), is(1000));
+        for (int i = 0; i < lines.size(); i++)
+            assertThat(lines.get(i), is("123" + i + " OK message trace"));
+    }
+
+    @Test
+    public void feedBrokenDocumentBetweenOthers() throws Exception {
+        final FeedHandlerV3 feedHandlerV3 = setupFeederHandler(simpleThreadpool);
+        String docData = "[{\"put\": \"id:testdocument:testdocument::c\", \"fields\": { \"title\": \"fooKey\", \"body\": \"value\"}}]";
+        String brokenDocData = "[{\"put oops I broke it]";
+        String wireData = "1 " + Integer.toHexString(docData.length()) + "\n" + docData +
+                          "2 " + Integer.toHexString(brokenDocData.length()) + "\n" + brokenDocData +
+                          "3 " + Integer.toHexString(docData.length()) + "\n" + docData;
+        HttpResponse httpResponse = feedHandlerV3.handle(createRequestWithPayload(wireData));
+        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        httpResponse.render(outStream);
+        List<String> lines = Splitter.on("\n").omitEmptyStrings().splitToList(Utf8.toString(outStream.toByteArray()));
+        assertThat(lines.size(), is(3));
+        assertThat(lines.get(0), is("1 OK message trace"));
+        assertThat(lines.get(1), startsWith("2 ERROR "));
+        assertThat(lines.get(2), is("3 OK message trace"));
+        assertThat(metric.get(MetricNames.PARSE_ERROR), is(1L));
+    }
+
+    @Test
+    public void feedDocumentsLargerThanPipelineInRequestOrder() throws Exception {
+        final FeedHandlerV3 feedHandlerV3 = setupFeederHandler(simpleThreadpool);
+        String body = "x".repeat(3 * 1024 * 1024);
+        StringBuilder wireData = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            String docData = "[{\"put\": \"id:testdocument:testdocument::" + i + "\", \"fields\": { \"title\": \"fooKey\", \"body\": \"" + body + "\"}}]";
+            wireData.append(i + " " + Integer.toHexString(docData.length()) + "\n" + docData);
+        }
+        HttpResponse httpResponse = feedHandlerV3.handle(createRequestWithPayload(wireData.toString()));
+        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        httpResponse.render(outStream);
+        List<String> lines = Splitter.on("\n").omitEmptyStrings().splitToList(Utf8.toString(outStream.toByteArray()));
+        assertThat(lines.size(), is(6));
+        for (int i = 0; i < lines.size(); i++)
+            assertThat(lines.get(i), is(i + " OK message trace"));
+    }
+
     private static DocumentTypeManager createDoctypeManager() {
         DocumentTypeManager docTypeManager = new DocumentTypeManager();
         DocumentType documentType = new DocumentType("testdocument");
@@ -0,0 +1,106 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.io;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A pool of growable byte buffers to serialize into, which avoids allocating, and growing, a new buffer
+ * for each serialization. Each thread has buffers of its own, which are lent out by {@link #acquire}
+ * and must be given back by {@link #release} when the content is no longer needed. A few buffers are
+ * kept for each thread, so that nested serializations may also reuse buffers.
+ * Buffers which have grown larger than the max retained size are dropped on release, so that a single
+ * large serialization does not keep a large buffer alive. As a pool may hold buffers for every thread
+ * using it, the max retained size should be kept small.
+ *
+ * The pool counts the buffers it allocates, reuses and drops, and logs these counts at level FINE
+ * each time the number of allocations or drops reaches a power of two.
+ *
+ * This is thread safe.
+ *
+ * @author agent
+ */
+public final class GrowableByteBufferPool {
+
+    private static final Logger log = Logger.getLogger(GrowableByteBufferPool.class.getName());
+
+    /** The max number of buffers to keep for each thread */
+    private static final int maxBuffersPerThread = 4;
+
+    private final String name;
+    private final int initialSize;
+    private final int maxRetainedSize;
+    private final ThreadLocal<Deque<GrowableByteBuffer>> buffers = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private final AtomicLong allocations = new AtomicLong();
+    private final LongAdder reuses = new LongAdder();
+    private final AtomicLong drops = new AtomicLong();
+
+    /**
+     * Creates a pool of buffers
+     *
+     * @param name the name of this pool, used when logging its counts
+     * @param initialSize the initial size of new buffers
+     * @param maxRetainedSize the max capacity of a buffer for it to be reused
+     */
+    public GrowableByteBufferPool(String name, int initialSize, int maxRetainedSize) {
+        if (initialSize > maxRetainedSize)
+            throw new IllegalArgumentException("Initial size " + initialSize +
+                                               " cannot be larger than the max retained size " + maxRetainedSize);
+        this.name = name;
+        this.initialSize = initialSize;
+        this.maxRetainedSize = maxRetainedSize;
+    }
+
+    /**
+     * Returns an empty buffer for use by the calling thread. This is a buffer previously released by this thread
+     * if there is any, and a new buffer otherwise.
+     */
+    public GrowableByteBuffer acquire() {
+        GrowableByteBuffer buffer = buffers.get().pollLast();
+        if (buffer != null) {
+            reuses.increment();
+            return buffer;
+        }
+        logAtPowerOfTwo(allocations.incrementAndGet());
+        return new GrowableByteBuffer(initialSize);
+    }
+
+    /** Gives a buffer returned by {@link #acquire} back to this. The buffer must not be used after this is called */
+    public void release(GrowableByteBuffer buffer) {
+        Deque<GrowableByteBuffer> threadBuffers = buffers.get();
+        if (buffer.capacity() > maxRetainedSize || threadBuffers.size() >= maxBuffersPerThread) {
+            logAtPowerOfTwo(drops.incrementAndGet());
+            return;
+        }
+        buffer.clear();
+        threadBuffers.addLast(buffer);
+    }
+
+    /** Returns the number of buffers allocated by this */
+    public long allocations() { return allocations.get(); }
+
+    /** Returns the number of times a buffer has been reused */
+    public long reuses() { return reuses.sum(); }
+
+    /** Returns the number of released buffers which were not retained for reuse */
+    public long drops() { return drops.get(); }
+
+    /** Logs the counts of this if the given count is a power of two, such that logging becomes rarer as it grows */
+    private void logAtPowerOfTwo(long count) {
+        if ((count & (count - 1)) != 0) return;
+        if ( ! log.isLoggable(Level.FINE)) return;
+        log.fine(toString());
+    }
+
+    @Override
+    public String toString() {
+        return "Buffer pool '" + name + "': " + allocations() + " buffers allocated, " +
+               reuses() + " reused, " + drops() + " dropped";
+    }
+
+}
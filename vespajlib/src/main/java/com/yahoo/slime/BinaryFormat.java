@@ -85,4 +85,33 @@ public class BinaryFormat {
         BinaryDecoder decoder = new BinaryDecoder();
         return decoder.decode(data, offset, length);
     }
+
+    /**
+     * Returns an inspector of binary data without decoding it up front.
+     * Values are decoded directly from the given data as they are accessed,
+     * which is cheaper than decoding everything when only some of the values are used.
+     * The data must not be modified while the returned inspector is in use.
+     *
+     * Any part of the data which can't be decoded without problems is
+     * presented as an invalid value.
+     *
+     * @param data array containing the data to be inspected.
+     * @param offset where in the array the data starts.
+     * @param length the length of the data.
+     * @return an inspector of the root value in the data.
+     **/
+    public static Inspector inspect(byte[] data, int offset, int length) {
+        return BinaryView.inspect(data, offset, length);
+    }
+
+    /**
+     * Returns an inspector of binary data without decoding it up front.
+     *
+     * @param data the data to be inspected.
+     * @return an inspector of the root value in the data.
+     * @see #inspect(byte[], int, int)
+     **/
+    public static Inspector inspect(byte[] data) {
+        return inspect(data, 0, data.length);
+    }
 }
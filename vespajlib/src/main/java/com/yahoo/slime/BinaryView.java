@@ -0,0 +1,367 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.slime;
+
+import static com.yahoo.slime.BinaryFormat.decode_double;
+import static com.yahoo.slime.BinaryFormat.decode_meta;
+import static com.yahoo.slime.BinaryFormat.decode_type;
+import static com.yahoo.slime.BinaryFormat.decode_zigzag;
+
+/**
+ * A read-only value backed directly by data in the Slime binary format, which is decoded
+ * only as it is accessed: The children of an array or object are located the first time
+ * any of them is accessed, and strings and data are copied out of the buffer only when asked for.
+ * This is much cheaper than decoding into a {@link Slime} when only parts of the data are inspected.
+ *
+ * Any part of the data which is not well-formed is presented as an invalid value.
+ * The data must not be modified while it is inspected through this.
+ *
+ * This is thread safe.
+ *
+ * @author agent
+ */
+final class BinaryView extends Value {
+
+    private static final Value[] noValues = new Value[0];
+
+    private final Source source;
+
+    /** The position of the type and meta byte of this value */
+    private final int position;
+
+    /** The children of this, if it is an array or object which has been indexed */
+    private volatile Index index = null;
+
+    private BinaryView(Source source, int position) {
+        this.source = source;
+        this.position = position;
+    }
+
+    /** Returns an inspector of the given slice of data, or an invalid inspector if it has no valid symbol table */
+    static Inspector inspect(byte[] data, int offset, int length) {
+        Source source = new Source(data, offset + length);
+        try {
+            int position = source.readSymbols(offset);
+            source.checkAvailable(position, 1);
+            BinaryView root = new BinaryView(source, position);
+            if (root.type() != Type.ARRAY && root.type() != Type.OBJECT) // containers are checked when indexed
+                source.skipValue(position);
+            return root;
+        }
+        catch (IllegalArgumentException e) {
+            return NixValue.invalid();
+        }
+    }
+
+    private byte typeAndMeta() { return source.data[position]; }
+
+    @Override
+    public Type type() { return decode_type(typeAndMeta()); }
+
+    @Override
+    public int children() { return type() == Type.ARRAY || type() == Type.OBJECT ? index().values.length : 0; }
+
+    @Override
+    public int entries() { return type() == Type.ARRAY ? index().values.length : 0; }
+
+    @Override
+    public int fields() { return type() == Type.OBJECT ? index().values.length : 0; }
+
+    @Override
+    public boolean asBool() { return type() == Type.BOOL && decode_meta(typeAndMeta()) != 0; }
+
+    @Override
+    public long asLong() {
+        switch (type()) {
+            case LONG: return longValue();
+            case DOUBLE: return (long)doubleValue();
+            default: return 0;
+        }
+    }
+
+    @Override
+    public double asDouble() {
+        switch (type()) {
+            case LONG: return (double)longValue();
+            case DOUBLE: return doubleValue();
+            default: return 0.0;
+        }
+    }
+
+    @Override
+    public String asString() {
+        if (type() != Type.STRING) return super.asString();
+        Slice bytes = bytes();
+        return Utf8Codec.decode(source.data, bytes.offset, bytes.length);
+    }
+
+    @Override
+    public byte[] asUtf8() { return type() == Type.STRING ? bytes().copy(source.data) : super.asUtf8(); }
+
+    @Override
+    public byte[] asData() { return type() == Type.DATA ? bytes().copy(source.data) : super.asData(); }
+
+    @Override
+    public void accept(Visitor v) {
+        switch (type()) {
+            case NIX: v.visitNix(); break;
+            case BOOL: v.visitBool(asBool()); break;
+            case LONG: v.visitLong(longValue()); break;
+            case DOUBLE: v.visitDouble(doubleValue()); break;
+            case STRING: v.visitString(asUtf8()); break;
+            case DATA: v.visitData(asData()); break;
+            case ARRAY: v.visitArray(this); break;
+            case OBJECT: v.visitObject(this); break;
+        }
+    }
+
+    @Override
+    public void traverse(ArrayTraverser at) {
+        if (type() != Type.ARRAY) return;
+        Value[] values = index().values;
+        for (int i = 0; i < values.length; i++)
+            at.entry(i, values[i]);
+    }
+
+    @Override
+    public void traverse(ObjectSymbolTraverser ot) {
+        if (type() != Type.OBJECT) return;
+        Index index = index();
+        for (int i = 0; i < index.values.length; i++)
+            ot.field(index.symbols[i], index.values[i]);
+    }
+
+    @Override
+    public void traverse(ObjectTraverser ot) {
+        if (type() != Type.OBJECT) return;
+        Index index = index();
+        for (int i = 0; i < index.values.length; i++)
+            ot.field(source.names.inspect(index.symbols[i]), index.values[i]);
+    }
+
+    @Override
+    public Value entry(int idx) {
+        if (type() != Type.ARRAY) return NixValue.invalid();
+        Value[] values = index().values;
+        return idx >= 0 && idx < values.length ? values[idx] : NixValue.invalid();
+    }
+
+    @Override
+    public Value field(int sym) {
+        if (type() != Type.OBJECT) return NixValue.invalid();
+        Index index = index();
+        for (int i = 0; i < index.values.length; i++) {
+            if (index.symbols[i] == sym)
+                return index.values[i];
+        }
+        return NixValue.invalid();
+    }
+
+    @Override
+    public Value field(String name) {
+        if (type() != Type.OBJECT) return NixValue.invalid();
+        int sym = source.names.lookup(name);
+        return sym == SymbolTable.INVALID ? NixValue.invalid() : field(sym);
+    }
+
+    private long longValue() {
+        return decode_zigzag(source.readBytesLe(position + 1, decode_meta(typeAndMeta())));
+    }
+
+    private double doubleValue() {
+        return decode_double(source.readBytesBe(position + 1, decode_meta(typeAndMeta())));
+    }
+
+    /** Returns the location of the content of this string or data value */
+    private Slice bytes() {
+        Slice bytes = new Slice(position + 1);
+        int meta = decode_meta(typeAndMeta());
+        bytes.length = meta == 0 ? (int)source.readCompressedLong(bytes) : meta - 1;
+        return bytes;
+    }
+
+    /** Returns the children of this array or object, indexing them on first access */
+    private Index index() {
+        Index index = this.index;
+        if (index == null) {
+            index = createIndex();
+            this.index = index; // Concurrent callers may index twice, which does no harm
+        }
+        return index;
+    }
+
+    private Index createIndex() {
+        boolean isObject = type() == Type.OBJECT;
+        try {
+            Slice cursor = new Slice(position + 1);
+            int meta = decode_meta(typeAndMeta());
+            long size = meta == 0 ? source.readCompressedLong(cursor) : meta - 1;
+            if (size > source.end - cursor.offset) // each child takes at least one byte
+                throw new IllegalArgumentException("Underflow");
+
+            int[] symbols = isObject ? new int[(int)size] : null;
+            Value[] values = new Value[(int)size];
+            for (int i = 0; i < size; i++) {
+                if (isObject) {
+                    long symbol = source.readCompressedLong(cursor);
+                    if (symbol >= source.names.symbols())
+                        throw new IllegalArgumentException("Unknown symbol " + symbol);
+                    symbols[i] = (int)symbol;
+                }
+                source.checkAvailable(cursor.offset, 1);
+                values[i] = new BinaryView(source, cursor.offset);
+                cursor.offset = source.skipValue(cursor.offset);
+            }
+            return new Index(symbols, values);
+        }
+        catch (IllegalArgumentException e) {
+            return new Index(isObject ? new int[0] : null, noValues);
+        }
+    }
+
+    /** The children of an array or object */
+    private static final class Index {
+
+        /** The symbols of the fields of an object, or null if this is an array */
+        final int[] symbols;
+
+        final Value[] values;
+
+        Index(int[] symbols, Value[] values) {
+            this.symbols = symbols;
+            this.values = values;
+        }
+
+    }
+
+    /** A mutable position in the data, and the length of the bytes there, if any */
+    private static final class Slice {
+
+        int offset;
+        int length;
+
+        Slice(int offset) {
+            this.offset = offset;
+        }
+
+        byte[] copy(byte[] data) {
+            byte[] copy = new byte[length];
+            System.arraycopy(data, offset, copy, 0, length);
+            return copy;
+        }
+
+    }
+
+    /** The data inspected, and the symbols used in it, which are shared by all the values in it */
+    private static final class Source {
+
+        final byte[] data;
+        final int end;
+        final SymbolTable names = new SymbolTable();
+
+        Source(byte[] data, int end) {
+            this.data = data;
+            this.end = end;
+        }
+
+        /** Reads the symbol table starting at the given position and returns the position after it */
+        int readSymbols(int position) {
+            Slice cursor = new Slice(position);
+            long numSymbols = readCompressedLong(cursor);
+            for (int i = 0; i < numSymbols; i++) {
+                int size = (int)readCompressedLong(cursor);
+                checkAvailable(cursor.offset, size);
+                if (names.insert(Utf8Codec.decode(data, cursor.offset, size)) != i)
+                    throw new IllegalArgumentException("Duplicate symbols in symbol table");
+                cursor.offset += size;
+            }
+            return cursor.offset;
+        }
+
+        /** Returns the position after the value at the given position */
+        int skipValue(int position) {
+            checkAvailable(position, 1);
+            byte typeAndMeta = data[position];
+            int meta = decode_meta(typeAndMeta);
+            Slice cursor = new Slice(position + 1);
+            switch (decode_type(typeAndMeta)) {
+                case NIX:
+                case BOOL:
+                    break;
+                case LONG:
+                case DOUBLE:
+                    cursor.offset += meta;
+                    break;
+                case STRING:
+                case DATA: {
+                    long size = readSize(cursor, meta);
+                    checkAvailable(cursor.offset, size);
+                    cursor.offset += size;
+                    break;
+                }
+                case ARRAY: {
+                    long size = readSize(cursor, meta);
+                    for (long i = 0; i < size; i++)
+                        cursor.offset = skipValue(cursor.offset);
+                    break;
+                }
+                case OBJECT: {
+                    long size = readSize(cursor, meta);
+                    for (long i = 0; i < size; i++) {
+                        readCompressedLong(cursor);
+                        cursor.offset = skipValue(cursor.offset);
+                    }
+                    break;
+                }
+            }
+            checkAvailable(cursor.offset, 0);
+            return cursor.offset;
+        }
+
+        private long readSize(Slice cursor, int meta) {
+            return meta == 0 ? readCompressedLong(cursor) : meta - 1;
+        }
+
+        /** Reads a compressed long at the cursor and advances it past the long */
+        long readCompressedLong(Slice cursor) {
+            long value = 0;
+            int shift = 0;
+            long next;
+            do {
+                checkAvailable(cursor.offset, 1);
+                next = data[cursor.offset++];
+                value |= ((next & 0x7f) << shift);
+                shift += 7;
+            } while ((next & 0x80) != 0);
+            return value;
+        }
+
+        long readBytesLe(int position, int bytes) {
+            checkAvailable(position, bytes);
+            long value = 0;
+            int shift = 0;
+            for (int i = 0; i < bytes; ++i) {
+                value |= (data[position + i] & 0xffL) << shift;
+                shift += 8;
+            }
+            return value;
+        }
+
+        long readBytesBe(int position, int bytes) {
+            checkAvailable(position, bytes);
+            long value = 0;
+            int shift = 56;
+            for (int i = 0; i < bytes; ++i) {
+                value |= (data[position + i] & 0xffL) << shift;
+                shift -= 8;
+            }
+            return value;
+        }
+
+        void checkAvailable(int position, long bytes) {
+            if (bytes < 0 || position + bytes > end)
+                throw new IllegalArgumentException("Underflow");
+        }
+
+    }
+
+}
@@ -0,0 +1,92 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+/**
+ * Loops over the value arrays of indexed tensors.
+ *
+ * Sums are accumulated in four independent lanes which are added at the end. This breaks the dependency
+ * between consecutive additions such that the loop is bound by throughput rather than latency, at the
+ * cost of a different rounding than strict left-to-right summation.
+ * Float values are widened to double before they are multiplied or added.
+ *
+ * @author agent
+ */
+final class DenseKernels {
+
+    private DenseKernels() {}
+
+    static double dotProduct(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            s0 += a[aOffset + i]     * b[bOffset + i];
+            s1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++)
+            s0 += a[aOffset + i] * b[bOffset + i];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    static double dotProduct(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            s0 += (double)a[aOffset + i]     * b[bOffset + i];
+            s1 += (double)a[aOffset + i + 1] * b[bOffset + i + 1];
+            s2 += (double)a[aOffset + i + 2] * b[bOffset + i + 2];
+            s3 += (double)a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++)
+            s0 += (double)a[aOffset + i] * b[bOffset + i];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    static double sum(double[] values, int offset, int length) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = offset;
+        int end = offset + length;
+        for (; i + 3 < end; i += 4) {
+            s0 += values[i];
+            s1 += values[i + 1];
+            s2 += values[i + 2];
+            s3 += values[i + 3];
+        }
+        for (; i < end; i++)
+            s0 += values[i];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    static double sum(float[] values, int offset, int length) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = offset;
+        int end = offset + length;
+        for (; i + 3 < end; i += 4) {
+            s0 += values[i];
+            s1 += values[i + 1];
+            s2 += values[i + 2];
+            s3 += values[i + 3];
+        }
+        for (; i < end; i++)
+            s0 += values[i];
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    static double max(double[] values, int offset, int length) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = offset; i < offset + length; i++)
+            if (values[i] > max)
+                max = values[i];
+        return max;
+    }
+
+    static double max(float[] values, int offset, int length) {
+        float max = Float.NEGATIVE_INFINITY;
+        for (int i = offset; i < offset + length; i++)
+            if (values[i] > max)
+                max = values[i];
+        return max;
+    }
+
+}
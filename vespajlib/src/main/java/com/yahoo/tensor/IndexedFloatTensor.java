@@ -28,6 +28,22 @@ class IndexedFloatTensor extends IndexedTensor {
     @Override
     public float getFloat(long valueIndex) { return values[(int)valueIndex]; }
 
+    @Override
+    public double dotProduct(long offset, IndexedTensor other, long otherOffset, long length) {
+        if ( ! (other instanceof IndexedFloatTensor)) return super.dotProduct(offset, other, otherOffset, length);
+        return DenseKernels.dotProduct(values, (int)offset, ((IndexedFloatTensor)other).values, (int)otherOffset, (int)length);
+    }
+
+    @Override
+    public double valueSum(long offset, long length) {
+        return DenseKernels.sum(values, (int)offset, (int)length);
+    }
+
+    @Override
+    public double valueMax(long offset, long length) {
+        return DenseKernels.max(values, (int)offset, (int)length);
+    }
+
     @Override
     public IndexedTensor withType(TensorType type) {
         throwOnIncompatibleType(type);
@@ -134,6 +134,46 @@ public abstract class IndexedTensor implements Tensor {
      */
     public abstract float getFloat(long valueIndex);
 
+    /**
+     * Returns the sum of the products of <code>length</code> values of this and the given tensor,
+     * starting at the given <i>standard value order</i> index in each.
+     * This is faster than iterating over the values when both tensors have the same value type.
+     *
+     * @throws IndexOutOfBoundsException if any of the values are out of bounds
+     */
+    public double dotProduct(long offset, IndexedTensor other, long otherOffset, long length) {
+        double sum = 0;
+        for (long i = 0; i < length; i++)
+            sum += get(offset + i) * other.get(otherOffset + i);
+        return sum;
+    }
+
+    /**
+     * Returns the sum of <code>length</code> values starting at the given <i>standard value order</i> index.
+     *
+     * @throws IndexOutOfBoundsException if any of the values are out of bounds
+     */
+    public double valueSum(long offset, long length) {
+        double sum = 0;
+        for (long i = offset; i < offset + length; i++)
+            sum += get(i);
+        return sum;
+    }
+
+    /**
+     * Returns the largest of <code>length</code> values starting at the given <i>standard value order</i> index,
+     * ignoring NaN, or negative infinity if there are no other values.
+     *
+     * @throws IndexOutOfBoundsException if any of the values are out of bounds
+     */
+    public double valueMax(long offset, long length) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (long i = offset; i < offset + length; i++)
+            if (get(i) > max)
+                max = get(i);
+        return max;
+    }
+
     static long toValueIndex(long[] indexes, DimensionSizes sizes) {
         if (indexes.length == 1) return indexes[0]; // for speed
         if (indexes.length == 0) return 0; // for speed
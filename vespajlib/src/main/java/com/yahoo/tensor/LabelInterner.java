@@ -0,0 +1,29 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+
+/**
+ * Interns the string labels of the tensor addresses stored in tensors, such that equal labels held by
+ * tensors are the same instance and are mostly compared by identity. Each distinct label in use is stored once.
+ *
+ * Labels are weakly referenced, so a label is dropped when no address (or anything else) refers to it.
+ *
+ * This is thread safe.
+ *
+ * @author agent
+ */
+final class LabelInterner {
+
+    private static final Interner<String> labels = Interners.newWeakInterner();
+
+    private LabelInterner() {}
+
+    /** Returns the canonical instance of the given label, or null if it is null */
+    static String intern(String label) {
+        if (label == null) return null;
+        return labels.intern(label);
+    }
+
+}
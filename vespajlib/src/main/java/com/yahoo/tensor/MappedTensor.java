@@ -102,7 +102,7 @@ public class MappedTensor implements Tensor {
 
         @Override
         public Builder cell(TensorAddress address, double value) {
-            cells.put(address, value);
+            cells.put(address.interned(), value);
             return this;
         }
 
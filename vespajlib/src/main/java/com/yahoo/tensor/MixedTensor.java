@@ -226,14 +226,14 @@ public class MixedTensor implements Tensor {
 
         private double[] denseSubspace(TensorAddress sparseAddress) {
             if (!denseSubspaceMap.containsKey(sparseAddress)) {
-                denseSubspaceMap.put(sparseAddress, new double[(int)denseSubspaceSize()]);
+                denseSubspaceMap.put(sparseAddress.interned(), new double[(int)denseSubspaceSize()]);
             }
             return denseSubspaceMap.get(sparseAddress);
         }
 
         public IndexedTensor.DirectIndexBuilder denseSubspaceBuilder(TensorAddress sparseAddress) {
             double[] values = new double[(int)denseSubspaceSize()];
-            denseSubspaceMap.put(sparseAddress, values);
+            denseSubspaceMap.put(sparseAddress.interned(), values);
             return new DenseSubspaceBuilder(denseSubtype, values);
         }
 
@@ -15,11 +15,11 @@ import java.util.stream.Collectors;
 public abstract class TensorAddress implements Comparable<TensorAddress> {
 
     public static TensorAddress of(String[] labels) {
-        return new StringTensorAddress(labels);
+        return StringTensorAddress.copyOf(labels);
     }
 
     public static TensorAddress ofLabels(String ... labels) {
-        return new StringTensorAddress(labels);
+        return StringTensorAddress.copyOf(labels);
     }
 
     public static TensorAddress of(long ... labels) {
@@ -46,6 +46,24 @@ public abstract class TensorAddress implements Comparable<TensorAddress> {
 
     public abstract TensorAddress withLabel(int labelIndex, long label);
 
+    /**
+     * Returns an address containing the labels of this at the given indexes, in the given order.
+     * That is, label i in the returned address is label indexes[i] in this.
+     */
+    public TensorAddress partialCopy(int[] indexes) {
+        String[] labels = new String[indexes.length];
+        for (int i = 0; i < indexes.length; i++)
+            labels[i] = label(indexes[i]);
+        return TensorAddress.of(labels);
+    }
+
+    /**
+     * Returns an equal address where string labels are interned by the {@link LabelInterner}.
+     * This is done by tensor builders, such that the addresses stored in tensors share label instances,
+     * but not for addresses which are just used for lookups.
+     */
+    TensorAddress interned() { return this; }
+
     public final boolean isEmpty() { return size() == 0; }
 
     @Override
@@ -98,12 +116,37 @@ public abstract class TensorAddress implements Comparable<TensorAddress> {
         return "'" + label + "'";
     }
 
+    /**
+     * An address of string labels, with a precomputed hash. The labels of addresses stored in tensors
+     * are interned, such that they are mostly compared to each other by identity.
+     */
     private static final class StringTensorAddress extends TensorAddress {
 
         private final String[] labels;
+        private final int hash;
 
-        private StringTensorAddress(String ... labels) {
-            this.labels = Arrays.copyOf(labels, labels.length);
+        /** Whether the labels of this are interned */
+        private final boolean interned;
+
+        /** Creates an address from labels which are not shared with anything else */
+        private StringTensorAddress(String[] labels, boolean interned) {
+            this.labels = labels;
+            this.hash = Arrays.hashCode(labels);
+            this.interned = interned;
+        }
+
+        private static StringTensorAddress copyOf(String ... labels) {
+            return new StringTensorAddress(Arrays.copyOf(labels, labels.length), false);
+        }
+
+        @Override
+        TensorAddress interned() {
+            if (interned) return this;
+
+            String[] internedLabels = new String[labels.length];
+            for (int i = 0; i < labels.length; i++)
+                internedLabels[i] = LabelInterner.intern(labels[i]);
+            return new StringTensorAddress(internedLabels, true);
         }
 
         @Override
@@ -115,10 +158,10 @@ public abstract class TensorAddress implements Comparable<TensorAddress> {
         @Override
         public long numericLabel(int i) {
             try {
-                return Long.parseLong(labels[i]);
+                return Long.parseLong(label(i));
             }
             catch (NumberFormatException e) {
-                throw new IllegalArgumentException("Expected an integer label in " + this + " at position " + i + " but got '" + labels[i] + "'");
+                throw new IllegalArgumentException("Expected an integer label in " + this + " at position " + i + " but got '" + label(i) + "'");
             }
         }
 
@@ -126,9 +169,29 @@ public abstract class TensorAddress implements Comparable<TensorAddress> {
         public TensorAddress withLabel(int index, long label) {
             String[] labels = Arrays.copyOf(this.labels, this.labels.length);
             labels[index] = String.valueOf(label);
-            return new StringTensorAddress(labels);
+            return new StringTensorAddress(labels, false);
+        }
+
+        @Override
+        public TensorAddress partialCopy(int[] indexes) {
+            String[] labels = new String[indexes.length];
+            for (int i = 0; i < indexes.length; i++)
+                labels[i] = this.labels[indexes[i]];
+            return new StringTensorAddress(labels, interned);
         }
 
+        @Override
+        public int hashCode() { return hash; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if (o instanceof StringTensorAddress) {
+                StringTensorAddress other = (StringTensorAddress) o;
+                return hash == other.hash && Arrays.equals(labels, other.labels); // interned labels are identical
+            }
+            return super.equals(o);
+        }
 
         @Override
         public String toString() {
@@ -161,6 +224,46 @@ public abstract class TensorAddress implements Comparable<TensorAddress> {
             return new NumericTensorAddress(labels);
         }
 
+        @Override
+        public TensorAddress partialCopy(int[] indexes) {
+            long[] labels = new long[indexes.length];
+            for (int i = 0; i < indexes.length; i++)
+                labels[i] = this.labels[indexes[i]];
+            return new NumericTensorAddress(labels);
+        }
+
+        /** Returns the same hash as the string form of this would have, without creating strings */
+        @Override
+        public int hashCode() {
+            int result = 1;
+            for (long label : labels)
+                result = 31 * result + hashOf(label);
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o instanceof NumericTensorAddress)
+                return Arrays.equals(labels, ((NumericTensorAddress) o).labels);
+            return super.equals(o);
+        }
+
+        /** Returns the hash code of String.valueOf(label) */
+        private static int hashOf(long label) {
+            if (label == Long.MIN_VALUE) return String.valueOf(label).hashCode();
+            int hash = 0;
+            if (label < 0) {
+                hash = '-';
+                label = -label;
+            }
+            long divisor = 1;
+            while (label / divisor >= 10)
+                divisor *= 10;
+            for (; divisor > 0; divisor /= 10)
+                hash = 31 * hash + (char)('0' + (label / divisor) % 10);
+            return hash;
+        }
+
         @Override
         public String toString() {
             return "cell address (" + Arrays.stream(labels).mapToObj(String::valueOf).collect(Collectors.joining(",")) + ")";
@@ -3,6 +3,8 @@ package com.yahoo.tensor.evaluation;
 
 import com.yahoo.tensor.Tensor;
 
+import java.util.Optional;
+
 /**
  * An evaluation context which is passed down to all nested functions during evaluation.
  *
@@ -13,4 +15,10 @@ public interface EvaluationContext<NAMETYPE extends Name> extends TypeContext<NA
     /** Returns the tensor bound to this name, or null if none */
     Tensor getTensor(String name);
 
+    /**
+     * Returns the settings to use to evaluate functions over many cells on multiple threads,
+     * or empty (the default) to evaluate all functions on the calling thread.
+     */
+    default Optional<ParallelEvaluation> parallelEvaluation() { return Optional.empty(); }
+
 }
@@ -5,6 +5,7 @@ import com.yahoo.tensor.Tensor;
 import com.yahoo.tensor.TensorType;
 
 import java.util.HashMap;
+import java.util.Optional;
 
 /**
  * @author bratseth
@@ -12,9 +13,15 @@ import java.util.HashMap;
 public class MapEvaluationContext<NAMETYPE extends Name> implements EvaluationContext<NAMETYPE> {
 
     private final java.util.Map<String, Tensor> bindings = new HashMap<>();
+    private ParallelEvaluation parallelEvaluation = null;
 
     public void put(String name, Tensor tensor) { bindings.put(name, tensor); }
 
+    /** Sets the settings to use to evaluate functions on multiple threads, or null (the default) to disable it */
+    public void setParallelEvaluation(ParallelEvaluation parallelEvaluation) {
+        this.parallelEvaluation = parallelEvaluation;
+    }
+
     @Override
     public TensorType getType(String name) {
         Tensor tensor = bindings.get(name);
@@ -30,4 +37,7 @@ public class MapEvaluationContext<NAMETYPE extends Name> implements EvaluationCo
     @Override
     public Tensor getTensor(String name) { return bindings.get(name); }
 
+    @Override
+    public Optional<ParallelEvaluation> parallelEvaluation() { return Optional.ofNullable(parallelEvaluation); }
+
 }
@@ -0,0 +1,108 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.evaluation;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Settings for evaluating tensor functions over many cells using multiple threads.
+ * Functions which are cheaper than the given number of cell operations are always
+ * evaluated on the calling thread.
+ *
+ * When this is used, any free generator functions and scalar functions given to tensor functions
+ * may be invoked concurrently, and must therefore be thread safe.
+ *
+ * @author agent
+ */
+public final class ParallelEvaluation {
+
+    /** The default minimum number of cell operations a function must require to be evaluated in parallel */
+    public static final long defaultMinCellOperations = 1 << 16;
+
+    /** The number of tasks to split work into per thread of the pool, to even out differences in speed */
+    private static final int tasksPerThread = 4;
+
+    private final ForkJoinPool pool;
+    private final long minCellOperations;
+
+    /** Creates a parallel evaluation using the given pool and the default minimum number of cell operations */
+    public ParallelEvaluation(ForkJoinPool pool) {
+        this(pool, defaultMinCellOperations);
+    }
+
+    /**
+     * Creates a parallel evaluation
+     *
+     * @param pool the pool to evaluate functions in
+     * @param minCellOperations the minimum number of cell operations a function must require
+     *                          for it to be evaluated in parallel
+     */
+    public ParallelEvaluation(ForkJoinPool pool, long minCellOperations) {
+        if (minCellOperations < 1)
+            throw new IllegalArgumentException("The minimum number of cell operations must be positive, not " +
+                                               minCellOperations);
+        this.pool = Objects.requireNonNull(pool, "The pool cannot be null");
+        this.minCellOperations = minCellOperations;
+    }
+
+    public ForkJoinPool pool() { return pool; }
+
+    public long minCellOperations() { return minCellOperations; }
+
+    /**
+     * Runs the given task over consecutive, disjoint ranges which together cover [0, size).
+     * This happens in parallel if the given parallel evaluation is non-null and the work
+     * is large enough, and otherwise as a single range on the calling thread.
+     * This returns when all ranges have been completed.
+     *
+     * @param parallel the parallel evaluation to use, or null to run on the calling thread
+     * @param size the number of items to process
+     * @param cellOperationsPerItem the (approximate) number of cell operations needed to process each item
+     * @param task the task to run for each range
+     */
+    public static void forEachRange(ParallelEvaluation parallel, int size, long cellOperationsPerItem, RangeTask task) {
+        if (parallel == null || size < 2 || (long)size * cellOperationsPerItem < parallel.minCellOperations) {
+            task.run(0, size);
+            return;
+        }
+        int rangeSize = Math.max(1, size / (parallel.pool.getParallelism() * tasksPerThread));
+        parallel.pool.invoke(new RangeAction(task, 0, size, rangeSize));
+    }
+
+    /** A task processing the items in a range */
+    @FunctionalInterface
+    public interface RangeTask {
+
+        /** Processes the items from the start index (inclusive) to the end index (exclusive) */
+        void run(int start, int end);
+
+    }
+
+    private static class RangeAction extends RecursiveAction {
+
+        private final RangeTask task;
+        private final int start, end, rangeSize;
+
+        RangeAction(RangeTask task, int start, int end, int rangeSize) {
+            this.task = task;
+            this.start = start;
+            this.end = end;
+            this.rangeSize = rangeSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start <= rangeSize) {
+                task.run(start, end);
+            }
+            else {
+                int middle = start + (end - start) / 2;
+                invokeAll(new RangeAction(task, start, middle, rangeSize),
+                          new RangeAction(task, middle, end, rangeSize));
+            }
+        }
+
+    }
+
+}
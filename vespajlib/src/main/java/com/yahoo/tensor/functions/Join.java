@@ -11,6 +11,7 @@ import com.yahoo.tensor.TensorAddress;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.evaluation.EvaluationContext;
 import com.yahoo.tensor.evaluation.Name;
+import com.yahoo.tensor.evaluation.ParallelEvaluation;
 import com.yahoo.tensor.evaluation.TypeContext;
 
 import java.util.ArrayList;
@@ -88,15 +89,21 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
         Tensor a = argumentA.evaluate(context);
         Tensor b = argumentB.evaluate(context);
         TensorType joinedType = outputType(a.type(), b.type());
-        return evaluate(a, b, joinedType, combinator);
+        return evaluate(a, b, joinedType, combinator, context.parallelEvaluation().orElse(null));
     }
 
-    static Tensor evaluate(Tensor a, Tensor b, TensorType joinedType, DoubleBinaryOperator combinator) {
+    /**
+     * Joins two tensors
+     *
+     * @param parallel the settings to use to join large tensors in parallel, or null to join on this thread
+     */
+    static Tensor evaluate(Tensor a, Tensor b, TensorType joinedType, DoubleBinaryOperator combinator,
+                           ParallelEvaluation parallel) {
         // Choose join algorithm
         if (hasSingleIndexedDimension(a) && hasSingleIndexedDimension(b) && a.type().dimensions().get(0).name().equals(b.type().dimensions().get(0).name()))
-            return indexedVectorJoin((IndexedTensor)a, (IndexedTensor)b, joinedType, combinator);
+            return indexedVectorJoin((IndexedTensor)a, (IndexedTensor)b, joinedType, combinator, parallel);
         else if (joinedType.dimensions().size() == a.type().dimensions().size() && joinedType.dimensions().size() == b.type().dimensions().size())
-            return singleSpaceJoin(a, b, joinedType, combinator);
+            return singleSpaceJoin(a, b, joinedType, combinator, parallel);
         else if (a.type().dimensions().containsAll(b.type().dimensions()))
             return subspaceJoin(b, a, joinedType, true, combinator);
         else if (b.type().dimensions().containsAll(a.type().dimensions()))
@@ -110,18 +117,56 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
         return tensor.type().dimensions().size() == 1 && tensor.type().dimensions().get(0).isIndexed();
     }
 
-    private static Tensor indexedVectorJoin(IndexedTensor a, IndexedTensor b, TensorType type, DoubleBinaryOperator combinator) {
-        long joinedRank = Math.min(a.dimensionSizes().size(0), b.dimensionSizes().size(0));
-        Iterator<Double> aIterator = a.valueIterator();
-        Iterator<Double> bIterator = b.valueIterator();
-        IndexedTensor.Builder builder = IndexedTensor.Builder.of(type, new DimensionSizes.Builder(1).set(0, joinedRank).build());
-        for (int i = 0; i < joinedRank; i++)
-            builder.cell(combinator.applyAsDouble(aIterator.next(), bIterator.next()), i);
-        return builder.build();
+    private static Tensor indexedVectorJoin(IndexedTensor a, IndexedTensor b, TensorType type, DoubleBinaryOperator combinator,
+                                            ParallelEvaluation parallel) {
+        int joinedRank = (int)Math.min(a.dimensionSizes().size(0), b.dimensionSizes().size(0));
+        DimensionSizes joinedSizes = new DimensionSizes.Builder(1).set(0, joinedRank).build();
+        return indexedCellwiseJoin(a, b, type, joinedSizes, combinator, false, parallel);
+    }
+
+    /**
+     * Joins the cells having the same position in the value order of two tensors having the given size
+     *
+     * @param nanIsMissing whether a NaN cell in b is treated as a missing cell, leaving the joined cell at 0
+     */
+    private static Tensor indexedCellwiseJoin(IndexedTensor a, IndexedTensor b, TensorType type, DimensionSizes joinedSizes,
+                                              DoubleBinaryOperator combinator, boolean nanIsMissing,
+                                              ParallelEvaluation parallel) {
+        int size = (int)joinedSizes.totalSize();
+        if (type.valueType() == TensorType.Value.FLOAT) {
+            float[] values = new float[size];
+            ParallelEvaluation.forEachRange(parallel, size, 1, (start, end) -> {
+                for (int i = start; i < end; i++) {
+                    double bCellValue = b.get(i);
+                    if (nanIsMissing && Double.isNaN(bCellValue)) continue;
+                    values[i] = (float)combinator.applyAsDouble(a.get(i), bCellValue);
+                }
+            });
+            return IndexedTensor.Builder.of(type, joinedSizes, values).build();
+        }
+        else {
+            double[] values = new double[size];
+            ParallelEvaluation.forEachRange(parallel, size, 1, (start, end) -> {
+                for (int i = start; i < end; i++) {
+                    double bCellValue = b.get(i);
+                    if (nanIsMissing && Double.isNaN(bCellValue)) continue;
+                    values[i] = combinator.applyAsDouble(a.get(i), bCellValue);
+                }
+            });
+            return IndexedTensor.Builder.of(type, joinedSizes, values).build();
+        }
     }
 
     /** When both tensors have the same dimensions, at most one cell matches a cell in the other tensor */
-    private static Tensor singleSpaceJoin(Tensor a, Tensor b, TensorType joinedType, DoubleBinaryOperator combinator) {
+    private static Tensor singleSpaceJoin(Tensor a, Tensor b, TensorType joinedType, DoubleBinaryOperator combinator,
+                                          ParallelEvaluation parallel) {
+        if (a instanceof IndexedTensor && b instanceof IndexedTensor &&
+            ((IndexedTensor)a).dimensionSizes().equals(((IndexedTensor)b).dimensionSizes()))
+            return indexedCellwiseJoin((IndexedTensor)a, (IndexedTensor)b, joinedType, ((IndexedTensor)a).dimensionSizes(),
+                                       combinator, true, parallel);
+        if (parallel != null && a.size() >= parallel.minCellOperations())
+            return parallelSingleSpaceJoin(a, b, joinedType, combinator, parallel);
+
         Tensor.Builder builder = Tensor.Builder.of(joinedType);
         for (Iterator<Tensor.Cell> i = a.cellIterator(); i.hasNext(); ) {
             Map.Entry<TensorAddress, Double> aCell = i.next();
@@ -132,6 +177,35 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
         return builder.build();
     }
 
+    /** Looks up and joins ranges of the cells of a in parallel, and then adds the matching cells to the result */
+    private static Tensor parallelSingleSpaceJoin(Tensor a, Tensor b, TensorType joinedType, DoubleBinaryOperator combinator,
+                                                  ParallelEvaluation parallel) {
+        int size = (int)a.size();
+        TensorAddress[] addresses = new TensorAddress[size];
+        double[] values = new double[size];
+        int n = 0;
+        for (Iterator<Tensor.Cell> i = a.cellIterator(); i.hasNext(); n++) {
+            Tensor.Cell aCell = i.next();
+            addresses[n] = aCell.getKey();
+            values[n] = aCell.getValue();
+        }
+        boolean[] matches = new boolean[size];
+        ParallelEvaluation.forEachRange(parallel, size, 1, (start, end) -> {
+            for (int i = start; i < end; i++) {
+                double bCellValue = b.get(addresses[i]);
+                if (Double.isNaN(bCellValue)) continue; // no match
+                values[i] = combinator.applyAsDouble(values[i], bCellValue);
+                matches[i] = true;
+            }
+        });
+        Tensor.Builder builder = Tensor.Builder.of(joinedType);
+        for (int i = 0; i < size; i++) {
+            if (matches[i])
+                builder.cell(addresses[i], values[i]);
+        }
+        return builder.build();
+    }
+
     /** Join a tensor into a superspace */
     private static Tensor subspaceJoin(Tensor subspace, Tensor superspace, TensorType joinedType, boolean reversedArgumentOrder, DoubleBinaryOperator combinator) {
         if (subspace instanceof IndexedTensor && superspace instanceof IndexedTensor)
@@ -220,10 +294,7 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
     }
 
     private static TensorAddress mapAddressToSubspace(TensorAddress superAddress, int[] subspaceIndexes) {
-        String[] subspaceLabels = new String[subspaceIndexes.length];
-        for (int i = 0; i < subspaceIndexes.length; i++)
-            subspaceLabels[i] = superAddress.label(subspaceIndexes[i]);
-        return TensorAddress.of(subspaceLabels);
+        return superAddress.partialCopy(subspaceIndexes);
     }
 
     /** Slow join which works for any two tensors */
@@ -410,12 +481,7 @@ public class Join<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMETYP
     }
 
     private static TensorAddress partialCommonAddress(Tensor.Cell cell, int[] indexMap) {
-        TensorAddress address = cell.getKey();
-        String[] labels = new String[indexMap.length];
-        for (int i = 0; i < labels.length; ++i) {
-            labels[i] = address.label(indexMap[i]);
-        }
-        return TensorAddress.of(labels);
+        return cell.getKey().partialCopy(indexMap);
     }
 
 }
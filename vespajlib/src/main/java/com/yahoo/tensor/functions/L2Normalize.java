@@ -1,6 +1,11 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.tensor.functions;
 
+import com.yahoo.tensor.DimensionSizes;
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.evaluation.EvaluationContext;
 import com.yahoo.tensor.evaluation.Name;
 
 import java.util.Collections;
@@ -40,6 +45,40 @@ public class L2Normalize<NAMETYPE extends Name> extends CompositeTensorFunction<
                         ScalarFunctions.divide());
     }
 
+    @Override
+    public Tensor evaluate(EvaluationContext<NAMETYPE> context) {
+        Tensor argumentValue = argument.evaluate(context);
+        if (isIndexedVectorIn(dimension, argumentValue))
+            return normalize((IndexedTensor)argumentValue);
+        return new L2Normalize<NAMETYPE>(new ConstantTensor<>(argumentValue), dimension).toPrimitive().evaluate(context);
+    }
+
+    private static boolean isIndexedVectorIn(String dimension, Tensor tensor) {
+        return tensor instanceof IndexedTensor &&
+               tensor.type().dimensions().size() == 1 &&
+               tensor.type().dimensions().get(0).name().equals(dimension);
+    }
+
+    private static Tensor normalize(IndexedTensor vector) {
+        int size = (int)vector.dimensionSizes().size(0);
+        double sumOfSquares = vector.dotProduct(0, vector, 0, size);
+        DimensionSizes sizes = vector.dimensionSizes();
+        if (vector.type().valueType() == TensorType.Value.FLOAT) {
+            float norm = (float)Math.sqrt((float)sumOfSquares);
+            float[] values = new float[size];
+            for (int i = 0; i < size; i++)
+                values[i] = (float)(vector.get(i) / norm);
+            return IndexedTensor.Builder.of(vector.type(), sizes, values).build();
+        }
+        else {
+            double norm = Math.sqrt(sumOfSquares);
+            double[] values = new double[size];
+            for (int i = 0; i < size; i++)
+                values[i] = vector.get(i) / norm;
+            return IndexedTensor.Builder.of(vector.type(), sizes, values).build();
+        }
+    }
+
     @Override
     public String toString(ToStringContext context) {
         return "l2_normalize(" + argument.toString(context) + ", " + dimension + ")";
@@ -173,8 +173,14 @@ public class Reduce<NAMETYPE extends Name> extends PrimitiveTensorFunction<NAMET
 
     private static Tensor reduceIndexedVector(IndexedTensor argument, Aggregator aggregator) {
         ValueAggregator valueAggregator = ValueAggregator.ofType(aggregator);
-        for (int i = 0; i < argument.dimensionSizes().size(0); i++)
-            valueAggregator.aggregate(argument.get(i));
+        long size = argument.dimensionSizes().size(0);
+        if (aggregator == Aggregator.sum)
+            valueAggregator.aggregate(argument.valueSum(0, size));
+        else if (aggregator == Aggregator.max)
+            valueAggregator.aggregate(argument.valueMax(0, size));
+        else
+            for (int i = 0; i < size; i++)
+                valueAggregator.aggregate(argument.get(i));
         return Tensor.Builder.of(TensorType.empty).cell((valueAggregator.aggregatedValue())).build();
     }
 
@@ -5,12 +5,18 @@ import com.google.common.collect.ImmutableList;
 import com.yahoo.tensor.DimensionSizes;
 import com.yahoo.tensor.IndexedTensor;
 import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorAddress;
 import com.yahoo.tensor.TensorType;
 import com.yahoo.tensor.evaluation.EvaluationContext;
 import com.yahoo.tensor.evaluation.Name;
+import com.yahoo.tensor.evaluation.ParallelEvaluation;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.function.DoubleBinaryOperator;
 import java.util.stream.Collectors;
 
@@ -22,7 +28,9 @@ import java.util.stream.Collectors;
  * This implementation optimizes the case where the reduce is done on the same
  * dimensions as the join. A particularly efficient evaluation is done if there
  * is one common dimension that is joined and reduced on, which is a common
- * case as it covers vector and matrix like multiplications.
+ * case as it covers vector and matrix like multiplications. Other cases, including
+ * those involving mapped dimensions, are evaluated by aggregating the joined values
+ * directly into the reduced tensor, without creating the joined tensor.
  *
  * @author lesters
  */
@@ -72,11 +80,15 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
         Tensor a = argumentA.evaluate(context);
         Tensor b = argumentB.evaluate(context);
         TensorType joinedType = new TensorType.Builder(a.type(), b.type()).build();
+        ParallelEvaluation parallel = context.parallelEvaluation().orElse(null);
 
         if (canOptimize(a, b)) {
-            return evaluate((IndexedTensor)a, (IndexedTensor)b, joinedType);
+            return evaluate((IndexedTensor)a, (IndexedTensor)b, joinedType, parallel);
         }
-        return Reduce.evaluate(Join.evaluate(a, b, joinedType, combinator), dimensions, aggregator);
+        if (joinedType.dimensionNames().containsAll(dimensions)) {
+            return evaluateFused(a, b, joinedType);
+        }
+        return Reduce.evaluate(Join.evaluate(a, b, joinedType, combinator, parallel), dimensions, aggregator);
     }
 
     /**
@@ -111,6 +123,10 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
                 if (!dimensions.contains(dimension.name()))
                     return false;
             }
+            for (String dimension : dimensions) {
+                if (commonDimensions.dimension(dimension).isEmpty())
+                    return false;
+            }
         }
         return true;
     }
@@ -119,7 +135,7 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
      * Evaluates the reduce-join. Special handling for common cases where the
      * reduce dimension is the innermost dimension in both tensors.
      */
-    private Tensor evaluate(IndexedTensor a, IndexedTensor b, TensorType joinedType) {
+    private Tensor evaluate(IndexedTensor a, IndexedTensor b, TensorType joinedType, ParallelEvaluation parallel) {
         TensorType reducedType = Reduce.outputType(joinedType, dimensions);
 
         if (reduceDimensionIsInnermost(a, b)) {
@@ -127,13 +143,13 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
                 return vectorVectorProduct(a, b, reducedType);
             }
             if (a.type().dimensions().size() == 1 && b.type().dimensions().size() == 2) {
-                return vectorMatrixProduct(a, b, reducedType, false);
+                return vectorMatrixProduct(a, b, reducedType, false, parallel);
             }
             if (a.type().dimensions().size() == 2 && b.type().dimensions().size() == 1) {
-                return vectorMatrixProduct(b, a, reducedType, true);
+                return vectorMatrixProduct(b, a, reducedType, true, parallel);
             }
             if (a.type().dimensions().size() == 2 && b.type().dimensions().size() == 2) {
-                return matrixMatrixProduct(a, b, reducedType);
+                return matrixMatrixProduct(a, b, reducedType, parallel);
             }
         }
         return evaluateGeneral(a, b, reducedType);
@@ -146,6 +162,10 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
         IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)IndexedTensor.Builder.of(reducedType);
         long commonSize = Math.min(a.dimensionSizes().size(0), b.dimensionSizes().size(0));
 
+        if (isDotProduct()) {
+            builder.cellByDirectIndex(0, a.dotProduct(0, b, 0, commonSize));
+            return builder.build();
+        }
         Reduce.ValueAggregator agg = Reduce.ValueAggregator.ofType(aggregator);
         for (int ic = 0; ic < commonSize; ++ic) {
             double va = a.get(ic);
@@ -156,29 +176,40 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
         return builder.build();
     }
 
-    private Tensor vectorMatrixProduct(IndexedTensor a, IndexedTensor b, TensorType reducedType, boolean swapped) {
+    private Tensor vectorMatrixProduct(IndexedTensor a, IndexedTensor b, TensorType reducedType, boolean swapped,
+                                       ParallelEvaluation parallel) {
         if ( a.type().dimensions().size() != 1 || b.type().dimensions().size() != 2) {
             throw new IllegalArgumentException("Wrong dimension sizes for tensors for vector-matrix product");
         }
         IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)IndexedTensor.Builder.of(reducedType);
         DimensionSizes sizesA = a.dimensionSizes();
         DimensionSizes sizesB = b.dimensionSizes();
-
-        Reduce.ValueAggregator agg = Reduce.ValueAggregator.ofType(aggregator);
-        for (int ib = 0; ib < sizesB.size(0); ++ib) {
-            agg.reset();
-            for (int ic = 0; ic < Math.min(sizesA.size(0), sizesB.size(1)); ++ic) {
-                double va = a.get(ic);
-                double vb = b.get(ib * sizesB.size(1) + ic);
-                double result = swapped ? combinator.applyAsDouble(vb, va) : combinator.applyAsDouble(va, vb);
-                agg.aggregate(result);
-            }
-            builder.cellByDirectIndex(ib, agg.aggregatedValue());
+        long commonSize = Math.min(sizesA.size(0), sizesB.size(1));
+
+        if (isDotProduct()) {
+            ParallelEvaluation.forEachRange(parallel, (int)sizesB.size(0), commonSize, (start, end) -> {
+                for (int ib = start; ib < end; ++ib)
+                    builder.cellByDirectIndex(ib, a.dotProduct(0, b, ib * sizesB.size(1), commonSize));
+            });
+            return builder.build();
         }
+        ParallelEvaluation.forEachRange(parallel, (int)sizesB.size(0), commonSize, (start, end) -> {
+            Reduce.ValueAggregator agg = Reduce.ValueAggregator.ofType(aggregator);
+            for (int ib = start; ib < end; ++ib) {
+                agg.reset();
+                for (int ic = 0; ic < commonSize; ++ic) {
+                    double va = a.get(ic);
+                    double vb = b.get(ib * sizesB.size(1) + ic);
+                    double result = swapped ? combinator.applyAsDouble(vb, va) : combinator.applyAsDouble(va, vb);
+                    agg.aggregate(result);
+                }
+                builder.cellByDirectIndex(ib, agg.aggregatedValue());
+            }
+        });
         return builder.build();
     }
 
-    private Tensor matrixMatrixProduct(IndexedTensor a, IndexedTensor b, TensorType reducedType) {
+    private Tensor matrixMatrixProduct(IndexedTensor a, IndexedTensor b, TensorType reducedType, ParallelEvaluation parallel) {
         if ( a.type().dimensions().size() != 2 || b.type().dimensions().size() != 2) {
             throw new IllegalArgumentException("Wrong dimension sizes for tensors for matrix-matrix product");
         }
@@ -190,21 +221,40 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
         long strideA = iaToReduced < ibToReduced ? sizesB.size(0) : 1;
         long strideB = ibToReduced < iaToReduced ? sizesA.size(0) : 1;
 
-        Reduce.ValueAggregator agg = Reduce.ValueAggregator.ofType(aggregator);
-        for (int ia = 0; ia < sizesA.size(0); ++ia) {
-            for (int ib = 0; ib < sizesB.size(0); ++ib) {
-                agg.reset();
-                for (int ic = 0; ic < Math.min(sizesA.size(1), sizesB.size(1)); ++ic) {
-                    double va = a.get(ia * sizesA.size(1) + ic);
-                    double vb = b.get(ib * sizesB.size(1) + ic);
-                    agg.aggregate(combinator.applyAsDouble(va, vb));
+        long commonSize = Math.min(sizesA.size(1), sizesB.size(1));
+
+        // Each row of a is an item producing sizesB.size(0) cells
+        if (isDotProduct()) {
+            ParallelEvaluation.forEachRange(parallel, (int)sizesA.size(0), sizesB.size(0) * commonSize, (start, end) -> {
+                for (int ia = start; ia < end; ++ia)
+                    for (int ib = 0; ib < sizesB.size(0); ++ib)
+                        builder.cellByDirectIndex(ia * strideA + ib * strideB,
+                                                  a.dotProduct(ia * sizesA.size(1), b, ib * sizesB.size(1), commonSize));
+            });
+            return builder.build();
+        }
+        ParallelEvaluation.forEachRange(parallel, (int)sizesA.size(0), sizesB.size(0) * commonSize, (start, end) -> {
+            Reduce.ValueAggregator agg = Reduce.ValueAggregator.ofType(aggregator);
+            for (int ia = start; ia < end; ++ia) {
+                for (int ib = 0; ib < sizesB.size(0); ++ib) {
+                    agg.reset();
+                    for (int ic = 0; ic < commonSize; ++ic) {
+                        double va = a.get(ia * sizesA.size(1) + ic);
+                        double vb = b.get(ib * sizesB.size(1) + ic);
+                        agg.aggregate(combinator.applyAsDouble(va, vb));
+                    }
+                    builder.cellByDirectIndex(ia * strideA + ib * strideB, agg.aggregatedValue());
                 }
-                builder.cellByDirectIndex(ia * strideA + ib * strideB, agg.aggregatedValue());
             }
-        }
+        });
         return builder.build();
     }
 
+    /** Returns whether this multiplies and sums, such that the innermost loops can be done as dot products */
+    private boolean isDotProduct() {
+        return combinator instanceof ScalarFunctions.Multiply && aggregator == Reduce.Aggregator.sum;
+    }
+
     private Tensor evaluateGeneral(IndexedTensor a, IndexedTensor b, TensorType reducedType) {
         IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)IndexedTensor.Builder.of(reducedType);
         TensorType onlyInA = Reduce.outputType(a.type(), dimensions);
@@ -243,6 +293,135 @@ public class ReduceJoin<NAMETYPE extends Name> extends CompositeTensorFunction<N
         return builder.build();
     }
 
+    /**
+     * Evaluates the reduce-join of any two tensors by aggregating each pair of joined cells directly
+     * into the reduced cell it belongs to, without creating the joined tensor.
+     * Cells are paired in the same way as by {@link Join}.
+     */
+    private Tensor evaluateFused(Tensor a, Tensor b, TensorType joinedType) {
+        boolean reduceAll = dimensions.isEmpty() || dimensions.size() == joinedType.dimensions().size();
+        TensorType reducedType = reduceAll ? TensorType.empty : Reduce.outputType(joinedType, dimensions);
+        FusedAggregator aggregator = new FusedAggregator(a.type(), b.type(), reducedType);
+
+        if (a.type().dimensionNames().equals(b.type().dimensionNames()))
+            joinSingleSpace(a, b, aggregator);
+        else if (a.type().dimensionNames().containsAll(b.type().dimensionNames()))
+            joinSubspace(b, a, true, aggregator);
+        else if (b.type().dimensionNames().containsAll(a.type().dimensionNames()))
+            joinSubspace(a, b, false, aggregator);
+        else
+            joinGeneral(a, b, aggregator);
+
+        return aggregator.result();
+    }
+
+    /** When both tensors have the same dimensions, at most one cell matches a cell in the other tensor */
+    private void joinSingleSpace(Tensor a, Tensor b, FusedAggregator aggregator) {
+        for (Iterator<Tensor.Cell> i = a.cellIterator(); i.hasNext(); ) {
+            Tensor.Cell aCell = i.next();
+            double bValue = b.get(aCell.getKey());
+            if (Double.isNaN(bValue)) continue; // no match
+            aggregator.aggregate(aCell.getKey(), null, combinator.applyAsDouble(aCell.getValue(), bValue));
+        }
+    }
+
+    /** When the dimensions of the subspace tensor are a subset of the other, each supercell matches one subcell */
+    private void joinSubspace(Tensor subspace, Tensor superspace, boolean reversedArgumentOrder, FusedAggregator aggregator) {
+        int[] subspaceIndexes = Join.mapIndexes(subspace.type(), superspace.type());
+        for (Iterator<Tensor.Cell> i = superspace.cellIterator(); i.hasNext(); ) {
+            Tensor.Cell superCell = i.next();
+            double subspaceValue = subspace.get(superCell.getKey().partialCopy(subspaceIndexes));
+            if (Double.isNaN(subspaceValue)) continue; // no match
+            double value = reversedArgumentOrder ? combinator.applyAsDouble(superCell.getValue(), subspaceValue)
+                                                 : combinator.applyAsDouble(subspaceValue, superCell.getValue());
+            if (reversedArgumentOrder)
+                aggregator.aggregate(superCell.getKey(), null, value);
+            else
+                aggregator.aggregate(null, superCell.getKey(), value);
+        }
+    }
+
+    /** Pairs cells having the same labels in the dimensions the tensors have in common */
+    private void joinGeneral(Tensor a, Tensor b, FusedAggregator aggregator) {
+        List<String> commonDimensions = new ArrayList<>();
+        for (TensorType.Dimension dimension : a.type().dimensions())
+            if (b.type().dimension(dimension.name()).isPresent())
+                commonDimensions.add(dimension.name());
+        int[] aCommonIndexes = commonDimensions.stream().mapToInt(d -> a.type().indexOfDimension(d).get()).toArray();
+        int[] bCommonIndexes = commonDimensions.stream().mapToInt(d -> b.type().indexOfDimension(d).get()).toArray();
+
+        Map<TensorAddress, List<Tensor.Cell>> bCellsByCommonAddress = new HashMap<>();
+        for (Iterator<Tensor.Cell> i = b.cellIterator(); i.hasNext(); ) {
+            Tensor.Cell bCell = i.next().detach();
+            bCellsByCommonAddress.computeIfAbsent(bCell.getKey().partialCopy(bCommonIndexes), __ -> new ArrayList<>()).add(bCell);
+        }
+        for (Iterator<Tensor.Cell> i = a.cellIterator(); i.hasNext(); ) {
+            Tensor.Cell aCell = i.next();
+            List<Tensor.Cell> bCells = bCellsByCommonAddress.get(aCell.getKey().partialCopy(aCommonIndexes));
+            if (bCells == null) continue;
+            for (Tensor.Cell bCell : bCells)
+                aggregator.aggregate(aCell.getKey(), bCell.getKey(), combinator.applyAsDouble(aCell.getValue(), bCell.getValue()));
+        }
+    }
+
+    /** Aggregates values into the cells of the reduced tensor, given the addresses of the joined cells they came from */
+    private class FusedAggregator {
+
+        private final TensorType reducedType;
+
+        /** The index in the a and b addresses of each dimension in the reduced address, or -1 if not present */
+        private final int[] reducedIndexesInA, reducedIndexesInB;
+        private final boolean reducedFromA, reducedFromB;
+
+        private final Map<TensorAddress, Reduce.ValueAggregator> cells = new HashMap<>();
+
+        /** The single aggregator used when reducing to a scalar, or null */
+        private final Reduce.ValueAggregator all;
+
+        FusedAggregator(TensorType aType, TensorType bType, TensorType reducedType) {
+            this.reducedType = reducedType;
+            this.all = reducedType.dimensions().isEmpty() ? Reduce.ValueAggregator.ofType(aggregator) : null;
+            this.reducedIndexesInA = Join.mapIndexes(reducedType, aType);
+            this.reducedIndexesInB = Join.mapIndexes(reducedType, bType);
+            this.reducedFromA = Arrays.stream(reducedIndexesInA).allMatch(i -> i >= 0);
+            this.reducedFromB = Arrays.stream(reducedIndexesInB).allMatch(i -> i >= 0);
+        }
+
+        /** Aggregates the value of a joined cell, given the addresses of the a and b cells (one may be null) */
+        void aggregate(TensorAddress a, TensorAddress b, double value) {
+            if (all != null) {
+                all.aggregate(value);
+                return;
+            }
+            TensorAddress reducedAddress = reducedAddress(a, b);
+            Reduce.ValueAggregator cell = cells.get(reducedAddress);
+            if (cell == null) {
+                cell = Reduce.ValueAggregator.ofType(aggregator);
+                cells.put(reducedAddress, cell);
+            }
+            cell.aggregate(value);
+        }
+
+        private TensorAddress reducedAddress(TensorAddress a, TensorAddress b) {
+            if (a != null && reducedFromA) return a.partialCopy(reducedIndexesInA);
+            if (b != null && reducedFromB) return b.partialCopy(reducedIndexesInB);
+            String[] labels = new String[reducedIndexesInA.length];
+            for (int i = 0; i < labels.length; i++)
+                labels[i] = reducedIndexesInA[i] >= 0 ? a.label(reducedIndexesInA[i]) : b.label(reducedIndexesInB[i]);
+            return TensorAddress.of(labels);
+        }
+
+        Tensor result() {
+            if (all != null)
+                return Tensor.Builder.of(TensorType.empty).cell(all.aggregatedValue()).build();
+            Tensor.Builder builder = Tensor.Builder.of(reducedType);
+            for (Map.Entry<TensorAddress, Reduce.ValueAggregator> cell : cells.entrySet())
+                builder.cell(cell.getKey(), cell.getValue().aggregatedValue());
+            return builder.build();
+        }
+
+    }
+
     private long toDirectIndex(MultiDimensionIterator iter, MultiDimensionIterator common, long[] strides, int[] map, int[] commonmap) {
         long directIndex = 0;
         for (int i = 0; i < iter.length(); ++i) {
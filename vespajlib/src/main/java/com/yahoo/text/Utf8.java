@@ -3,8 +3,11 @@ package com.yahoo.text;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.nio.CharBuffer;
 import java.nio.ReadOnlyBufferException;
 import java.nio.charset.Charset;
@@ -26,6 +29,10 @@ public final class Utf8 {
     private static final byte [] FALSE = {(byte) 'f', (byte) 'a', (byte) 'l', (byte) 's', (byte) 'e'};
     private static final byte[] LONG_MIN_VALUE_BYTES = String.valueOf(Long.MIN_VALUE).getBytes(StandardCharsets.UTF_8);
 
+    /** Reads 8 bytes at a time from byte arrays, to look for non-ASCII bytes in all of them at once */
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final long NON_ASCII_MASK = 0x8080808080808080L;
+
     /** Returns the Charset instance for UTF-8 */
     public static Charset getCharset() {
         return StandardCharsets.UTF_8;
@@ -48,7 +55,82 @@ public final class Utf8 {
      * @return String decoded from UTF-8
      */
     public static String toString(byte[] data, int offset, int length) {
-        return toString(ByteBuffer.wrap(data, offset, length));
+        return new String(data, offset, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes UTF-8 bytes into a string, like toString(byte[], int, int), but throws
+     * instead of replacing malformed input.
+     *
+     * @param data bytes to decode
+     * @param offset index of first byte to decode
+     * @param length number of bytes to decode
+     * @return String decoded from UTF-8
+     * @throws IllegalArgumentException if the bytes are not valid UTF-8
+     */
+    public static String toStringOrThrow(byte[] data, int offset, int length) {
+        if ( ! isValid(data, offset, length))
+            throw new IllegalArgumentException("Invalid UTF-8 in " + length + " bytes at offset " + offset);
+        return new String(data, offset, length, StandardCharsets.UTF_8);
+    }
+
+    /** Returns whether the given bytes are a valid UTF-8 sequence. */
+    public static boolean isValid(byte[] utf8) { return isValid(utf8, 0, utf8.length); }
+
+    /**
+     * Returns whether the given bytes are a valid UTF-8 sequence, i.e., contains only shortest form
+     * encodings of code points up to U+10FFFF which are not surrogates. ASCII is checked 8 bytes at a time.
+     *
+     * @param utf8 raw data
+     * @param offset index of first byte of UTF-8 sequence to check
+     * @param length number of bytes in the UTF-8 sequence to check
+     */
+    public static boolean isValid(byte[] utf8, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        while (true) {
+            i = skipAscii(utf8, i, end);
+            if (i == end) return true;
+
+            int first = utf8[i] & 0xff;
+            int trailing;
+            int minSecond = 0x80, maxSecond = 0xbf;
+            if (first < 0xc2) { // a trailing byte, or an overlong 2 byte sequence
+                return false;
+            } else if (first < 0xe0) {
+                trailing = 1;
+            } else if (first < 0xf0) {
+                trailing = 2;
+                if (first == 0xe0) minSecond = 0xa0; // overlong
+                if (first == 0xed) maxSecond = 0x9f; // surrogates
+            } else if (first < 0xf5) {
+                trailing = 3;
+                if (first == 0xf0) minSecond = 0x90; // overlong
+                if (first == 0xf4) maxSecond = 0x8f; // above U+10FFFF
+            } else {
+                return false;
+            }
+            if (i + trailing >= end) return false;
+
+            int second = utf8[i + 1] & 0xff;
+            if (second < minSecond || second > maxSecond) return false;
+            for (int j = 2; j <= trailing; j++) {
+                if ((utf8[i + j] & 0xc0) != 0x80) return false;
+            }
+            i += trailing + 1;
+        }
+    }
+
+    /** Returns the index of the first non-ASCII byte from start, or end if there is none. */
+    private static int skipAscii(byte[] data, int start, int end) {
+        int i = start;
+        for (; i + Long.BYTES <= end; i += Long.BYTES) {
+            if (((long)LONG_VIEW.get(data, i) & NON_ASCII_MASK) != 0) break;
+        }
+        for (; i < end; i++) {
+            if (data[i] < 0) break;
+        }
+        return i;
     }
 
     /**
@@ -138,6 +220,16 @@ public final class Utf8 {
      * @return substring encoded as UTF-8
      */
     public static byte[] toBytes(String str, int offset, int length) {
+        byte[] ascii = new byte[length];
+        for (int i = 0; i < length; i++) {
+            char c = str.charAt(offset + i);
+            if (c >= 0x80) return encode(str, offset, length);
+            ascii[i] = (byte)c;
+        }
+        return ascii;
+    }
+
+    private static byte[] encode(String str, int offset, int length) {
         CharBuffer c = CharBuffer.wrap(str, offset, offset + length);
         ByteBuffer b = StandardCharsets.UTF_8.encode(c);
         byte[] result = new byte[b.remaining()];
@@ -161,6 +253,16 @@ public final class Utf8 {
      * @return the number of bytes written to the array.
      */
     public static int toBytes(String str, int srcOffset, int srcLen, byte[] dst, int dstOffset) {
+        for (int i = 0; i < srcLen; i++) {
+            char c = str.charAt(srcOffset + i);
+            if (c >= 0x80) // encode the rest the general way
+                return i + encode(str, srcOffset + i, srcLen - i, dst, dstOffset + i);
+            dst[dstOffset + i] = (byte)c;
+        }
+        return srcLen;
+    }
+
+    private static int encode(String str, int srcOffset, int srcLen, byte[] dst, int dstOffset) {
         CharBuffer c = CharBuffer.wrap(str, srcOffset, srcOffset + srcLen);
         ByteBuffer b = StandardCharsets.UTF_8.encode(c);
         int encoded = b.remaining();
@@ -286,8 +388,9 @@ public final class Utf8 {
             byte firstByte = utf8[i];
             if (firstByte >= -16) {
                 if (firstByte >= 0) {
-                    ++units;
-                    ++i;
+                    int next = skipAscii(utf8, i + 1, barrier);
+                    units += next - i;
+                    i = next;
                 } else {
                     units += 2;
                     i += 4;
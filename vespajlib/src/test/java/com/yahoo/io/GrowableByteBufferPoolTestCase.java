@@ -0,0 +1,100 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.io;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests GrowableByteBufferPool.
+ *
+ * @author agent
+ */
+public class GrowableByteBufferPoolTestCase {
+
+    @Test
+    public void testReleasedBufferIsReusedEmpty() {
+        GrowableByteBufferPool pool = new GrowableByteBufferPool("test", 64, 1024);
+        GrowableByteBuffer buffer = pool.acquire();
+        buffer.putInt(42);
+        pool.release(buffer);
+
+        GrowableByteBuffer reused = pool.acquire();
+        assertSame(buffer, reused);
+        assertEquals(0, reused.position());
+        assertEquals(1, pool.allocations());
+        assertEquals(1, pool.reuses());
+        assertEquals(0, pool.drops());
+    }
+
+    @Test
+    public void testNestedAcquireGivesDistinctBuffers() {
+        GrowableByteBufferPool pool = new GrowableByteBufferPool("test", 64, 1024);
+        GrowableByteBuffer outer = pool.acquire();
+        GrowableByteBuffer inner = pool.acquire();
+        assertNotSame(outer, inner);
+        pool.release(inner);
+        pool.release(outer);
+
+        assertSame(outer, pool.acquire());
+        assertSame(inner, pool.acquire());
+        assertEquals(2, pool.allocations());
+        assertEquals(2, pool.reuses());
+    }
+
+    @Test
+    public void testLargeBuffersAreNotRetained() {
+        GrowableByteBufferPool pool = new GrowableByteBufferPool("test", 64, 1024);
+        GrowableByteBuffer buffer = pool.acquire();
+        buffer.put(new byte[2000]);
+        pool.release(buffer);
+
+        assertNotSame(buffer, pool.acquire());
+        assertEquals(2, pool.allocations());
+        assertEquals(0, pool.reuses());
+        assertEquals(1, pool.drops());
+    }
+
+    @Test
+    public void testBuffersBeyondTheMaxPerThreadAreNotRetained() {
+        GrowableByteBufferPool pool = new GrowableByteBufferPool("test", 64, 1024);
+        GrowableByteBuffer[] acquired = new GrowableByteBuffer[5];
+        for (int i = 0; i < acquired.length; i++)
+            acquired[i] = pool.acquire();
+        for (GrowableByteBuffer buffer : acquired)
+            pool.release(buffer);
+
+        assertEquals(5, pool.allocations());
+        assertEquals(1, pool.drops());
+        assertEquals("Buffer pool 'test': 5 buffers allocated, 0 reused, 1 dropped", pool.toString());
+    }
+
+    @Test
+    public void testBuffersAreNotSharedBetweenThreads() throws InterruptedException {
+        GrowableByteBufferPool pool = new GrowableByteBufferPool("test", 64, 1024);
+        GrowableByteBuffer buffer = pool.acquire();
+        pool.release(buffer);
+
+        GrowableByteBuffer[] other = new GrowableByteBuffer[1];
+        Thread thread = new Thread(() -> other[0] = pool.acquire());
+        thread.start();
+        thread.join();
+        assertNotSame(buffer, other[0]);
+        assertSame(buffer, pool.acquire());
+    }
+
+    @Test
+    public void testInitialSizeCannotExceedMaxRetainedSize() {
+        try {
+            new GrowableByteBufferPool("test", 2048, 1024);
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals("Initial size 2048 cannot be larger than the max retained size 1024", e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,122 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.slime;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent
+ */
+public class BinaryViewTestCase {
+
+    private static Slime createSlime() {
+        Slime slime = new Slime();
+        Cursor root = slime.setObject();
+        root.setNix("nix");
+        root.setBool("bool", true);
+        root.setLong("long", -123456789012L);
+        root.setDouble("double", 3.75);
+        root.setString("string", "blåbær");
+        root.setData("data", new byte[] { 1, 2, 3 });
+        Cursor array = root.setArray("array");
+        for (int i = 0; i < 40; i++)
+            array.addLong(i);
+        Cursor object = array.addObject();
+        object.setString("nested", "value");
+        object.setArray("empty");
+        return slime;
+    }
+
+    @Test
+    public void testViewEqualsDecodedSlime() {
+        Slime slime = createSlime();
+        byte[] data = BinaryFormat.encode(slime);
+        Inspector view = BinaryFormat.inspect(data);
+        assertTrue(view.equalTo(slime.get()));
+        assertTrue(slime.get().equalTo(view));
+        assertEquals(slime.toString(), view.toString());
+    }
+
+    @Test
+    public void testAccessingValues() {
+        Inspector view = BinaryFormat.inspect(BinaryFormat.encode(createSlime()));
+        assertEquals(Type.OBJECT, view.type());
+        assertEquals(7, view.fields());
+        assertEquals(7, view.children());
+        assertEquals(0, view.entries());
+
+        assertTrue(view.field("nix").valid());
+        assertEquals(Type.NIX, view.field("nix").type());
+        assertTrue(view.field("bool").asBool());
+        assertEquals(-123456789012L, view.field("long").asLong());
+        assertEquals(-123456789012.0, view.field("long").asDouble(), 0);
+        assertEquals(3.75, view.field("double").asDouble(), 0);
+        assertEquals(3, view.field("double").asLong());
+        assertEquals("blåbær", view.field("string").asString());
+        assertArrayEquals("blåbær".getBytes(StandardCharsets.UTF_8), view.field("string").asUtf8());
+        assertArrayEquals(new byte[] { 1, 2, 3 }, view.field("data").asData());
+        assertEquals("", view.field("data").asString());
+
+        Inspector array = view.field("array");
+        assertEquals(41, array.entries());
+        assertEquals(0, array.fields());
+        assertEquals(17, array.entry(17).asLong());
+        assertEquals("value", array.entry(40).field("nested").asString());
+        assertEquals(0, array.entry(40).field("empty").entries());
+        assertSame(array.entry(3), array.entry(3));
+
+        assertFalse(view.field("unknown").valid());
+        assertFalse(view.entry(0).valid());
+        assertFalse(array.entry(41).valid());
+        assertFalse(array.entry(-1).valid());
+        assertFalse(array.field("long").valid());
+    }
+
+    @Test
+    public void testTraversal() {
+        Inspector view = BinaryFormat.inspect(BinaryFormat.encode(createSlime()));
+        List<String> names = new ArrayList<>();
+        view.traverse((ObjectTraverser) (name, value) -> names.add(name));
+        assertEquals(Arrays.asList("nix", "bool", "long", "double", "string", "data", "array"), names);
+
+        long[] sum = new long[1];
+        view.field("array").traverse((ArrayTraverser) (index, value) -> sum[0] += value.asLong());
+        assertEquals(780, sum[0]);
+    }
+
+    @Test
+    public void testViewOfSlice() {
+        Slime slime = new Slime();
+        slime.setString("a string");
+        byte[] encoded = BinaryFormat.encode(slime);
+        byte[] data = new byte[encoded.length + 10];
+        System.arraycopy(encoded, 0, data, 5, encoded.length);
+        Inspector view = BinaryFormat.inspect(data, 5, encoded.length);
+        assertEquals("a string", view.asString());
+    }
+
+    @Test
+    public void testTruncatedDataIsInvalid() {
+        byte[] data = BinaryFormat.encode(createSlime());
+        for (int length = 0; length < data.length; length++) {
+            Inspector view = BinaryFormat.inspect(data, 0, length);
+            assertTrue(! view.valid() || view.fields() == 0); // the symbol table, or the root object, is incomplete
+        }
+
+        Slime slime = new Slime();
+        slime.setString("a string");
+        byte[] string = BinaryFormat.encode(slime);
+        assertFalse(BinaryFormat.inspect(string, 0, string.length - 1).valid());
+    }
+
+}
@@ -103,7 +103,34 @@ public class IndexedTensorTestCase {
         Tensor tensor = builder.build();
         assertEquals(47.0, tensor.sum(Collections.singletonList("x")).asDouble(), 0.000001);
     }
-    
+
+    @Test
+    public void testDenseKernels() {
+        for (String a : new String[] { "tensor(x[11])", "tensor<float>(x[11])" }) {
+            for (String b : new String[] { "tensor(x[11])", "tensor<float>(x[11])" }) {
+                IndexedTensor aTensor = vector(a, 11, 1);
+                IndexedTensor bTensor = vector(b, 11, -2);
+                double expected = 0;
+                for (int i = 3; i < 10; i++)
+                    expected += aTensor.get(i) * bTensor.get(i - 2);
+                assertEquals(a + " * " + b, expected, aTensor.dotProduct(3, bTensor, 1, 7), 0.000001);
+            }
+            IndexedTensor tensor = vector(a, 11, 1);
+            assertEquals(66.0, tensor.valueSum(0, 11), 0.000001);
+            assertEquals(5.0, tensor.valueSum(1, 2), 0.000001);
+            assertEquals(11.0, tensor.valueMax(0, 11), 0.000001);
+            assertEquals(Double.NEGATIVE_INFINITY, tensor.valueMax(3, 0), 0.000001);
+        }
+    }
+
+    /** Returns a vector where cell i has value (i + 1) * factor */
+    private IndexedTensor vector(String type, int size, double factor) {
+        IndexedTensor.Builder builder = IndexedTensor.Builder.of(TensorType.fromSpec(type));
+        for (int i = 0; i < size; i++)
+            builder.cell((i + 1) * factor, i);
+        return builder.build();
+    }
+
     private void assertBuildingVWXYZ(TensorType type) {
         IndexedTensor.Builder builder = IndexedTensor.Builder.of(type);
         // Build in scrambled order
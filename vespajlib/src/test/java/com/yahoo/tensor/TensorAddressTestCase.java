@@ -0,0 +1,76 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author agent
+ */
+public class TensorAddressTestCase {
+
+    @Test
+    public void testStringAndNumericAddressesAreInterchangeable() {
+        assertEqualAddresses(TensorAddress.ofLabels("0", "17", "-3"), TensorAddress.of(0, 17, -3));
+        assertEqualAddresses(TensorAddress.ofLabels(), TensorAddress.of());
+        assertEqualAddresses(TensorAddress.ofLabels(String.valueOf(Long.MAX_VALUE), String.valueOf(Long.MIN_VALUE)),
+                             TensorAddress.of(Long.MAX_VALUE, Long.MIN_VALUE));
+        assertNotEquals(TensorAddress.ofLabels("1", "2"), TensorAddress.of(2, 1));
+        assertNotEquals(TensorAddress.of(1, 2), TensorAddress.ofLabels("1", "2", "3"));
+    }
+
+    @Test
+    public void testStringAddresses() {
+        TensorAddress a = TensorAddress.ofLabels("foo", "bar");
+        assertEqualAddresses(a, TensorAddress.ofLabels("foo", new String("bar")));
+        assertNotEquals(a, TensorAddress.ofLabels("bar", "foo"));
+        assertEquals("cell address (foo,bar)", a.toString());
+        assertEqualAddresses(TensorAddress.ofLabels("foo", "3"), a.withLabel(1, 3));
+    }
+
+    @Test
+    public void testLabelsAreInternedInTensors() {
+        String label = new String("foo");
+        assertSame(label, TensorAddress.ofLabels(label).label(0));
+
+        String mappedLabel = labelIn(Tensor.from("tensor(x{}):{{x:foo}:1.0}"));
+        assertSame(mappedLabel, labelIn(Tensor.from("tensor(x{}):{{x:foo}:2.0}")));
+        assertSame(mappedLabel, labelIn(Tensor.from("tensor(x{},y[1]):{{x:foo,y:0}:3.0}")));
+    }
+
+    @Test
+    public void testLabelsAreNotRetainedWhenUnused() throws InterruptedException {
+        WeakReference<String> label = new WeakReference<>(labelIn(Tensor.from("tensor(x{}):{{x:unusedlabel}:1.0}")));
+        for (int i = 0; i < 100 && label.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(label.get());
+    }
+
+    @Test
+    public void testPartialCopy() {
+        int[] indexes = { 2, 0 };
+        assertEqualAddresses(TensorAddress.ofLabels("c", "a"), TensorAddress.ofLabels("a", "b", "c").partialCopy(indexes));
+        assertEqualAddresses(TensorAddress.of(3, 1), TensorAddress.of(1, 2, 3).partialCopy(indexes));
+        assertEqualAddresses(TensorAddress.of(), TensorAddress.of(1, 2, 3).partialCopy(new int[0]));
+    }
+
+    private String labelIn(Tensor tensor) {
+        return tensor.cells().keySet().iterator().next().label(0);
+    }
+
+    private void assertEqualAddresses(TensorAddress expected, TensorAddress actual) {
+        assertEquals(expected, actual);
+        assertEquals(actual, expected);
+        assertEquals(expected.hashCode(), actual.hashCode());
+        assertEquals(0, expected.compareTo(actual));
+    }
+
+}
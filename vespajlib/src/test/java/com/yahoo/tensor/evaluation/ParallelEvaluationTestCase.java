@@ -0,0 +1,115 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.evaluation;
+
+import com.yahoo.tensor.DimensionSizes;
+import com.yahoo.tensor.IndexedTensor;
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorAddress;
+import com.yahoo.tensor.TensorType;
+import com.yahoo.tensor.functions.ConstantTensor;
+import com.yahoo.tensor.functions.Generate;
+import com.yahoo.tensor.functions.Join;
+import com.yahoo.tensor.functions.Matmul;
+import com.yahoo.tensor.functions.Reduce;
+import com.yahoo.tensor.functions.ReduceJoin;
+import com.yahoo.tensor.functions.ScalarFunctions;
+import com.yahoo.tensor.functions.TensorFunction;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent
+ */
+public class ParallelEvaluationTestCase {
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+
+    @After
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testForEachRangeCoversAllItemsOnce() {
+        ParallelEvaluation parallel = new ParallelEvaluation(pool, 10);
+        for (int size : new int[] { 0, 1, 9, 10, 1000, 1001 }) {
+            int[] visits = new int[size];
+            ParallelEvaluation.forEachRange(parallel, size, 1, (start, end) -> {
+                for (int i = start; i < end; i++)
+                    visits[i]++;
+            });
+            for (int i = 0; i < size; i++)
+                assertEquals("Item " + i + " of " + size, 1, visits[i]);
+        }
+    }
+
+    @Test
+    public void testSmallWorkIsDoneOnCallingThread() {
+        Set<Thread> threads = ConcurrentHashMap.newKeySet();
+        ParallelEvaluation.forEachRange(new ParallelEvaluation(pool), 1000, 1, (start, end) -> threads.add(Thread.currentThread()));
+        assertEquals(Set.of(Thread.currentThread()), threads);
+
+        ParallelEvaluation.forEachRange(new ParallelEvaluation(pool, 100), 1000, 1, (start, end) -> threads.add(Thread.currentThread()));
+        assertTrue(threads.size() > 1);
+    }
+
+    @Test
+    public void testParallelEvaluationEqualsSerial() {
+        Random random = new Random(17);
+        Tensor vector = random("tensor(x[300])", random);
+        Tensor matrix = random("tensor(x[300],y[50])", random);
+        Tensor floatMatrix = random("tensor<float>(x[300],y[50])", random);
+        Tensor other = random("tensor(y[50],z[40])", random);
+        Tensor mapped = mapped(2000, random);
+        Tensor otherMapped = mapped(2000, random);
+
+        assertParallelEqualsSerial(Generate.free(TensorType.fromSpec("tensor(x[70],y[60],z[5])"),
+                                                 indexes -> (double)indexes.get(0) * 10000 + indexes.get(1) * 10 + indexes.get(2)));
+        assertParallelEqualsSerial(join(vector, vector));
+        assertParallelEqualsSerial(join(matrix, floatMatrix));
+        assertParallelEqualsSerial(join(mapped, otherMapped));
+        assertParallelEqualsSerial(new ReduceJoin<>(new ConstantTensor<>(vector), new ConstantTensor<>(matrix),
+                                                    ScalarFunctions.multiply(), Reduce.Aggregator.sum, List.of("x")));
+        assertParallelEqualsSerial(new ReduceJoin<>(new ConstantTensor<>(matrix), new ConstantTensor<>(vector),
+                                                    ScalarFunctions.add(), Reduce.Aggregator.max, List.of("x")));
+        assertParallelEqualsSerial(new Matmul<>(new ConstantTensor<>(matrix), new ConstantTensor<>(other), "y"));
+        assertParallelEqualsSerial(new ReduceJoin<>(new ConstantTensor<>(matrix), new ConstantTensor<>(other),
+                                                    ScalarFunctions.add(), Reduce.Aggregator.min, List.of("y")));
+    }
+
+    private void assertParallelEqualsSerial(TensorFunction<Name> function) {
+        MapEvaluationContext<Name> context = new MapEvaluationContext<>();
+        context.setParallelEvaluation(new ParallelEvaluation(pool, 1));
+        assertEquals(function.toString(), function.evaluate(), function.evaluate(context));
+    }
+
+    private static TensorFunction<Name> join(Tensor a, Tensor b) {
+        return new Join<>(new ConstantTensor<>(a), new ConstantTensor<>(b), ScalarFunctions.multiply());
+    }
+
+    private static Tensor random(String type, Random random) {
+        TensorType tensorType = TensorType.fromSpec(type);
+        IndexedTensor.BoundBuilder builder = (IndexedTensor.BoundBuilder)Tensor.Builder.of(tensorType);
+        for (int i = 0; i < DimensionSizes.of(tensorType).totalSize(); i++)
+            builder.cellByDirectIndex(i, random.nextDouble());
+        return builder.build();
+    }
+
+    /** Returns a mapped tensor where about half the labels are shared with other tensors returned from this */
+    private static Tensor mapped(int cells, Random random) {
+        Tensor.Builder builder = Tensor.Builder.of(TensorType.fromSpec("tensor(key{})"));
+        for (int i = 0; i < cells; i++)
+            builder.cell(TensorAddress.ofLabels(String.valueOf(2 * i + random.nextInt(2))), random.nextDouble());
+        return builder.build();
+    }
+
+}
@@ -2,6 +2,7 @@
 package com.yahoo.tensor.functions;
 
 import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.TensorType;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -46,4 +47,13 @@ public class JoinTestCase {
                              .divide(Tensor.from("tensor(y[],z[]):{ {y:0,z:0}:2, {y:1,z:0}:4, {y:2,z:0}:6 }")));
     }
 
+    /** A NaN cell in the second argument is treated as a missing cell when the arguments have the same dimensions */
+    @Test
+    public void testSingleSpaceJoinWithNaN() {
+        TensorType type = TensorType.fromSpec("tensor(x[2],y[2])");
+        Tensor a = Tensor.from("tensor(x[2],y[2]):[[1.0, 2.0], [3.0, 4.0]]");
+        Tensor b = Tensor.Builder.of(type).cell(2.0, 0, 0).cell(2.0, 0, 1).cell(Double.NaN, 1, 0).cell(2.0, 1, 1).build();
+        assertEquals(Tensor.from("tensor(x[2],y[2]):[[2.0, 4.0], [0.0, 8.0]]"), a.multiply(b));
+    }
+
 }
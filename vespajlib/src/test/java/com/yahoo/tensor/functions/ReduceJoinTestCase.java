@@ -0,0 +1,98 @@
+// Copyright Verizon Media. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.tensor.functions;
+
+import com.yahoo.tensor.Tensor;
+import com.yahoo.tensor.evaluation.Name;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.function.DoubleBinaryOperator;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author agent
+ */
+public class ReduceJoinTestCase {
+
+    @Test
+    public void testDotProductsEqualReduceOfJoin() {
+        Tensor vx = Tensor.from("tensor(x[5]):[1, 2, 3, 4, 5]");
+        Tensor floatVx = Tensor.from("tensor<float>(x[5]):[5, 4, 3, 2, 1]");
+        Tensor wx = Tensor.from("tensor(x[5]):[1, 1, 2, 3, 5]");
+        Tensor myx = Tensor.from("tensor(y[2],x[5]):[[1, 0, 1, 0, 1], [0, 2, 0, 2, 0]]");
+        Tensor mzx = Tensor.from("tensor(z[3],x[5]):[[1, 1, 1, 1, 1], [1, 2, 3, 4, 5], [-1, 0, 1, 0, -1]]");
+        Tensor floatMzx = Tensor.from("tensor<float>(z[3],x[5]):[[1, 1, 1, 1, 1], [1, 2, 3, 4, 5], [-1, 0, 1, 0, -1]]");
+
+        for (Reduce.Aggregator aggregator : List.of(Reduce.Aggregator.sum, Reduce.Aggregator.max)) {
+            for (DoubleBinaryOperator combinator : List.of(ScalarFunctions.multiply(), ScalarFunctions.add())) {
+                assertReduceJoin(vx, wx, combinator, aggregator, "x");
+                assertReduceJoin(vx, floatVx, combinator, aggregator, "x");
+                assertReduceJoin(floatVx, floatVx, combinator, aggregator, "x");
+                assertReduceJoin(vx, myx, combinator, aggregator, "x");
+                assertReduceJoin(mzx, vx, combinator, aggregator, "x");
+                assertReduceJoin(myx, mzx, combinator, aggregator, "x");
+                assertReduceJoin(mzx, myx, combinator, aggregator, "x");
+                assertReduceJoin(floatMzx, myx, combinator, aggregator, "x");
+            }
+        }
+    }
+
+    @Test
+    public void testSparseAndMixedEqualReduceOfJoin() {
+        Tensor query = Tensor.from("tensor(t{}):{{t:a}:1, {t:b}:2, {t:c}:3}");
+        Tensor attribute = Tensor.from("tensor(t{}):{{t:b}:5, {t:c}:7, {t:d}:11}");
+        Tensor denseT = Tensor.from("tensor(t[3]):[1, 2, 3]");
+        Tensor mapped2d = Tensor.from("tensor(t{},u{}):{{t:a,u:x}:1, {t:b,u:x}:2, {t:b,u:y}:3, {t:0,u:y}:4}");
+        Tensor mixed = Tensor.from("tensor(u{},t[2]):{{u:x,t:0}:1, {u:x,t:1}:2, {u:y,t:0}:3, {u:y,t:1}:4}");
+        Tensor mappedU = Tensor.from("tensor(u{}):{{u:x}:10, {u:z}:20}");
+        Tensor mappedV = Tensor.from("tensor(v{}):{{v:p}:2, {v:q}:3}");
+        Tensor mixedUV = Tensor.from("tensor(u{},v[2]):{{u:x,v:0}:1, {u:x,v:1}:2, {u:z,v:0}:3, {u:z,v:1}:4}");
+
+        for (Reduce.Aggregator aggregator : Reduce.Aggregator.values()) {
+            for (DoubleBinaryOperator combinator : List.of(ScalarFunctions.multiply(), ScalarFunctions.divide())) {
+                assertReduceJoin(query, attribute, combinator, aggregator);
+                assertReduceJoin(query, attribute, combinator, aggregator, "t");
+                assertReduceJoin(query, denseT, combinator, aggregator, "t");
+                assertReduceJoin(query, mapped2d, combinator, aggregator, "t");
+                assertReduceJoin(mapped2d, query, combinator, aggregator, "u");
+                assertReduceJoin(mixed, mappedU, combinator, aggregator, "u");
+                assertReduceJoin(mappedU, mixed, combinator, aggregator);
+                assertReduceJoin(query, mappedV, combinator, aggregator, "v");
+                assertReduceJoin(query, mappedV, combinator, aggregator, "t", "v");
+                assertReduceJoin(mixed, mixedUV, combinator, aggregator, "u");
+                assertReduceJoin(mixedUV, mixed, combinator, aggregator, "u", "v");
+            }
+        }
+    }
+
+    @Test
+    public void testMatmul() {
+        Tensor a = Tensor.from("tensor(i[2],j[3]):[[1, 2, 3], [4, 5, 6]]");
+        Tensor b = Tensor.from("tensor(k[2],j[3]):[[7, 9, 11], [8, 10, 12]]");
+        assertEquals(Tensor.from("tensor(i[2],k[2]):[[58, 64], [139, 154]]"), a.matmul(b, "j"));
+
+        // Reducing a dimension which is only present in one argument
+        Tensor c = Tensor.from("tensor(k[2]):[1, 2]");
+        assertEquals(Tensor.from("tensor(i[2],k[2]):[[6, 12], [15, 30]]"), a.matmul(c, "j"));
+    }
+
+    @Test
+    public void testL2Normalize() {
+        assertEquals(Tensor.from("tensor(x[2]):[0.6, 0.8]"), Tensor.from("tensor(x[2]):[3, 4]").l2Normalize("x"));
+        assertEquals(Tensor.from("tensor<float>(x[2]):[0.6, 0.8]"), Tensor.from("tensor<float>(x[2]):[3, 4]").l2Normalize("x"));
+        assertEquals(Tensor.from("tensor(y[2],x[2]):[[0.6, 0.8], [1, 0]]"),
+                     Tensor.from("tensor(y[2],x[2]):[[3, 4], [2, 0]]").l2Normalize("x"));
+    }
+
+    private void assertReduceJoin(Tensor a, Tensor b, DoubleBinaryOperator combinator,
+                                  Reduce.Aggregator aggregator, String ... dimensions) {
+        Tensor expected = a.join(b, combinator).reduce(aggregator, dimensions);
+        ReduceJoin<Name> reduceJoin =
+                new ReduceJoin<>(new ConstantTensor<>(a), new ConstantTensor<>(b), combinator, aggregator, List.of(dimensions));
+        Tensor actual = reduceJoin.evaluate();
+        if ( ! expected.equals(actual)) // NaN cells are not equal, so compare strings as well
+            assertEquals(a + " and " + b, expected.toString(), actual.toString());
+    }
+
+}
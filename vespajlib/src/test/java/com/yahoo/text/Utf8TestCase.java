@@ -20,8 +20,10 @@ import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * @author <a href="mailto:borud@yahoo-inc.com">Bjorn Borud</a>
@@ -176,7 +178,63 @@ public class Utf8TestCase {
         byte[] stringAsUtf8 = Utf8.toBytes(TEST_STRING);
         assertEquals(TEST_STRING.length(), Utf8.unitCount(stringAsUtf8));
 
+        String mixed = "A long ASCII prefix \u00e6\u00f8\u00e5 and a long ASCII suffix \ud800\udc00 end";
+        assertEquals(mixed.length(), Utf8.unitCount(Utf8.toBytes(mixed)));
+    }
+
+    @Test
+    public void testAsciiAndMixedEncodingOfSubstrings() {
+        String mixed = "An ASCII prefix, then \u00e6\u00f8\u00e5 \ud800\udc00 and an ASCII suffix";
+        for (int offset = 0; offset < mixed.length(); offset += 5) {
+            int length = mixed.length() - offset - 3;
+            if (Character.isLowSurrogate(mixed.charAt(offset))) continue;
+            byte[] expected = mixed.substring(offset, offset + length).getBytes(StandardCharsets.UTF_8);
+            assertArrayEquals(expected, Utf8.toBytes(mixed, offset, length));
+
+            byte[] destination = new byte[expected.length + 4];
+            assertEquals(expected.length, Utf8.toBytes(mixed, offset, length, destination, 2));
+            assertArrayEquals(expected, Arrays.copyOfRange(destination, 2, 2 + expected.length));
+        }
+    }
 
+    @Test
+    public void testValidation() {
+        assertTrue(Utf8.isValid(Utf8.toBytes(TEST_STRING)));
+        assertTrue(Utf8.isValid(Utf8.toBytes("Some ASCII, spanning more than eight bytes")));
+        assertTrue(Utf8.isValid(new byte[0]));
+        for (int c : TEST_CODEPOINTS)
+            assertTrue(Utf8.isValid(Utf8.toBytes(makeString(c))));
+
+        assertInvalid(0x80);                   // trailing byte only
+        assertInvalid(0xc0, 0xaf);             // overlong 2 byte encoding of '/'
+        assertInvalid(0xe0, 0x80, 0xaf);       // overlong 3 byte encoding of '/'
+        assertInvalid(0xf0, 0x80, 0x80, 0xaf); // overlong 4 byte encoding of '/'
+        assertInvalid(0xed, 0xa0, 0x80);       // surrogate
+        assertInvalid(0xf4, 0x90, 0x80, 0x80); // above U+10FFFF
+        assertInvalid(0xf5, 0x80, 0x80, 0x80); // invalid lead byte
+        assertInvalid(0xe2, 0x82);             // truncated
+        assertInvalid(0xe2, 0x41, 0x82);       // ASCII where a trailing byte is expected
+
+        byte[] data = Utf8.toBytes("..valid..\u00e6..");
+        data[data.length - 3] = (byte)0xff;
+        assertTrue(Utf8.isValid(data, 0, 9));
+        assertFalse(Utf8.isValid(data, 0, data.length));
+    }
+
+    private void assertInvalid(int ... bytes) {
+        byte[] data = new byte[bytes.length + 16];
+        Arrays.fill(data, (byte)'a');
+        for (int i = 0; i < bytes.length; i++)
+            data[i + 12] = (byte)bytes[i];
+        assertFalse(Utf8.isValid(data, 12, bytes.length));
+        assertFalse(Utf8.isValid(data));
+        try {
+            Utf8.toStringOrThrow(data, 0, data.length);
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals("Invalid UTF-8 in " + data.length + " bytes at offset 0", e.getMessage());
+        }
     }
 
     @Test